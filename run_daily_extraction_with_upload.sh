@@ -1,6 +1,7 @@
 #!/bin/bash
 # Daily extraction and upload script for Swedish Players
 # Runs SwedishPlayersExtractor followed by ApiUploader
+# (or both in one process with STREAM_UPLOAD=true)
 
 SCRIPT_DIR="$( cd "$( dirname "${BASH_SOURCE[0]}" )" && pwd )"
 cd "$SCRIPT_DIR"
@@ -25,38 +26,64 @@ LOG_FILE="logs/daily_extraction_$(date +%Y%m%d_%H%M%S).log"
     echo "Started at: $(date)"
     echo "=========================================="
     
-    # Step 1: Run SwedishPlayersExtractor
-    echo ""
-    echo "📥 [1/2] Running SwedishPlayersExtractor..."
-    mvn exec:java -Dexec.mainClass=com.brainium.core.SwedishPlayersExtractor
-    EXTRACT_EXIT=$?
-    
-    if [ $EXTRACT_EXIT -eq 0 ]; then
-        echo "✅ Extraction completed successfully"
-        # Wait 10 seconds before uploading
-        echo "⏳ Waiting 10 seconds before API upload..."
-        sleep 10
-        # Step 2: Run ApiUploader
+    if [ "$STREAM_UPLOAD" = "true" ]; then
+        # Combined run: players are uploaded while scraping continues (exit code 2 = upload failures)
         echo ""
-        echo "📤 [2/2] Running ApiUploader..."
-        mvn exec:java -Dexec.mainClass=com.brainium.core.ApiUploader
-        UPLOAD_EXIT=$?
-        
-        if [ $UPLOAD_EXIT -eq 0 ]; then
-            echo "✅ API upload completed successfully"
-            # Delete status and data files after successful upload
+        echo "📥📤 Running SwedishPlayersExtractor with streaming upload..."
+        mvn exec:java -Dexec.mainClass=com.brainium.core.SwedishPlayersExtractor -Dexec.args=--upload
+        EXTRACT_EXIT=$?
+        if [ $EXTRACT_EXIT -eq 0 ]; then
+            echo "✅ Extraction and API upload completed successfully"
+            echo "🗜️  Compacting output.csv..."
+            mvn exec:java -Dexec.mainClass=com.brainium.core.CsvCompactor || echo "⚠️  output.csv compaction failed, continuing"
             echo "🧹 Cleaning up status and data files..."
-            rm -f status.json swedish_extractor_status.json recent_swedish_players_data.json recent_swedish_players_profiles.jsonl recent_swedish_players_ids.txt recent_swedish_players_urls.txt team.txt
-            echo "🗑️  Deleted: status.json, swedish_extractor_status.json, recent_swedish_players_data.json, recent_swedish_players_profiles.jsonl, recent_swedish_players_ids.txt, recent_swedish_players_urls.txt, team.txt"
+            rm -f status.json swedish_extractor_status.json swedish_extractor_status.log recent_swedish_players_data.json recent_swedish_players_profiles.jsonl recent_swedish_players_profiles.enc.jsonl recent_swedish_players_profiles.enc.jsonl.dict recent_swedish_players_ids.txt recent_swedish_players_urls.txt team.txt
             OVERALL_STATUS="SUCCESS"
-        else
-            echo "❌ API upload failed (exit code: $UPLOAD_EXIT)"
+        elif [ $EXTRACT_EXIT -eq 2 ]; then
+            echo "❌ API upload had failures (exit code: $EXTRACT_EXIT)"
             OVERALL_STATUS="PARTIAL_FAILURE"
+        else
+            echo "❌ Extraction failed (exit code: $EXTRACT_EXIT)"
+            OVERALL_STATUS="FAILURE"
         fi
     else
-        echo "❌ Extraction failed (exit code: $EXTRACT_EXIT)"
-        echo "⏭️  Skipping API upload"
-        OVERALL_STATUS="FAILURE"
+        # Step 1: Run SwedishPlayersExtractor
+        echo ""
+        echo "📥 [1/2] Running SwedishPlayersExtractor..."
+        mvn exec:java -Dexec.mainClass=com.brainium.core.SwedishPlayersExtractor
+        EXTRACT_EXIT=$?
+    
+        if [ $EXTRACT_EXIT -eq 0 ]; then
+            echo "✅ Extraction completed successfully"
+            # Drop duplicate rows from output.csv (keeps the newest row per player)
+            echo "🗜️  Compacting output.csv..."
+            mvn exec:java -Dexec.mainClass=com.brainium.core.CsvCompactor || echo "⚠️  output.csv compaction failed, continuing"
+            # Wait 10 seconds before uploading
+            echo "⏳ Waiting 10 seconds before API upload..."
+            sleep 10
+            # Step 2: Run ApiUploader
+            echo ""
+            echo "📤 [2/2] Running ApiUploader..."
+            mvn exec:java -Dexec.mainClass=com.brainium.core.ApiUploader
+            UPLOAD_EXIT=$?
+        
+            if [ $UPLOAD_EXIT -eq 0 ]; then
+                echo "✅ API upload completed successfully"
+                # Delete status and data files after successful upload
+                echo "🧹 Cleaning up status and data files..."
+                rm -f status.json swedish_extractor_status.json swedish_extractor_status.log recent_swedish_players_data.json recent_swedish_players_profiles.jsonl recent_swedish_players_profiles.enc.jsonl recent_swedish_players_profiles.enc.jsonl.dict recent_swedish_players_ids.txt recent_swedish_players_urls.txt team.txt
+                echo "🗑️  Deleted: status.json, swedish_extractor_status.json (+ .log), recent_swedish_players_data.json, recent_swedish_players_profiles.jsonl (+ .enc.jsonl/.dict), recent_swedish_players_ids.txt, recent_swedish_players_urls.txt, team.txt"
+                OVERALL_STATUS="SUCCESS"
+            else
+                echo "❌ API upload failed (exit code: $UPLOAD_EXIT)"
+                OVERALL_STATUS="PARTIAL_FAILURE"
+            fi
+        else
+            echo "❌ Extraction failed (exit code: $EXTRACT_EXIT)"
+            echo "⏭️  Skipping API upload"
+            OVERALL_STATUS="FAILURE"
+        fi
+    
     fi
     
     echo ""
@@ -5,6 +5,7 @@ import io.github.cdimascio.dotenv.Dotenv;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -12,15 +13,52 @@ import java.util.Set;
 public class App {
     public static void main(String[] args) {
         Dotenv.load();
+        // Graceful stop on SIGTERM / Ctrl+C: finish in-flight profiles, flush checkpoints
+        com.brainium.core.ShutdownCoordinator.install();
+
+        // Resident mode: daily extraction + upload on an internal schedule instead of cron
+        if (args != null && Arrays.asList(args).contains("--daemon")) {
+            try {
+                new com.brainium.core.ScraperDaemon().runForever();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
+
+        // Incremental mode: refresh a bounded slice of output.csv instead of recrawling everything
+        if (args != null && Arrays.asList(args).contains("--refresh")) {
+            com.brainium.core.RefreshPlanner.runNightly();
+            return;
+        }
+
+        // Multi-process mode: --enqueue seeds the shared job queue, then any number of --worker processes drain it
+        if (args != null && Arrays.asList(args).contains("--enqueue")) {
+            try {
+                com.brainium.core.QueueWorker.seed(List.of("f"), 1992, 2026);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            return;
+        }
+        if (args != null && Arrays.asList(args).contains("--worker")) {
+            try {
+                com.brainium.core.QueueWorker.runWorker();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            return;
+        }
+
         System.out.println("Starting APP!");
         
-        // Add shutdown hook to ensure status is visible on interruption
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+        // Runs last at shutdown, after in-flight work has drained and checkpoints are flushed
+        com.brainium.core.ShutdownCoordinator.onShutdown("banner", () -> {
             System.out.println("\n\n╔════════════════════════════════════════╗");
             System.out.println("║   SCRAPER STOPPED                  ║");
             System.out.println("║  Check status.json to resume          ║");
             System.out.println("╚════════════════════════════════════════╝");
-        }));
+        });
 
         try {
             // Load already-scraped IDs (for visibility) to avoid reprocessing duplicates
@@ -41,7 +79,7 @@ public class App {
                 System.out.println("╚════════════════════════════════════════╝");
                 
                 // Then loop through years for each position
-                for (int year = 1992; year <= 2026; year++) {
+                for (int year = 1992; year <= 2026 && !com.brainium.core.ShutdownCoordinator.isStopping(); year++) {
                     System.out.println("\n  ┌─────────────────────────────────────┐");
                     System.out.println("  │  Year: " + year + " | Position: " + position.toUpperCase());
                     System.out.println("  └─────────────────────────────────────┘");
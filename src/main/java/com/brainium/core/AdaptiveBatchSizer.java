@@ -0,0 +1,80 @@
+package com.brainium.core;
+
+/**
+ * Picks upload batch sizes by serialized bytes instead of player count.
+ * The byte target grows by 25% while responses come back within
+ * {@code targetLatencyMs}, and is halved on HTTP 413, 5xx, transport errors or
+ * responses slower than twice the target latency (AIMD-style, so one slow
+ * response backs off quickly but growth is gradual).
+ */
+public class AdaptiveBatchSizer {
+
+    private final long minBytes;
+    private final long maxBytes;
+    private final int maxPlayers;
+    private final long targetLatencyMs;
+    private long targetBytes;
+
+    public AdaptiveBatchSizer(long initialBytes, long minBytes, long maxBytes, int maxPlayers, long targetLatencyMs) {
+        this.minBytes = minBytes;
+        this.maxBytes = maxBytes;
+        this.maxPlayers = maxPlayers;
+        this.targetLatencyMs = targetLatencyMs;
+        this.targetBytes = Math.max(minBytes, Math.min(maxBytes, initialBytes));
+    }
+
+    /**
+     * Sizer configured from UPLOAD_TARGET_BYTES, UPLOAD_MIN_BYTES, UPLOAD_MAX_BYTES
+     * and UPLOAD_TARGET_LATENCY_MS.
+     */
+    public static AdaptiveBatchSizer fromEnv(int maxPlayers) {
+        return new AdaptiveBatchSizer(
+                env("UPLOAD_TARGET_BYTES", 256 * 1024),
+                env("UPLOAD_MIN_BYTES", 16 * 1024),
+                env("UPLOAD_MAX_BYTES", 4 * 1024 * 1024),
+                maxPlayers,
+                env("UPLOAD_TARGET_LATENCY_MS", 3000));
+    }
+
+    private static long env(String name, long defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? Long.parseLong(value) : defaultValue;
+    }
+
+    /**
+     * Whether a player of {@code recordBytes} still fits in a batch that already
+     * holds {@code players} players and {@code batchBytes} bytes. An empty batch
+     * always accepts one player, however large.
+     */
+    public synchronized boolean fits(int players, long batchBytes, long recordBytes) {
+        if (players == 0) return true;
+        return players < maxPlayers && batchBytes + recordBytes + 1 <= targetBytes;
+    }
+
+    /**
+     * Feeds back the outcome of a batch of {@code bodyBytes} bytes.
+     */
+    public synchronized void onResponse(int statusCode, long latencyMs, long bodyBytes) {
+        if (statusCode == 413) {
+            // the server told us the size limit: stay below what was just rejected
+            targetBytes = Math.max(minBytes, Math.min(targetBytes, bodyBytes) / 2);
+        } else if (statusCode >= 500 || latencyMs > 2 * targetLatencyMs) {
+            targetBytes = Math.max(minBytes, targetBytes / 2);
+        } else if (statusCode >= 200 && statusCode < 300 && latencyMs < targetLatencyMs
+                && bodyBytes >= targetBytes / 2) {
+            // only grow when the batch actually used most of the target
+            targetBytes = Math.min(maxBytes, targetBytes + targetBytes / 4);
+        }
+    }
+
+    /**
+     * Timeouts and connection errors count as overload.
+     */
+    public synchronized void onError() {
+        targetBytes = Math.max(minBytes, targetBytes / 2);
+    }
+
+    public synchronized long targetBytes() {
+        return targetBytes;
+    }
+}
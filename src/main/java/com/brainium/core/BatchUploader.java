@@ -0,0 +1,461 @@
+package com.brainium.core;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Sends upload batches with {@link HttpClient#sendAsync}, keeping at most
+ * {@code maxInFlight} requests open at once. Responses are accounted for in
+ * batch order regardless of the order they arrive in, so the log and the
+ * failure list read the same as a sequential upload.
+ */
+public class BatchUploader {
+
+    private final HttpClient httpClient;
+    private final String url;
+    private final int maxInFlight;
+    private final Semaphore permits;
+    private final AdaptiveBatchSizer sizer;
+    private final UploadLedger ledger;
+    // gzip request bodies (Content-Encoding: gzip) above HttpCompression.MIN_BYTES
+    private boolean gzip = HttpCompression.GZIP_UPLOADS;
+
+    // Submitted batches, oldest first
+    private final ArrayDeque<InFlight> inFlight = new ArrayDeque<>();
+    // Body buffers are reused once their batch has been accounted for
+    private final ArrayDeque<BatchBuffer> freeBuffers = new ArrayDeque<>();
+    // Players from batches rejected as too large (413), to be sent again in smaller batches
+    private final ArrayDeque<UploadRecord> requeued = new ArrayDeque<>();
+    // Halves of batches rejected with 422, resent as-is to isolate the invalid players
+    private final ArrayDeque<InFlight> splits = new ArrayDeque<>();
+
+    // Results
+    public int successfulBatches = 0;
+    public int failedBatches = 0;
+    // Players the upload schema rejected before sending (see UploadSchema)
+    public int rejectedPlayers = 0;
+    public final List<String> failedBatchNumbers = new ArrayList<>();
+    public final List<String> failedPlayerUrls = new ArrayList<>();
+
+    private static final class InFlight {
+        // "3" for the third batch, "3.1" / "3.2" for its halves after a 422
+        final String label;
+        final List<UploadRecord> batch;
+        BatchBuffer body;
+        int bodyBytes;
+        long startTime;
+        // Set when the response arrives, so latency excludes time spent waiting to be accounted
+        volatile long finishedAt;
+        CompletableFuture<HttpResponse<String>> response;
+
+        InFlight(String label, List<UploadRecord> batch) {
+            this.label = label;
+            this.batch = batch;
+        }
+    }
+
+    public BatchUploader(HttpClient httpClient, String url, int maxInFlight) {
+        this(httpClient, url, maxInFlight, null);
+    }
+
+    /**
+     * @param sizer receives the status and latency of every batch; may be null
+     */
+    public BatchUploader(HttpClient httpClient, String url, int maxInFlight, AdaptiveBatchSizer sizer) {
+        this(httpClient, url, maxInFlight, sizer, null);
+    }
+
+    /**
+     * @param ledger records the players of every accepted batch; may be null
+     */
+    public BatchUploader(HttpClient httpClient, String url, int maxInFlight, AdaptiveBatchSizer sizer,
+            UploadLedger ledger) {
+        this.httpClient = httpClient;
+        this.url = url;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.permits = new Semaphore(this.maxInFlight);
+        this.sizer = sizer;
+        this.ledger = ledger;
+    }
+
+    /**
+     * Returns the next player that has to be sent again, or null.
+     */
+    public UploadRecord pollRequeued() {
+        return requeued.poll();
+    }
+
+    /**
+     * Sends the next pending half of a bisected 422 batch.
+     *
+     * @return false if there was none
+     */
+    public boolean resubmitNextSplit() throws InterruptedException {
+        InFlight split = splits.poll();
+        if (split == null) {
+            return false;
+        }
+        System.out.println("\n🔁 BATCH " + split.label + " (" + split.batch.size() + " players, bisecting 422)");
+        send(split);
+        return true;
+    }
+
+    public boolean hasInFlight() {
+        return !inFlight.isEmpty();
+    }
+
+    void setGzip(boolean gzip) {
+        this.gzip = gzip;
+    }
+
+    /**
+     * Records a player that failed local schema validation as failed without
+     * sending it, so it lands in the failed URLs file like a server-side 422.
+     */
+    public void rejectLocally(UploadRecord player) {
+        rejectedPlayers++;
+        System.err.println("   🚫 Player " + (player.id != null ? player.id : player.url) + " rejected locally: "
+                + String.join("; ", player.problems));
+        if (player.url != null && !player.url.isEmpty()) {
+            failedPlayerUrls.add(player.url);
+        }
+    }
+
+    public int maxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Serializes and sends one batch, blocking while {@code maxInFlight} requests
+     * are already open. Batches that completed in the meantime are accounted for.
+     *
+     * @param batchNum zero-based batch number, used in logs
+     */
+    public void submit(int batchNum, List<UploadRecord> batch) throws InterruptedException {
+        // Debug: Show first player's data structure for batch 2
+        if (batchNum == 1) {
+            String first = new String(batch.get(0).json, StandardCharsets.UTF_8);
+            System.out.println("\n   📋 BATCH 2 SAMPLE - First player data:");
+            System.out.println("   " + first.substring(0, Math.min(300, first.length())));
+            System.out.println();
+        }
+        send(new InFlight(String.valueOf(batchNum + 1), new ArrayList<>(batch)));
+    }
+
+    private void send(InFlight sent) throws InterruptedException {
+        // Don't let finished-but-unaccounted batches pile up behind a slow one
+        while (inFlight.size() >= 2 * maxInFlight) {
+            account(inFlight.poll());
+        }
+        permits.acquire();
+
+        BatchBuffer body = freeBuffers.isEmpty() ? new BatchBuffer() : freeBuffers.poll();
+        body.writeBatch(sent.batch);
+        sent.body = body;
+        sent.bodyBytes = body.size();
+        // Create HTTP POST request (publishes the buffer in place unless it is gzipped)
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .header("Accept-Encoding", "gzip")
+                .timeout(Duration.ofMinutes(2));
+        int wireBytes = HttpCompression.post(builder, body.array(), 0, body.size(), gzip);
+        HttpRequest request = builder.build();
+        System.out.println("   Batch size: " + body.size() + " bytes (" + (body.size() / 1024) + " KB)"
+                + (wireBytes < body.size() ? ", gzipped to " + (wireBytes / 1024) + " KB" : ""));
+
+        System.out.println("   🚀 Sending batch " + sent.label);
+        List<String> batchPlayerIds = extractPlayerIds(sent.batch);
+        if (!batchPlayerIds.isEmpty()) {
+            System.out.println("   👤 Player IDs: " + String.join(", ", batchPlayerIds));
+        }
+
+        sent.startTime = System.currentTimeMillis();
+        sent.response = httpClient
+                .sendAsync(request, HttpCompression.ofDecodedString())
+                .whenComplete((r, e) -> {
+                    sent.finishedAt = System.currentTimeMillis();
+                    permits.release();
+                });
+        inFlight.add(sent);
+
+        // Account for any batches at the head that are already done
+        while (!inFlight.isEmpty() && inFlight.peek().response.isDone()) {
+            account(inFlight.poll());
+        }
+    }
+
+    /**
+     * Waits for every submitted batch and accounts for it.
+     */
+    public void awaitAll() {
+        while (!inFlight.isEmpty()) {
+            account(inFlight.poll());
+        }
+    }
+
+    /**
+     * Logs the outcome of one batch and records failures (waits for it if needed).
+     */
+    private void account(InFlight sent) {
+        String label = sent.label;
+        try {
+            HttpResponse<String> response = sent.response.join();
+
+            long duration = sent.finishedAt - sent.startTime;
+            int statusCode = response.statusCode();
+            String responseBody = response.body();
+
+            System.out.println("   📥 Batch " + label + " response: " + statusCode + " (" + duration + "ms)");
+            if (sizer != null) {
+                sizer.onResponse(statusCode, duration, sent.bodyBytes);
+            }
+
+            if (statusCode >= 200 && statusCode < 300) {
+                System.out.println("   ✅ Batch " + label + " SUCCESS");
+                successfulBatches++;
+                if (ledger != null) {
+                    try {
+                        ledger.markAccepted(sent.batch);
+                    } catch (Exception e) {
+                        System.err.println("   ⚠️  Could not record batch " + label + " in upload ledger: " + e.getMessage());
+                    }
+                }
+
+                // Show response if available
+                if (responseBody != null && !responseBody.trim().isEmpty() && responseBody.length() < 500) {
+                    System.out.println("   Response: " + responseBody);
+                }
+            } else if (statusCode == 413 && sizer != null && sent.batch.size() > 1) {
+                System.err.println("   ⚠️  Batch " + label + " too large (HTTP 413, " + (sent.bodyBytes / 1024)
+                        + " KB) - resending its " + sent.batch.size() + " players in batches up to "
+                        + (sizer.targetBytes() / 1024) + " KB");
+                requeued.addAll(sent.batch);
+            } else if (statusCode == 422) {
+                System.err.println("   ❌ Batch " + label + " VALIDATION ERROR (HTTP 422)");
+
+                // Parse response to identify which players failed
+                Set<Integer> invalid = parseValidationErrorIndices(responseBody, sent.batch.size());
+                if (!invalid.isEmpty()) {
+                    List<UploadRecord> rest = new ArrayList<>();
+                    for (int i = 0; i < sent.batch.size(); i++) {
+                        UploadRecord player = sent.batch.get(i);
+                        if (!invalid.contains(i)) {
+                            rest.add(player);
+                        } else if (player.url != null && !player.url.isEmpty()) {
+                            failedPlayerUrls.add(player.url);
+                        }
+                    }
+                    System.err.println("   📝 Identified " + invalid.size() + " invalid players");
+                    System.err.println("   ⚠️  Invalid players logged to Updated_failed_players.txt");
+                    failedBatches++;
+                    failedBatchNumbers.add(label);
+                    // The whole request was rejected, so the valid players still need sending
+                    if (!rest.isEmpty()) {
+                        splits.add(new InFlight(label + ".r", rest));
+                    }
+                } else if (sent.batch.size() > 1) {
+                    // Can't tell which players are invalid: bisect and resend both halves
+                    int mid = sent.batch.size() / 2;
+                    splits.add(new InFlight(label + ".1", new ArrayList<>(sent.batch.subList(0, mid))));
+                    splits.add(new InFlight(label + ".2", new ArrayList<>(sent.batch.subList(mid, sent.batch.size()))));
+                    System.err.println("   🔀 Splitting batch " + label + " into halves of " + mid + " and "
+                            + (sent.batch.size() - mid) + " players to isolate invalid records");
+                } else {
+                    // Single player left: it is the invalid one
+                    failedPlayerUrls.addAll(extractPlayerUrls(sent.batch));
+                    System.err.println("   ⚠️  Invalid player logged to Updated_failed_players.txt");
+                    failedBatches++;
+                    failedBatchNumbers.add(label);
+                }
+            } else {
+                System.err.println("   ❌ Batch " + label + " FAILED (HTTP " + statusCode + ")");
+                failedBatches++;
+                failedBatchNumbers.add(label);
+                failedPlayerUrls.addAll(extractPlayerUrls(sent.batch));
+
+                // Show error response
+                if (responseBody != null && !responseBody.trim().isEmpty()) {
+                    System.err.println("   Error response: " + responseBody);
+                }
+
+                // Provide helpful error messages based on status code
+                switch (statusCode) {
+                    case 400:
+                        System.err.println("   💡 Bad Request - Check JSON format");
+                        break;
+                    case 401:
+                        System.err.println("   💡 Unauthorized - API authentication required");
+                        break;
+                    case 403:
+                        System.err.println("   💡 Forbidden - Check API permissions");
+                        break;
+                    case 404:
+                        System.err.println("   💡 Not Found - Check API endpoint URL");
+                        break;
+                    case 500:
+                        System.err.println("   💡 Server Error - Server-side issue");
+                        break;
+                }
+            }
+
+        } catch (Exception e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            System.err.println("   ❌ Batch " + label + " ERROR: " + cause.getMessage());
+            if (sizer != null) {
+                sizer.onError();
+            }
+            failedBatches++;
+            failedBatchNumbers.add(label);
+            failedPlayerUrls.addAll(extractPlayerUrls(sent.batch));
+        } finally {
+            freeBuffers.add(sent.body);
+            sent.body = null;
+        }
+    }
+
+    static List<String> extractPlayerIds(List<UploadRecord> batch) {
+        List<String> ids = new ArrayList<>();
+        for (UploadRecord player : batch) {
+            if (player.id != null && !player.id.isEmpty()) {
+                ids.add(player.id);
+            }
+        }
+        return ids;
+    }
+
+    static List<String> extractPlayerUrls(List<UploadRecord> batch) {
+        List<String> urls = new ArrayList<>();
+        for (UploadRecord player : batch) {
+            if (player.url != null && !player.url.isEmpty()) {
+                urls.add(player.url);
+            }
+        }
+        return urls;
+    }
+
+    /**
+     * Parse API validation error response and extract profile_link URLs of players that failed.
+     * The API returns validation errors for specific players (e.g., user_id doesn't exist).
+     */
+    static List<String> parseValidationErrorResponse(String responseBody, List<UploadRecord> batch) {
+        List<String> failedUrls = new ArrayList<>();
+        if (batch == null) {
+            return failedUrls;
+        }
+        for (int index : parseValidationErrorIndices(responseBody, batch.size())) {
+            String url = batch.get(index).url;
+            if (url != null && !url.isEmpty()) {
+                failedUrls.add(url);
+            }
+        }
+        return failedUrls;
+    }
+
+    /**
+     * Returns the batch indices named in a 422 response, e.g. the key
+     * "recentlyUpdatedPlayers.0.user_id" means the player at index 0 failed.
+     */
+    static Set<Integer> parseValidationErrorIndices(String responseBody, int batchSize) {
+        Set<Integer> indices = new TreeSet<>();
+
+        if (responseBody == null || responseBody.trim().isEmpty()) {
+            return indices;
+        }
+
+        try {
+            // Try to parse error response to identify which player records failed
+            JsonElement responseElement = JsonParser.parseString(responseBody);
+            if (responseElement.isJsonObject()) {
+                JsonObject responseObj = responseElement.getAsJsonObject();
+
+                // Check for errors field that might contain player-specific errors
+                if (responseObj.has("errors")) {
+                    JsonElement errorsElement = responseObj.get("errors");
+                    if (errorsElement.isJsonObject()) {
+                        JsonObject errors = errorsElement.getAsJsonObject();
+
+                        for (String key : errors.keySet()) {
+                            if (key.startsWith("recentlyUpdatedPlayers.")) {
+                                try {
+                                    String[] parts = key.split("\\.");
+                                    if (parts.length > 1) {
+                                        int playerIndex = Integer.parseInt(parts[1]);
+                                        if (playerIndex >= 0 && playerIndex < batchSize) {
+                                            indices.add(playerIndex);
+                                        }
+                                    }
+                                } catch (NumberFormatException e) {
+                                    // Skip if index is not a number
+                                }
+                            }
+                        }
+                    }
+                }
+
+                // If we couldn't parse specific errors, check for message field
+                if (indices.isEmpty() && responseObj.has("message")) {
+                    String message = responseObj.get("message").getAsString();
+                    System.err.println("   API Error message: " + message);
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("   ⚠️  Could not parse validation error response: " + e.getMessage());
+        }
+
+        return indices;
+    }
+
+    /**
+     * Growable byte buffer that batch bodies are written into and published
+     * from without copying. Not touched again until its batch is accounted for.
+     */
+    static final class BatchBuffer extends ByteArrayOutputStream {
+        private static final byte[] PREFIX = ("{\"" + PlayerDataReader.PLAYERS_KEY + "\":[")
+                .getBytes(StandardCharsets.UTF_8);
+        private static final byte[] SUFFIX = "]}".getBytes(StandardCharsets.UTF_8);
+        // Bytes of a body with no players
+        static final int OVERHEAD = PREFIX.length + SUFFIX.length;
+
+        BatchBuffer() {
+            super(64 * 1024);
+        }
+
+        /**
+         * Replaces the contents with {"recentlyUpdatedPlayers":[p1,p2,...]}.
+         */
+        void writeBatch(List<UploadRecord> batch) {
+            reset();
+            writeBytes(PREFIX);
+            for (int i = 0; i < batch.size(); i++) {
+                if (i > 0) write(',');
+                writeBytes(batch.get(i).json);
+            }
+            writeBytes(SUFFIX);
+        }
+
+        /**
+         * The backing array; valid bytes are [0, size()).
+         */
+        byte[] array() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.brainium.core;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Append-only checkpoint log paired with a snapshot file.
+ * Each progress event is appended as one small JSON line, so the cost of a
+ * checkpoint doesn't grow with the amount of state. Every {@code compactEvery}
+ * records the owner writes a full snapshot, which is swapped in with an atomic
+ * rename before the log is truncated.
+ *
+ * Records must be idempotent to replay (set-add or last-write-wins): after a
+ * crash between the snapshot rename and the truncate, the old records are
+ * replayed on top of a snapshot that already contains them.
+ *
+ * Several processes may share one log. {@link #compact(Merge)} then rebuilds
+ * the snapshot from what is on disk under the log's file lock, so records
+ * other processes appended since this one loaded are kept.
+ */
+public class CheckpointLog implements Closeable {
+
+    private final Path snapshotFile;
+    private final Path logFile;
+    private final int compactEvery;
+
+    private FileChannel channel;
+    private int recordsSinceSnapshot = 0;
+
+    /**
+     * Rebuilds the owner's state during {@link CheckpointLog#compact(Merge)}.
+     */
+    public interface Merge {
+        /**
+         * Replaces the owner's state with the snapshot on disk (null if none)
+         * plus every record logged after it, and returns the new snapshot.
+         */
+        String merge(String snapshotJson, List<JsonObject> records) throws IOException;
+    }
+
+    public CheckpointLog(Path snapshotFile, Path logFile, int compactEvery) {
+        this.snapshotFile = snapshotFile;
+        this.logFile = logFile;
+        this.compactEvery = compactEvery;
+    }
+
+    /**
+     * Returns the snapshot contents, or null if there is none.
+     */
+    public String readSnapshot() throws IOException {
+        return Files.exists(snapshotFile) ? Files.readString(snapshotFile, StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * Reads all records appended since the last snapshot.
+     * A torn (partially written) trailing line from a crash is ignored.
+     */
+    public synchronized List<JsonObject> readRecords() throws IOException {
+        List<JsonObject> records = readLog();
+        recordsSinceSnapshot = records.size();
+        return records;
+    }
+
+    private List<JsonObject> readLog() throws IOException {
+        List<JsonObject> records = new ArrayList<>();
+        if (!Files.exists(logFile)) return records;
+        try (BufferedReader r = Files.newBufferedReader(logFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                if (line.isBlank()) continue;
+                try {
+                    records.add(JsonParser.parseString(line).getAsJsonObject());
+                } catch (Exception e) {
+                    System.err.println("⚠️  Ignoring unreadable checkpoint record in " + logFile + ": " + e.getMessage());
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Appends one record. Safe to call from multiple threads; the append is also
+     * done under a file lock so separate processes don't interleave lines.
+     *
+     * @return true when enough records have accumulated that the owner should
+     *         call {@link #compact(String)}
+     */
+    public synchronized boolean append(JsonObject record) throws IOException {
+        return appendAll(List.of(record));
+    }
+
+    /**
+     * Appends a batch of records with a single write.
+     *
+     * @return true when the owner should call {@link #compact(String)}
+     */
+    public synchronized boolean appendAll(List<JsonObject> records) throws IOException {
+        if (records.isEmpty()) {
+            return recordsSinceSnapshot >= compactEvery;
+        }
+        if (channel == null) {
+            channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        StringBuilder sb = new StringBuilder();
+        for (JsonObject record : records) {
+            sb.append(record).append('\n');
+        }
+        ByteBuffer buf = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+        try (FileLock lock = channel.lock()) {
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+        }
+        recordsSinceSnapshot += records.size();
+        return recordsSinceSnapshot >= compactEvery;
+    }
+
+    /**
+     * Replaces the snapshot with {@code snapshotJson} (temp file + atomic rename)
+     * and truncates the log. Only for a log this process has to itself; shared
+     * logs use {@link #compact(Merge)}.
+     */
+    public synchronized void compact(String snapshotJson) throws IOException {
+        writeSnapshot(snapshotJson);
+        if (channel != null) {
+            try (FileLock lock = channel.lock()) {
+                channel.truncate(0);
+            }
+        } else {
+            Files.deleteIfExists(logFile);
+        }
+        recordsSinceSnapshot = 0;
+    }
+
+    /**
+     * Compacts a log other processes may be appending to: while holding the
+     * log's file lock (so nobody appends or compacts meanwhile), re-reads the
+     * snapshot and the log, lets {@code merge} rebuild the owner's state from
+     * them, then writes the snapshot it returns and truncates the log.
+     */
+    public synchronized void compact(Merge merge) throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        try (FileLock lock = channel.lock()) {
+            writeSnapshot(merge.merge(readSnapshot(), readLog()));
+            channel.truncate(0);
+        }
+        recordsSinceSnapshot = 0;
+    }
+
+    private void writeSnapshot(String snapshotJson) throws IOException {
+        Path tmp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        Files.writeString(tmp, snapshotJson, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        moveAtomically(tmp, snapshotFile);
+    }
+
+    /**
+     * Renames {@code source} over {@code target}, atomically where the file system allows it.
+     */
+    static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Number of records appended (or replayed) since the last snapshot.
+     */
+    public synchronized int pendingRecords() {
+        return recordsSinceSnapshot;
+    }
+
+    /**
+     * Deletes both the snapshot and the log.
+     */
+    public synchronized void delete() throws IOException {
+        close();
+        Files.deleteIfExists(logFile);
+        Files.deleteIfExists(snapshotFile);
+        recordsSinceSnapshot = 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package com.brainium.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+/**
+ * Compacts output.csv: keeps only the newest row per player id (first column),
+ * sorted by id, using an external merge sort so memory stays bounded no matter
+ * how large the file grows.
+ *
+ * Rows are read as logical CSV records (quoted fields may span lines), sorted
+ * in runs of at most {@code CSV_COMPACT_RUN_BYTES} and spilled to disk, then
+ * k-way merged. A later row in the file wins over an earlier one for the same
+ * id. The result replaces the original file with an atomic rename. The
+ * output.csv lock ({@link OutputCsv}) is held from the read to the rename,
+ * so writers wait instead of appending rows the rename would drop.
+ *
+ * A record without as many fields as the header (for example a stray quote
+ * that swallowed the lines after it) aborts the compaction and leaves the
+ * file as it is, rather than dropping the rows folded into it.
+ *
+ * Usage: mvn exec:java -Dexec.mainClass=com.brainium.core.CsvCompactor [-Dexec.args="file.csv"]
+ */
+public class CsvCompactor {
+
+    private static final long RUN_BYTES = System.getenv("CSV_COMPACT_RUN_BYTES") != null
+            ? Long.parseLong(System.getenv("CSV_COMPACT_RUN_BYTES"))
+            : 32L * 1024 * 1024;
+    // Max runs merged at once; more runs are merged in several passes
+    private static final int MAX_FAN_IN = 64;
+    // A quoted field spanning more lines (or chars) than this is taken to be a stray quote
+    static final int MAX_RECORD_LINES = System.getenv("CSV_MAX_RECORD_LINES") != null
+            ? Integer.parseInt(System.getenv("CSV_MAX_RECORD_LINES"))
+            : 64;
+    private static final int MAX_RECORD_CHARS = 1 << 20;
+
+    /**
+     * One CSV record with its sort key and position in the input (higher = newer).
+     */
+    static final class Row {
+        final String key;
+        final long seq;
+        final String text;
+
+        Row(String key, long seq, String text) {
+            this.key = key;
+            this.seq = seq;
+            this.text = text;
+        }
+    }
+
+    // By id, then newest first so the first row seen for an id is the one kept
+    static final Comparator<Row> ORDER = (a, b) -> {
+        int c = compareKeys(a.key, b.key);
+        return c != 0 ? c : Long.compare(b.seq, a.seq);
+    };
+
+    public static class Result {
+        public long rowsRead;
+        public long rowsWritten;
+        public int runs;
+    }
+
+    public static void main(String[] args) {
+        Path file = Path.of(args != null && args.length > 0 ? args[0] : "output.csv");
+        if (!compactFile(file)) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Compacts {@code file} with the configured run size and logs the outcome.
+     *
+     * @return false if compaction failed (the file is left unchanged)
+     */
+    public static boolean compactFile(Path file) {
+        if (!Files.exists(file)) {
+            System.out.println("[INFO] " + file + " not found, nothing to compact.");
+            return true;
+        }
+        try {
+            long before = Files.size(file);
+            Result r = compact(file, RUN_BYTES);
+            System.out.println("[OK] Compacted " + file + ": " + r.rowsRead + " rows -> " + r.rowsWritten
+                    + " unique players (" + r.runs + " sorted runs, " + before / 1024 + " KB -> "
+                    + Files.size(file) / 1024 + " KB)");
+            return true;
+        } catch (Exception e) {
+            System.err.println("❌ Failed to compact " + file + ": " + e.getMessage());
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Deduplicates {@code file} in place. The header record is kept as-is.
+     */
+    public static Result compact(Path file, long runBytes) throws IOException {
+        return OutputCsv.withLock(file, () -> compactLocked(file, runBytes));
+    }
+
+    private static Result compactLocked(Path file, long runBytes) throws IOException {
+        Result result = new Result();
+        Path dir = file.toAbsolutePath().getParent();
+        Path workDir = Files.createTempDirectory(dir, "csv-compact-");
+        try {
+            String header;
+            List<Path> runs = new ArrayList<>();
+            try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                header = readRecord(in);
+                int fields = header != null ? fieldCount(header) : -1;
+                List<Row> buffer = new ArrayList<>();
+                long bufferBytes = 0;
+                String record;
+                while ((record = readRecord(in)) != null) {
+                    if (record.isBlank()) continue;
+                    if (fields >= 0 && fieldCount(record) != fields) {
+                        throw new IOException("record " + (result.rowsRead + 1) + " (id " + keyOf(record) + ") has "
+                                + fieldCount(record) + " fields, the header has " + fields + "; " + file
+                                + " left unchanged");
+                    }
+                    buffer.add(new Row(keyOf(record), result.rowsRead++, record));
+                    bufferBytes += 2L * record.length() + 64;
+                    if (bufferBytes >= runBytes) {
+                        runs.add(spill(buffer, workDir, runs.size()));
+                        buffer.clear();
+                        bufferBytes = 0;
+                    }
+                }
+                if (!buffer.isEmpty() || runs.isEmpty()) {
+                    runs.add(spill(buffer, workDir, runs.size()));
+                }
+            }
+            result.runs = runs.size();
+
+            // Reduce to at most MAX_FAN_IN runs before the final merge
+            int pass = 0;
+            while (runs.size() > MAX_FAN_IN) {
+                List<Path> merged = new ArrayList<>();
+                for (int i = 0; i < runs.size(); i += MAX_FAN_IN) {
+                    List<Path> group = runs.subList(i, Math.min(i + MAX_FAN_IN, runs.size()));
+                    Path out = workDir.resolve("pass" + pass + "-" + merged.size() + ".run");
+                    try (DataOutputStream w = runWriter(out)) {
+                        merge(group, row -> writeRow(w, row));
+                    }
+                    for (Path p : group) Files.deleteIfExists(p);
+                    merged.add(out);
+                }
+                runs = merged;
+                pass++;
+            }
+
+            Path tmp = dir.resolve(file.getFileName() + ".compact.tmp");
+            try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                if (header != null) {
+                    out.write(header);
+                    out.write('\n');
+                }
+                merge(runs, row -> {
+                    out.write(row.text);
+                    out.write('\n');
+                    result.rowsWritten++;
+                });
+            }
+            CheckpointLog.moveAtomically(tmp, file);
+        } finally {
+            deleteRecursively(workDir);
+        }
+        return result;
+    }
+
+    /**
+     * Reads one logical CSV record: lines are joined while a quoted field is
+     * still open. A quote still open after MAX_RECORD_LINES lines (or at the end
+     * of the input) is a stray one: the first line is returned alone and the
+     * lines after it are read as records of their own. Returns null at end of input.
+     */
+    static String readRecord(BufferedReader in) throws IOException {
+        String first = in.readLine();
+        if (first == null) return null;
+        int quotes = countQuotes(first);
+        if (quotes % 2 == 0) return first;
+        in.mark(2 * MAX_RECORD_CHARS);
+        StringBuilder sb = new StringBuilder(first);
+        int lines = 1;
+        long chars = 0;
+        while (quotes % 2 != 0) {
+            String line = in.readLine();
+            if (line == null || ++lines > MAX_RECORD_LINES || (chars += line.length() + 2) > MAX_RECORD_CHARS) {
+                in.reset();
+                System.err.println("⚠️  Unbalanced quote in CSV record " + keyOf(first) + ", reading it as one line");
+                return first;
+            }
+            sb.append('\n').append(line);
+            quotes += countQuotes(line);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Number of fields in a record; commas inside quotes don't count.
+     */
+    static int fieldCount(String record) {
+        int fields = 1;
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                fields++;
+            }
+        }
+        return fields;
+    }
+
+    private static int countQuotes(String s) {
+        int n = 0;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) == '"') n++;
+        }
+        return n;
+    }
+
+    /**
+     * Returns the unquoted first field of a record.
+     */
+    static String keyOf(String record) {
+        if (record.startsWith("\"")) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 1; i < record.length(); i++) {
+                char c = record.charAt(i);
+                if (c == '"') {
+                    if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                        sb.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                } else {
+                    sb.append(c);
+                }
+            }
+            return sb.toString().trim();
+        }
+        int comma = record.indexOf(',');
+        return (comma >= 0 ? record.substring(0, comma) : record).trim();
+    }
+
+    /**
+     * Returns field {@code index} (0-based) of a CSV record with quotes removed,
+     * or "" if the record has fewer fields.
+     */
+    static String fieldOf(String record, int index) {
+        StringBuilder sb = new StringBuilder();
+        int field = 0;
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    if (field == index) sb.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else if (field == index) {
+                    sb.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                if (field == index) break;
+                field++;
+            } else if (field == index) {
+                sb.append(c);
+            }
+        }
+        return field == index ? sb.toString().trim() : "";
+    }
+
+    /**
+     * Orders numeric ids numerically (by length, then digits) and anything else lexically.
+     */
+    static int compareKeys(String a, String b) {
+        boolean an = isDigits(a);
+        boolean bn = isDigits(b);
+        if (an && bn && a.length() != b.length()) {
+            return Integer.compare(a.length(), b.length());
+        }
+        if (an != bn) {
+            return an ? -1 : 1;
+        }
+        return a.compareTo(b);
+    }
+
+    private static boolean isDigits(String s) {
+        if (s.isEmpty()) return false;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) < '0' || s.charAt(i) > '9') return false;
+        }
+        return true;
+    }
+
+    private static Path spill(List<Row> buffer, Path workDir, int index) throws IOException {
+        buffer.sort(ORDER);
+        Path run = workDir.resolve("run-" + index + ".run");
+        try (DataOutputStream w = runWriter(run)) {
+            String last = null;
+            for (Row row : buffer) {
+                // only the newest row per id needs to leave this run
+                if (!row.key.isEmpty() && row.key.equals(last)) continue;
+                writeRow(w, row);
+                last = row.key;
+            }
+        }
+        return run;
+    }
+
+    private interface RowSink {
+        void accept(Row row) throws IOException;
+    }
+
+    /**
+     * k-way merge of sorted runs, emitting the newest row for each id.
+     * Rows without an id are never merged away.
+     */
+    private static void merge(List<Path> runs, RowSink sink) throws IOException {
+        PriorityQueue<RunReader> heap = new PriorityQueue<>((a, b) -> ORDER.compare(a.head, b.head));
+        List<RunReader> readers = new ArrayList<>();
+        try {
+            for (Path run : runs) {
+                RunReader r = new RunReader(run);
+                readers.add(r);
+                if (r.advance()) heap.add(r);
+            }
+            String last = null;
+            while (!heap.isEmpty()) {
+                RunReader r = heap.poll();
+                Row row = r.head;
+                if (row.key.isEmpty() || !row.key.equals(last)) {
+                    sink.accept(row);
+                    last = row.key;
+                }
+                if (r.advance()) heap.add(r);
+            }
+        } finally {
+            for (RunReader r : readers) r.close();
+        }
+    }
+
+    private static DataOutputStream runWriter(Path path) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16));
+    }
+
+    // Run record: key (UTF), seq (long), text length (int) + UTF-8 bytes
+    private static void writeRow(DataOutputStream w, Row row) throws IOException {
+        byte[] text = row.text.getBytes(StandardCharsets.UTF_8);
+        w.writeUTF(row.key);
+        w.writeLong(row.seq);
+        w.writeInt(text.length);
+        w.write(text);
+    }
+
+    private static final class RunReader implements Closeable {
+        private final DataInputStream in;
+        Row head;
+
+        RunReader(Path path) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16));
+        }
+
+        boolean advance() throws IOException {
+            try {
+                String key = in.readUTF();
+                long seq = in.readLong();
+                byte[] text = new byte[in.readInt()];
+                in.readFully(text);
+                head = new Row(key, seq, new String(text, StandardCharsets.UTF_8));
+                return true;
+            } catch (EOFException e) {
+                head = null;
+                return false;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    private static void deleteRecursively(Path dir) {
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(p -> {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (IOException ignored) {
+                }
+            });
+            Files.deleteIfExists(dir);
+        } catch (IOException e) {
+            System.err.println("⚠️  Failed to clean up " + dir + ": " + e.getMessage());
+        }
+    }
+}
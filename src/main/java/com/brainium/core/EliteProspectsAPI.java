@@ -7,10 +7,17 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
 public class EliteProspectsAPI {
+    // Shared client: keeps connections (and TLS sessions) alive between calls
+    private static final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+
     /**
      * Logs in to EliteProspects and returns the tokens needed for authenticated requests.
      * @param email The login email/username
@@ -31,8 +38,7 @@ public class EliteProspectsAPI {
                 .header("accept", "application/json, text/plain, */*")
                 .POST(HttpRequest.BodyPublishers.ofString(credentials.toString()))
                 .build();
-        HttpClient client = HttpClient.newHttpClient();
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
         if (response.statusCode() != 200) {
             throw new IOException("Login failed: HTTP " + response.statusCode() + " - " + response.body());
         }
@@ -74,16 +80,30 @@ public class EliteProspectsAPI {
         JsonObject vars = new JsonObject();
         vars.addProperty("player", playerId);
         payload.add("variables", vars);
-        HttpRequest request = HttpRequest.newBuilder()
+        HttpRequest.Builder request = HttpRequest.newBuilder()
                 .uri(URI.create(API_URL))
                 .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(payload.toString()))
-                .build();
-        HttpClient client = HttpClient.newHttpClient();
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                .header("Accept-Encoding", "gzip");
+        byte[] body = payload.toString().getBytes(StandardCharsets.UTF_8);
+        HttpCompression.post(request, body, 0, body.length, HttpCompression.GZIP_GRAPHQL,
+                HttpCompression.GRAPHQL_MIN_BYTES);
+        HttpResponse<String> response = httpClient.send(request.build(), HttpCompression.ofDecodedString());
         return response.body();
     }
 
+    /**
+     * The Position cell: the player's stats as JSON, or just {@code position} if
+     * the stats can't be fetched.
+     */
+    public static String fetchPositionJson(String playerId, String position) {
+        try {
+            return parsePlayerStats(position, fetchStatsFromAPI(playerId));
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+            return position != null ? position : "";
+        }
+    }
+
     // ---------- PARSER ----------
     public static String parsePlayerStats(String position, String jsonResponse) {
         Gson gson = new GsonBuilder().serializeNulls().setPrettyPrinting().create();
@@ -0,0 +1,243 @@
+package com.brainium.core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Durable job queue shared by several worker processes on one host, kept as
+ * one small JSON file per job in a directory tree:
+ * <pre>
+ *   pending/  jobs waiting to be claimed
+ *   leased/   jobs a worker is running; the file's mtime is its heartbeat
+ *   done/     empty markers of finished jobs (so they are not queued again)
+ *   failed/   jobs that failed too often
+ * </pre>
+ * A worker claims a job by renaming it from pending/ to leased/; the rename is
+ * atomic, so exactly one worker wins. Leases whose heartbeat is older than the
+ * lease timeout (a crashed or killed worker) are moved back to pending/ by
+ * {@link #reapExpired(long)}. Delivery is at-least-once: a job whose lease
+ * expired while its worker was merely slow can run twice.
+ */
+public class FileJobQueue {
+
+    private static final String SUFFIX = ".json";
+
+    private final Path pending;
+    private final Path leased;
+    private final Path done;
+    private final Path failed;
+    private final Path tmp;
+
+    /**
+     * A claimed job. {@code attempts} counts earlier failed runs.
+     */
+    public static final class Lease {
+        public final String name;
+        public final JsonObject job;
+        final Path path;
+
+        Lease(String name, JsonObject job, Path path) {
+            this.name = name;
+            this.job = job;
+            this.path = path;
+        }
+
+        public int attempts() {
+            return job.has("attempts") ? job.get("attempts").getAsInt() : 0;
+        }
+    }
+
+    private FileJobQueue(Path root) {
+        this.pending = root.resolve("pending");
+        this.leased = root.resolve("leased");
+        this.done = root.resolve("done");
+        this.failed = root.resolve("failed");
+        this.tmp = root.resolve("tmp");
+    }
+
+    public static FileJobQueue open(Path root) throws IOException {
+        FileJobQueue queue = new FileJobQueue(root);
+        for (Path dir : new Path[] { queue.pending, queue.leased, queue.done, queue.failed, queue.tmp }) {
+            Files.createDirectories(dir);
+        }
+        return queue;
+    }
+
+    /**
+     * Adds a job unless one with this name is already pending, leased, done or
+     * failed. {@code name} must be a valid file name and unique per unit of work.
+     *
+     * @return false if the job was already known
+     */
+    public boolean enqueue(String name, JsonObject job) throws IOException {
+        String file = name + SUFFIX;
+        if (Files.exists(pending.resolve(file)) || Files.exists(leased.resolve(file))
+                || Files.exists(done.resolve(file)) || Files.exists(failed.resolve(file))) {
+            return false;
+        }
+        // Written under tmp/ first so a claimer never sees a half-written job
+        Path staged = Files.createTempFile(tmp, name, SUFFIX);
+        Files.writeString(staged, job.toString(), StandardCharsets.UTF_8);
+        CheckpointLog.moveAtomically(staged, pending.resolve(file));
+        return true;
+    }
+
+    /**
+     * Claims a pending job, preferring player jobs over page jobs so queued
+     * work is finished before the crawl fans out further.
+     *
+     * @return the lease, or null if nothing is pending
+     */
+    public Lease claim() throws IOException {
+        List<String> candidates = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(pending, "*" + SUFFIX)) {
+            for (Path f : files) {
+                candidates.add(f.getFileName().toString());
+                if (candidates.size() >= 256) break;
+            }
+        }
+        candidates.sort((a, b) -> Boolean.compare(!a.startsWith("player-"), !b.startsWith("player-")));
+        for (String file : candidates) {
+            Path target = leased.resolve(file);
+            try {
+                Files.move(pending.resolve(file), target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (NoSuchFileException e) {
+                continue; // another worker won
+            }
+            try {
+                // a rename keeps the old mtime, so a peer's reapExpired may already have moved it back
+                Files.setLastModifiedTime(target, FileTime.fromMillis(System.currentTimeMillis()));
+            } catch (NoSuchFileException e) {
+                continue;
+            }
+            String name = file.substring(0, file.length() - SUFFIX.length());
+            if (Files.exists(done.resolve(file))) {
+                // finished by a worker whose lease had been reaped; drop the duplicate
+                Files.deleteIfExists(target);
+                continue;
+            }
+            JsonObject job;
+            try {
+                job = JsonParser.parseString(Files.readString(target, StandardCharsets.UTF_8)).getAsJsonObject();
+            } catch (NoSuchFileException e) {
+                continue; // reaped in the meantime
+            } catch (Exception e) {
+                System.err.println("⚠️  Unreadable job " + file + ", moving it to failed/: " + e.getMessage());
+                moveQuietly(target, failed.resolve(file));
+                continue;
+            }
+            return new Lease(name, job, target);
+        }
+        return null;
+    }
+
+    /**
+     * Renews the lease. Returns false if the lease was lost (reaped).
+     */
+    public boolean heartbeat(Lease lease) {
+        try {
+            Files.setLastModifiedTime(lease.path, FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public void complete(Lease lease) throws IOException {
+        try {
+            Files.createFile(done.resolve(lease.name + SUFFIX));
+        } catch (FileAlreadyExistsException ignored) {
+            // a duplicate run finished first
+        }
+        Files.deleteIfExists(lease.path);
+    }
+
+    /**
+     * Hands an unfinished job back to pending/ without counting an attempt
+     * (the worker is shutting down).
+     */
+    public void release(Lease lease) throws IOException {
+        try {
+            Files.move(lease.path, pending.resolve(lease.name + SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            // already reaped or completed
+        }
+    }
+
+    /**
+     * Returns the job to pending/ with its attempt count raised, or moves it to
+     * failed/ once it has run {@code maxAttempts} times.
+     *
+     * @return true if the job was given up on
+     */
+    public boolean fail(Lease lease, int maxAttempts) throws IOException {
+        String file = lease.name + SUFFIX;
+        JsonObject job = lease.job.deepCopy();
+        job.addProperty("attempts", lease.attempts() + 1);
+        Path staged = Files.createTempFile(tmp, lease.name, SUFFIX);
+        Files.writeString(staged, job.toString(), StandardCharsets.UTF_8);
+        boolean giveUp = lease.attempts() + 1 >= maxAttempts;
+        CheckpointLog.moveAtomically(staged, (giveUp ? failed : pending).resolve(file));
+        Files.deleteIfExists(lease.path);
+        return giveUp;
+    }
+
+    /**
+     * Moves leases without a heartbeat for {@code leaseTimeoutMs} back to pending/.
+     *
+     * @return number of leases returned
+     */
+    public int reapExpired(long leaseTimeoutMs) throws IOException {
+        long cutoff = System.currentTimeMillis() - leaseTimeoutMs;
+        int reaped = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(leased, "*" + SUFFIX)) {
+            for (Path f : files) {
+                try {
+                    if (Files.getLastModifiedTime(f).toMillis() < cutoff) {
+                        Files.move(f, pending.resolve(f.getFileName()), StandardCopyOption.ATOMIC_MOVE);
+                        reaped++;
+                    }
+                } catch (NoSuchFileException e) {
+                    // completed or reaped by someone else meanwhile
+                }
+            }
+        }
+        return reaped;
+    }
+
+    public int pendingCount() throws IOException {
+        return count(pending);
+    }
+
+    public int leasedCount() throws IOException {
+        return count(leased);
+    }
+
+    private static int count(Path dir) throws IOException {
+        int n = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            for (Path ignored : files) n++;
+        }
+        return n;
+    }
+
+    private static void moveQuietly(Path from, Path to) {
+        try {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("⚠️  Could not move " + from + ": " + e.getMessage());
+        }
+    }
+}
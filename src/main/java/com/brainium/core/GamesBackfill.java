@@ -0,0 +1,434 @@
+package com.brainium.core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.LongPredicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.jsoup.HttpStatusException;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+
+import com.brainium.data.LongObjectHashMap;
+
+/**
+ * Date-range mode for the games listing (SwedishPlayersExtractor --from/--to).
+ * Instead of walking "Next" from page 1, the pages holding the window are found
+ * by binary search over the page numbers (the listing is sorted by date, in
+ * either direction), then crawled on BACKFILL_THREADS threads (default 4).
+ * Teams are deduplicated across the whole window, keeping the last day each
+ * one played; their rosters are collected on the same pool.
+ */
+public class GamesBackfill {
+
+    static final int THREADS = System.getenv("BACKFILL_THREADS") != null
+            ? Integer.parseInt(System.getenv("BACKFILL_THREADS"))
+            : 4;
+    // Upper bound when probing for the last page of the listing
+    static final int MAX_PAGES = System.getenv("BACKFILL_MAX_PAGES") != null
+            ? Integer.parseInt(System.getenv("BACKFILL_MAX_PAGES"))
+            : 2000;
+
+    private static final String BASE = "https://www.eliteprospects.com";
+    private static final Pattern PAGE_PARAM = Pattern.compile("([?&]page=)\\d+");
+    private static final Pattern GAME_ID = Pattern.compile("/game/(\\d+)");
+    // Pages to step from a calendar-index hint before falling back to the binary search
+    private static final int HINT_RADIUS = 3;
+
+    /**
+     * Loads a listing page (1-based).
+     */
+    interface PageSource {
+        Document fetch(int page) throws IOException;
+    }
+
+    /**
+     * Teams that played in the window, in listing order, with the last day each
+     * played, plus what was seen of each day (for {@link GamesCalendarIndex}).
+     */
+    public static final class Window {
+        public final Map<String, LocalDate> teams = new LinkedHashMap<>();
+        public final Map<LocalDate, Day> days = new TreeMap<>();
+        public int firstPage;
+        public int lastPage;
+        // listing order, null if the listing was empty
+        public Boolean newestFirst;
+    }
+
+    /**
+     * One day of the listing: its pages, games and teams, and a fingerprint of
+     * its rows (teams and results) to tell whether anything changed.
+     */
+    public static final class Day {
+        public final Set<Integer> pages = new TreeSet<>();
+        public final List<String> gameIds = new ArrayList<>();
+        public final Set<String> teams = new LinkedHashSet<>();
+        private final StringBuilder rows = new StringBuilder();
+
+        public long fingerprint() {
+            return UploadLedger.hash(rows.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private final PageSource source;
+    private final int threads;
+    // printf template for page N, null when pages come from elsewhere (tests)
+    final String template;
+    private final Map<Integer, Document> pages = new ConcurrentHashMap<>();
+
+    GamesBackfill(PageSource source, int threads, String template) {
+        this.source = source;
+        this.threads = threads;
+        this.template = template;
+    }
+
+    /**
+     * Backfill over a games listing URL; later pages are addressed like its "Next" link.
+     */
+    public static GamesBackfill forListing(String gamesUrl) throws IOException {
+        Document first = SwedishPlayersExtractor.fetchDocument(gamesUrl);
+        GamesBackfill backfill = forTemplate(pageTemplate(first, gamesUrl));
+        backfill.pages.put(1, first);
+        return backfill;
+    }
+
+    /**
+     * Backfill over pages addressed by a template saved from an earlier run.
+     */
+    static GamesBackfill forTemplate(String template) {
+        return new GamesBackfill(page -> SwedishPlayersExtractor.fetchDocument(String.format(template, page)),
+                THREADS, template);
+    }
+
+    /**
+     * Printf template for page N, taken from the "Next" link (?page=2 → ?page=%d).
+     */
+    static String pageTemplate(Document first, String gamesUrl) {
+        for (Element a : first.select(".table-pagination a")) {
+            String t = a.text();
+            if (t != null && t.toLowerCase().contains("next")) {
+                String href = a.absUrl("href");
+                if (href.isEmpty()) href = BASE + a.attr("href");
+                Matcher m = PAGE_PARAM.matcher(href);
+                if (m.find()) {
+                    return escape(href.substring(0, m.start())) + m.group(1) + "%d" + escape(href.substring(m.end()));
+                }
+            }
+        }
+        return escape(gamesUrl) + (gamesUrl.contains("?") ? "&" : "?") + "page=%d";
+    }
+
+    private static String escape(String s) {
+        return s.replace("%", "%%");
+    }
+
+    Document page(int page) throws IOException {
+        Document doc = pages.get(page);
+        if (doc == null) {
+            doc = source.fetch(page);
+            pages.put(page, doc);
+        }
+        return doc;
+    }
+
+    /**
+     * Finds the teams that played between {@code from} and {@code to} (inclusive).
+     */
+    public Window discover(LocalDate from, LocalDate to) throws IOException, InterruptedException {
+        return discover(from, to, 0, null);
+    }
+
+    /**
+     * Like {@link #discover(LocalDate, LocalDate)}, but first looks for the window
+     * within HINT_RADIUS pages of {@code hintPage} (e.g. where the calendar index
+     * last saw it) and searches for its end from there; the search over the whole
+     * listing only runs if that fails.
+     *
+     * @param newestFirst listing order if known from an earlier run, else null
+     */
+    public Window discover(LocalDate from, LocalDate to, int hintPage, Boolean newestFirst)
+            throws IOException, InterruptedException {
+        Window window = new Window();
+        int start = 0;
+        int end = 0;
+        if (hintPage > 0 && newestFirst != null) {
+            long loKey = key(newestFirst ? to : from, newestFirst);
+            long hiKey = key(newestFirst ? from : to, newestFirst);
+            start = locate(hintPage, loKey, newestFirst);
+            if (start > 0) {
+                end = pageAfter(start, hiKey, newestFirst);
+                System.out.println("  🗓️  " + from + " … " + to + " is on pages " + start + "-" + end
+                        + " (near page " + hintPage + " from the calendar index)");
+            }
+        }
+        if (start == 0) {
+            int last = lastPage();
+            if (last == 0) return window;
+
+            // Compare by a key that grows with the page number, whatever the listing order
+            newestFirst = newestFirst(last);
+            long loKey = key(newestFirst ? to : from, newestFirst);
+            long hiKey = key(newestFirst ? from : to, newestFirst);
+            start = lowestPage(last, maxKey -> maxKey >= loKey, newestFirst);
+            if (start == 0) {
+                System.out.println("  🗓️  No games between " + from + " and " + to + " in the listing");
+                window.newestFirst = newestFirst;
+                return window;
+            }
+            // the last day's games may continue at the top of the first page past the window
+            end = lowestPage(last, maxKey -> maxKey > hiKey, newestFirst);
+            if (end == 0) end = last;
+            System.out.println("  🗓️  " + from + " … " + to + " is on pages " + start + "-" + end + " of " + last);
+        }
+        window.newestFirst = newestFirst;
+        window.firstPage = start;
+        window.lastPage = end;
+
+        fetchAll(start, end);
+        LocalDate current = null; // rows before the first header continue a day from the previous page
+        for (int p = start; p <= end; p++) {
+            Element table = page(p).selectFirst("table.table");
+            if (table == null) continue;
+            for (Element tr : table.select("tbody > tr")) {
+                if (isDateHeader(tr)) {
+                    current = headerDate(tr);
+                    if (inWindow(current, from, to)) {
+                        window.days.computeIfAbsent(current, d -> new Day()).pages.add(p);
+                    }
+                    continue;
+                }
+                if (!inWindow(current, from, to)) continue;
+                List<Element> teamTds = tr.select("td.team");
+                Element result = tr.selectFirst("td.result");
+                if (teamTds.size() < 2 || result == null) continue;
+                Day day = window.days.computeIfAbsent(current, d -> new Day());
+                day.pages.add(p);
+                Element gameLink = tr.selectFirst("a[href*=/game/]");
+                if (gameLink != null) {
+                    Matcher m = GAME_ID.matcher(gameLink.attr("href"));
+                    day.gameIds.add(m.find() ? m.group(1) : gameLink.attr("href"));
+                }
+                for (Element td : teamTds.subList(0, 2)) {
+                    Element link = td.selectFirst("a:nth-of-type(2)");
+                    if (link == null) continue;
+                    String href = link.attr("href");
+                    String team = href.startsWith("http") ? href : BASE + href;
+                    window.teams.merge(team, current, (a, b) -> a.isAfter(b) ? a : b);
+                    day.teams.add(team);
+                    day.rows.append(team).append(' ');
+                }
+                day.rows.append(result.text()).append('\n');
+            }
+        }
+        System.out.println("  🗓️  " + window.teams.size() + " unique teams played in the window");
+        return window;
+    }
+
+    /**
+     * Swedish players per team (team → id → slug), fetched on the backfill pool.
+     */
+    public static Map<String, LongObjectHashMap<String>> collectRosters(Collection<String> teams)
+            throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            Map<String, Future<LongObjectHashMap<String>>> futures = new LinkedHashMap<>();
+            for (String team : teams) {
+                futures.put(team, pool.submit(() -> {
+                    LongObjectHashMap<String> roster = new LongObjectHashMap<>();
+                    if (!ShutdownCoordinator.isStopping()) {
+                        SwedishPlayersExtractor.collectFromTeam(team, roster, false);
+                    }
+                    return roster;
+                }));
+            }
+            Map<String, LongObjectHashMap<String>> rosters = new LinkedHashMap<>();
+            for (Map.Entry<String, Future<LongObjectHashMap<String>>> e : futures.entrySet()) {
+                try {
+                    rosters.put(e.getKey(), e.getValue().get());
+                } catch (ExecutionException ex) {
+                    System.err.println("Error visiting team page " + e.getKey() + " : " + ex.getCause().getMessage());
+                }
+            }
+            return rosters;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void fetchAll(int start, int end) throws IOException, InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Document>> futures = new ArrayList<>();
+            for (int p = start; p <= end; p++) {
+                int page = p;
+                futures.add(pool.submit(() -> page(page)));
+            }
+            for (Future<Document> f : futures) {
+                try {
+                    f.get();
+                } catch (ExecutionException e) {
+                    throw new IOException("Failed to load games page: " + e.getCause().getMessage(), e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Last page with games: exponential probe, then binary search; 0 if page 1 is empty.
+     */
+    int lastPage() throws IOException {
+        if (!hasGames(1)) return 0;
+        int lo = 1;
+        int hi = 2;
+        while (hi <= MAX_PAGES && hasGames(hi)) {
+            lo = hi;
+            hi *= 2;
+        }
+        hi = Math.min(hi, MAX_PAGES + 1);
+        // hasGames(lo), !hasGames(hi)
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            if (hasGames(mid)) lo = mid;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static boolean inWindow(LocalDate day, LocalDate from, LocalDate to) {
+        return day != null && !day.isBefore(from) && !day.isAfter(to);
+    }
+
+    /**
+     * First page of the window (the lowest page reaching {@code loKey}) if it is
+     * within HINT_RADIUS pages of {@code hint}, else 0.
+     */
+    private int locate(int hint, long loKey, boolean newestFirst) throws IOException {
+        int p = hint;
+        for (int step = 0; step <= HINT_RADIUS && p >= 1; step++) {
+            if (!hasGames(p) && p > 1) {
+                p--; // the listing got shorter
+                continue;
+            }
+            boolean reaches = maxKey(p, newestFirst) >= loKey;
+            boolean before = p > 1 && maxKey(p - 1, newestFirst) >= loKey;
+            if (reaches && !before) return p;
+            p += reaches ? -1 : 1;
+        }
+        return 0;
+    }
+
+    /**
+     * First page past the window from its first page {@code start} (its top may
+     * still hold the last day), or the last page with games: galloping probe,
+     * then binary search, so a long window costs a few fetches, not a walk.
+     */
+    private int pageAfter(int start, long hiKey, boolean newestFirst) throws IOException {
+        int lo = start; // not past
+        int hi = start;
+        int step = 1;
+        while (hi <= MAX_PAGES && hasGames(hi) && maxKey(hi, newestFirst) <= hiKey) {
+            lo = hi;
+            hi = start + step;
+            step *= 2;
+        }
+        if (hi == start) return start; // the window ends on its first page
+        hi = Math.min(hi, MAX_PAGES + 1);
+        // lowest page in (lo, hi] that is past the window or beyond the listing
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            if (hasGames(mid) && maxKey(mid, newestFirst) <= hiKey) lo = mid;
+            else hi = mid;
+        }
+        return hi <= MAX_PAGES && hasGames(hi) ? hi : lo;
+    }
+
+    private boolean hasGames(int page) throws IOException {
+        try {
+            return !headerDates(page(page)).isEmpty();
+        } catch (HttpStatusException e) {
+            if (e.getStatusCode() == 404) return false; // probed past the end
+            throw e;
+        }
+    }
+
+    private boolean newestFirst(int last) throws IOException {
+        List<LocalDate> first = headerDates(page(1));
+        List<LocalDate> tail = headerDates(page(last));
+        return first.get(0).isAfter(tail.get(tail.size() - 1));
+    }
+
+    private static long key(LocalDate day, boolean newestFirst) {
+        return newestFirst ? -day.toEpochDay() : day.toEpochDay();
+    }
+
+    /**
+     * Largest key on a page; a page without headers continues the previous page.
+     */
+    private long maxKey(int page, boolean newestFirst) throws IOException {
+        for (int p = page; p >= 1; p--) {
+            List<LocalDate> dates = headerDates(page(p));
+            if (!dates.isEmpty()) {
+                long max = Long.MIN_VALUE;
+                for (LocalDate d : dates) max = Math.max(max, key(d, newestFirst));
+                return max;
+            }
+        }
+        return Long.MIN_VALUE;
+    }
+
+    /**
+     * Lowest page whose largest key passes {@code test} (monotone in the page), or 0.
+     */
+    private int lowestPage(int last, LongPredicate test, boolean newestFirst) throws IOException {
+        int lo = 1;
+        int hi = last + 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (test.test(maxKey(mid, newestFirst))) hi = mid;
+            else lo = mid + 1;
+        }
+        return lo <= last ? lo : 0;
+    }
+
+    private static boolean isDateHeader(Element tr) {
+        return tr.hasClass("title") || tr.selectFirst("td[data-date-type]") != null || tr.hasAttr("data-date");
+    }
+
+    private static List<LocalDate> headerDates(Document doc) {
+        List<LocalDate> dates = new ArrayList<>();
+        for (Element tr : doc.select("tr.title:has(td[data-date])")) {
+            LocalDate d = headerDate(tr);
+            if (d != null) dates.add(d);
+        }
+        return dates;
+    }
+
+    private static LocalDate headerDate(Element tr) {
+        Element td = tr.selectFirst("td[data-date]");
+        if (td == null) return null;
+        try {
+            return OffsetDateTime.parse(td.attr("data-date")).toLocalDate();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
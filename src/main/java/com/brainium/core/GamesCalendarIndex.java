@@ -0,0 +1,211 @@
+package com.brainium.core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Games calendar kept across runs in games_index.json (GAMES_INDEX): for every
+ * day seen in the listing, its page numbers, game ids, teams and a fingerprint
+ * of its rows, plus the listing's page URL template and sort order.
+ * <ul>
+ * <li>Runs start from the pages the index expects for a day instead of walking
+ * from page 1; {@link GamesBackfill} checks a few pages around that hint and
+ * only binary-searches if the listing has moved further.</li>
+ * <li>Days last checked GAMES_INDEX_SETTLE_DAYS (default 3) or more days after
+ * they were played are answered from the index without fetching anything;
+ * newer days are fetched again and their entries replaced.</li>
+ * </ul>
+ * An index built for a different listing URL is discarded.
+ */
+public class GamesCalendarIndex {
+
+    public static final String FILE = System.getenv("GAMES_INDEX") != null
+            ? System.getenv("GAMES_INDEX")
+            : "games_index.json";
+    static final int SETTLE_DAYS = System.getenv("GAMES_INDEX_SETTLE_DAYS") != null
+            ? Integer.parseInt(System.getenv("GAMES_INDEX_SETTLE_DAYS"))
+            : 3;
+
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+    /**
+     * One day of the listing as last seen.
+     */
+    public static final class Day {
+        public List<Integer> pages = new ArrayList<>();
+        public List<String> gameIds = new ArrayList<>();
+        public List<String> teams = new ArrayList<>();
+        public long fingerprint;
+        // ISO date of the last check
+        public String checkedOn;
+    }
+
+    public String listingUrl;
+    public String pageTemplate;
+    public Boolean newestFirst;
+    // ISO date keys sort chronologically
+    public TreeMap<String, Day> days = new TreeMap<>();
+
+    private transient Path file;
+
+    /**
+     * Loads the index for {@code listingUrl}, or starts an empty one.
+     */
+    public static GamesCalendarIndex open(Path file, String listingUrl) {
+        GamesCalendarIndex index = null;
+        if (Files.exists(file)) {
+            try {
+                index = gson.fromJson(Files.readString(file, StandardCharsets.UTF_8), GamesCalendarIndex.class);
+            } catch (Exception e) {
+                System.err.println("⚠️  Failed to read " + file + ", rebuilding the calendar index: " + e.getMessage());
+            }
+        }
+        if (index != null && !listingUrl.equals(index.listingUrl)) {
+            System.out.println("🗓️  Games listing changed (" + index.listingUrl + "), starting a new calendar index");
+            index = null;
+        }
+        if (index == null) {
+            index = new GamesCalendarIndex();
+            index.listingUrl = listingUrl;
+        }
+        if (index.days == null) {
+            index.days = new TreeMap<>();
+        }
+        index.file = file;
+        return index;
+    }
+
+    public Day day(LocalDate date) {
+        return days.get(date.toString());
+    }
+
+    /**
+     * True if the day was last checked long enough after it was played to trust.
+     */
+    boolean isSettled(LocalDate date) {
+        Day day = day(date);
+        return day != null && day.checkedOn != null
+                && !LocalDate.parse(day.checkedOn).isBefore(date.plusDays(SETTLE_DAYS));
+    }
+
+    /**
+     * Where to start looking for {@code date}: its own first page, else the
+     * boundary page of the nearest indexed day; 0 if the index has nothing.
+     */
+    int hintPage(LocalDate date) {
+        Day exact = day(date);
+        if (exact != null && !exact.pages.isEmpty()) {
+            return exact.pages.get(0);
+        }
+        if (newestFirst == null) return 0;
+        Map.Entry<String, Day> before = nearest(date, false);
+        Map.Entry<String, Day> after = nearest(date, true);
+        Map.Entry<String, Day> near = before == null ? after
+                : after == null ? before
+                : date.toEpochDay() - LocalDate.parse(before.getKey()).toEpochDay()
+                        <= LocalDate.parse(after.getKey()).toEpochDay() - date.toEpochDay() ? before : after;
+        if (near == null) return 0;
+        List<Integer> pages = near.getValue().pages;
+        // the listing continues towards the date on the earlier day's far end (or the later day's near end)
+        boolean nearIsEarlier = near == before;
+        return nearIsEarlier != newestFirst ? pages.get(pages.size() - 1) : pages.get(0);
+    }
+
+    private Map.Entry<String, Day> nearest(LocalDate date, boolean later) {
+        Map.Entry<String, Day> e = later ? days.higherEntry(date.toString()) : days.lowerEntry(date.toString());
+        while (e != null && e.getValue().pages.isEmpty()) {
+            e = later ? days.higherEntry(e.getKey()) : days.lowerEntry(e.getKey());
+        }
+        return e;
+    }
+
+    /**
+     * Teams that played from {@code from} to {@code to} (inclusive) with the last
+     * day each played. Unsettled days in the range are fetched and saved first.
+     */
+    public Map<String, LocalDate> teams(LocalDate from, LocalDate to, LocalDate today)
+            throws IOException, InterruptedException {
+        LocalDate first = null;
+        LocalDate last = null;
+        for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+            if (!isSettled(d)) {
+                if (first == null) first = d;
+                last = d;
+            }
+        }
+        if (first == null) {
+            System.out.println("🗓️  " + from + " … " + to + " answered from the calendar index, no pages fetched");
+        } else {
+            GamesBackfill backfill = pageTemplate != null
+                    ? GamesBackfill.forTemplate(pageTemplate)
+                    : GamesBackfill.forListing(listingUrl);
+            refresh(backfill, first, last, today);
+        }
+
+        Map<String, LocalDate> teams = new LinkedHashMap<>();
+        for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+            Day day = day(d);
+            if (day == null) continue;
+            for (String team : day.teams) {
+                teams.merge(team, d, (a, b) -> a.isAfter(b) ? a : b);
+            }
+        }
+        return teams;
+    }
+
+    /**
+     * Fetches the days from {@code from} to {@code to}, replaces their entries and saves.
+     */
+    void refresh(GamesBackfill backfill, LocalDate from, LocalDate to, LocalDate today)
+            throws IOException, InterruptedException {
+        // the window starts (lowest page) at its newest day in a newest-first listing
+        LocalDate first = Boolean.TRUE.equals(newestFirst) ? to : from;
+        GamesBackfill.Window window = backfill.discover(from, to, hintPage(first), newestFirst);
+        if (window.newestFirst == null) {
+            System.out.println("🗓️  Games listing is empty, calendar index not updated");
+            return;
+        }
+        newestFirst = window.newestFirst;
+        if (backfill.template != null) {
+            pageTemplate = backfill.template;
+        }
+        int changed = 0;
+        int unchanged = 0;
+        for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+            GamesBackfill.Day seen = window.days.get(d);
+            Day day = new Day();
+            if (seen != null) {
+                day.pages.addAll(seen.pages);
+                day.gameIds.addAll(seen.gameIds);
+                day.teams.addAll(seen.teams);
+                day.fingerprint = seen.fingerprint();
+            }
+            day.checkedOn = today.toString();
+            Day previous = days.put(d.toString(), day);
+            if (previous != null && previous.fingerprint == day.fingerprint) {
+                unchanged++;
+            } else {
+                changed++;
+            }
+        }
+        System.out.println("🗓️  Calendar index: " + changed + " days new or changed, " + unchanged + " unchanged");
+        save();
+    }
+
+    public void save() throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(tmp, gson.toJson(this), StandardCharsets.UTF_8);
+        CheckpointLog.moveAtomically(tmp, file);
+    }
+}
@@ -0,0 +1,147 @@
+package com.brainium.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okio.Buffer;
+
+/**
+ * Optional gzip for request bodies ({@code Content-Encoding: gzip}) and
+ * transparent gzip decoding of responses; java.net.http does neither on its own.
+ *
+ * Request compression is off unless enabled, since the receiving server has to
+ * support it: UPLOAD_GZIP=true for ApiUploader, GRAPHQL_GZIP=true for the
+ * GraphQL calls (EliteProspectsAPI's stats query, and ProfileScapper's skills
+ * query through {@link #gzipRequests(int)}). Upload bodies smaller than
+ * HTTP_GZIP_MIN_BYTES (default 4 KB) are sent as-is; GraphQL queries are only
+ * a few hundred bytes of repetitive text, so they use GRAPHQL_GZIP_MIN_BYTES
+ * (default 256) instead.
+ */
+public class HttpCompression {
+
+    public static final boolean GZIP_UPLOADS = Boolean.parseBoolean(System.getenv("UPLOAD_GZIP"));
+    public static final boolean GZIP_GRAPHQL = Boolean.parseBoolean(System.getenv("GRAPHQL_GZIP"));
+    public static final int MIN_BYTES = System.getenv("HTTP_GZIP_MIN_BYTES") != null
+            ? Integer.parseInt(System.getenv("HTTP_GZIP_MIN_BYTES"))
+            : 4 * 1024;
+    public static final int GRAPHQL_MIN_BYTES = System.getenv("GRAPHQL_GZIP_MIN_BYTES") != null
+            ? Integer.parseInt(System.getenv("GRAPHQL_GZIP_MIN_BYTES"))
+            : 256;
+
+    // Totals over all compressed request bodies, for the upload summary
+    private static final AtomicLong rawBytes = new AtomicLong();
+    private static final AtomicLong sentBytes = new AtomicLong();
+
+    private HttpCompression() {
+    }
+
+    /**
+     * Sets {@code body[offset, offset+length)} as the POST body, gzip-compressed
+     * with a {@code Content-Encoding} header if {@code gzip} is set and the body
+     * is at least {@link #MIN_BYTES}.
+     *
+     * @return the number of bytes that will go over the wire
+     */
+    public static int post(HttpRequest.Builder request, byte[] body, int offset, int length, boolean gzip) {
+        return post(request, body, offset, length, gzip, MIN_BYTES);
+    }
+
+    /**
+     * Like {@link #post(HttpRequest.Builder, byte[], int, int, boolean)} with its
+     * own size threshold.
+     */
+    public static int post(HttpRequest.Builder request, byte[] body, int offset, int length, boolean gzip,
+            int minBytes) {
+        if (!gzip || length < minBytes) {
+            request.POST(HttpRequest.BodyPublishers.ofByteArray(body, offset, length));
+            return length;
+        }
+        byte[] compressed = gzip(body, offset, length);
+        rawBytes.addAndGet(length);
+        sentBytes.addAndGet(compressed.length);
+        request.header("Content-Encoding", "gzip")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(compressed));
+        return compressed.length;
+    }
+
+    /**
+     * OkHttp interceptor (for the Retrofit client) that gzips request bodies of
+     * at least {@code minBytes}. OkHttp already decodes gzip responses itself.
+     */
+    public static Interceptor gzipRequests(int minBytes) {
+        return chain -> {
+            Request request = chain.request();
+            RequestBody body = request.body();
+            if (body == null || request.header("Content-Encoding") != null || body.contentLength() < minBytes) {
+                return chain.proceed(request);
+            }
+            Buffer buffer = new Buffer();
+            body.writeTo(buffer);
+            byte[] raw = buffer.readByteArray();
+            byte[] compressed = gzip(raw, 0, raw.length);
+            rawBytes.addAndGet(raw.length);
+            sentBytes.addAndGet(compressed.length);
+            return chain.proceed(request.newBuilder()
+                    .header("Content-Encoding", "gzip")
+                    .method(request.method(), RequestBody.create(body.contentType(), compressed))
+                    .build());
+        };
+    }
+
+    static byte[] gzip(byte[] body, int offset, int length) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, length / 4));
+        try (GZIPOutputStream gz = new GZIPOutputStream(out, 8192)) {
+            gz.write(body, offset, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // in-memory, can't happen
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Body handler that decodes a gzip response (when the server chose to send
+     * one) into a UTF-8 string. Pair with an {@code Accept-Encoding: gzip} header.
+     */
+    public static HttpResponse.BodyHandler<String> ofDecodedString() {
+        return info -> {
+            boolean gzipped = info.headers().firstValue("Content-Encoding")
+                    .map(v -> v.trim().equalsIgnoreCase("gzip"))
+                    .orElse(false);
+            return HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(),
+                    bytes -> new String(gzipped ? gunzip(bytes) : bytes, StandardCharsets.UTF_8));
+        };
+    }
+
+    static byte[] gunzip(byte[] bytes) {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Invalid gzip response body", e);
+        }
+    }
+
+    /**
+     * Uncompressed size of all bodies sent compressed so far.
+     */
+    public static long rawBytes() {
+        return rawBytes.get();
+    }
+
+    /**
+     * Compressed size of all bodies sent compressed so far.
+     */
+    public static long sentBytes() {
+        return sentBytes.get();
+    }
+}
@@ -0,0 +1,61 @@
+package com.brainium.core;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The one place output.csv is written. TableScapper, RefreshPlanner, the
+ * extractor and QueueWorker append to it (several processes when workers run
+ * side by side) and {@link CsvCompactor} rewrites it; all of them hold a
+ * FileLock on output.csv.lock next to the file while they do, so a compaction
+ * never loses rows appended after it read the file. Rows are fetched and
+ * formatted before taking the lock: only the append itself is done under it.
+ */
+public final class OutputCsv {
+
+    public static final String HEADER = "User ID,Username,Name,Date of Birth,Age,Place of Birth,Nation,Youth Team,latest_team_position,latest_team,seasone,Position,Height,Weight,Shoots,Contract,Player Type,Cap Hit,Cap Hit Image,NHL Rights,Drafted,Highlights,Agency,Relation,Image URL,Skills,Status\n";
+
+    // FileLock is per process; threads of this process queue up on this first
+    private static final Object jvmLock = new Object();
+
+    private OutputCsv() {
+    }
+
+    interface LockedAction<T> {
+        T run() throws IOException;
+    }
+
+    /**
+     * Runs {@code action} holding the lock on {@code csv}.
+     */
+    static <T> T withLock(Path csv, LockedAction<T> action) throws IOException {
+        Path lockFile = csv.resolveSibling(csv.getFileName() + ".lock");
+        synchronized (jvmLock) {
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                    FileLock ignored = channel.lock()) {
+                return action.run();
+            }
+        }
+    }
+
+    /**
+     * Appends {@code rows} (complete lines), writing the header first if the file is new.
+     */
+    public static void append(Path csv, String rows) throws IOException {
+        withLock(csv, () -> {
+            if (!Files.exists(csv) || Files.size(csv) == 0) {
+                Files.writeString(csv, HEADER, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                        StandardOpenOption.APPEND);
+            }
+            if (!rows.isEmpty()) {
+                Files.writeString(csv, rows, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,113 @@
+package com.brainium.core;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Streams players out of recent_swedish_players_data.json one at a time.
+ * Accepts both the array format {@code [...]} and the object format
+ * {@code {"recentlyUpdatedPlayers": [...]}}; only one player is parsed at a time.
+ */
+public class PlayerDataReader implements Closeable {
+    public static final String PLAYERS_KEY = "recentlyUpdatedPlayers";
+
+    private final JsonReader in;
+    private String format;
+    private boolean inArray = false;
+    private final List<String> otherKeys = new ArrayList<>();
+
+    private PlayerDataReader(Path file) throws IOException {
+        in = new JsonReader(Files.newBufferedReader(file, StandardCharsets.UTF_8));
+        JsonToken token;
+        try {
+            token = in.peek();
+        } catch (EOFException e) {
+            format = "Empty";
+            return;
+        }
+        if (token == JsonToken.BEGIN_ARRAY) {
+            format = "Array";
+            in.beginArray();
+            inArray = true;
+        } else if (token == JsonToken.BEGIN_OBJECT) {
+            format = "Object";
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (PLAYERS_KEY.equals(name) && in.peek() == JsonToken.BEGIN_ARRAY) {
+                    in.beginArray();
+                    inArray = true;
+                    break;
+                }
+                otherKeys.add(name);
+                in.skipValue();
+            }
+        } else {
+            format = "Invalid";
+        }
+    }
+
+    public static PlayerDataReader open(Path file) throws IOException {
+        return new PlayerDataReader(file);
+    }
+
+    /**
+     * "Array", "Object", "Empty" or "Invalid".
+     */
+    public String format() {
+        return format;
+    }
+
+    /**
+     * False if the file is empty, invalid, or an object without a players array.
+     */
+    public boolean hasPlayers() {
+        return inArray;
+    }
+
+    /**
+     * Keys skipped in the object format (for diagnostics when the players array is missing).
+     */
+    public List<String> otherKeys() {
+        return otherKeys;
+    }
+
+    /**
+     * Returns the next player, or null when the array is exhausted.
+     */
+    public UploadRecord next() throws IOException {
+        if (!inArray || !in.hasNext()) {
+            return null;
+        }
+        return UploadRecord.of(JsonParser.parseReader(in));
+    }
+
+    /**
+     * Counts players without parsing them (one streaming pass).
+     */
+    public static int count(Path file) throws IOException {
+        try (PlayerDataReader reader = open(file)) {
+            int n = 0;
+            while (reader.inArray && reader.in.hasNext()) {
+                reader.in.skipValue();
+                n++;
+            }
+            return n;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,320 @@
+package com.brainium.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jsoup.Jsoup;
+
+import com.brainium.schema.PlayerProfile;
+
+/**
+ * Profile scraping as four stages connected by bounded queues:
+ * <pre>
+ *   submit() → [fetch: page HTML] → [parse: jsoup] → [enrich: GraphQL skills and stats] → [write: one thread]
+ * </pre>
+ * Each stage has its own pool: fetch and enrich wait on the network
+ * (PIPELINE_FETCH_THREADS / PIPELINE_ENRICH_THREADS, default 8 each, the old
+ * per-player pool size, so the request rate to the site stays the same), parse
+ * is CPU-bound (one thread per core) and a single writer owns the output files.
+ * Every queue holds PIPELINE_QUEUE_CAPACITY items (default 64); a full queue
+ * blocks the stage feeding it, so a slow writer slows fetching down instead of
+ * piling pages up in memory. Queue depths, peak depths and time spent blocked
+ * are printed every PIPELINE_REPORT_SECONDS (default 30) and by {@link #close()}.
+ * All network calls happen before the writer, which only formats and appends.
+ *
+ * A player that fails in any stage skips the rest and goes to
+ * {@link Sink#failed(Item, Exception)} on the writer thread.
+ */
+public class ProfilePipeline implements AutoCloseable {
+
+    static final int FETCH_THREADS = env("PIPELINE_FETCH_THREADS", 8);
+    static final int ENRICH_THREADS = env("PIPELINE_ENRICH_THREADS", 8);
+    static final int PARSE_THREADS = env("PIPELINE_PARSE_THREADS", Runtime.getRuntime().availableProcessors());
+    static final int QUEUE_CAPACITY = env("PIPELINE_QUEUE_CAPACITY", 64);
+    private static final int REPORT_SECONDS = env("PIPELINE_REPORT_SECONDS", 30);
+    // Pause after each page fetch per fetch thread (same pacing as the old per-player tasks)
+    private static final long FETCH_PAUSE_MS = env("PIPELINE_FETCH_PAUSE_MS", 500);
+
+    private static int env(String name, int defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    /**
+     * One player moving through the stages. {@code tag} is caller data (e.g. the
+     * search page or a retry entry) handed back to the sink.
+     */
+    public static final class Item {
+        public final long id;
+        public final String slug;
+        public final String url;
+        public final Object tag;
+        String html;
+        public PlayerProfile profile;
+        // Position cell (stats JSON), set by the enrich stage
+        public String positionJson;
+        Exception error;
+
+        public Item(long id, String slug, String url, Object tag) {
+            this.id = id;
+            this.slug = slug;
+            this.url = url;
+            this.tag = tag;
+        }
+    }
+
+    /**
+     * Receives finished players; both methods run on the single writer thread.
+     */
+    public interface Sink {
+        void write(Item item) throws Exception;
+
+        void failed(Item item, Exception error);
+    }
+
+    interface Fetcher {
+        String fetch(Item item) throws Exception;
+    }
+
+    interface Parser {
+        PlayerProfile parse(Item item) throws Exception;
+    }
+
+    interface Enricher {
+        PlayerProfile enrich(Item item) throws Exception;
+    }
+
+    private static final Item END = new Item(-1, null, null, null);
+
+    /**
+     * A stage: input queue, pool and counters.
+     */
+    final class Stage {
+        final String name;
+        final BlockingQueue<Item> in;
+        final int threads;
+        final AtomicInteger alive;
+        final AtomicLong processed = new AtomicLong();
+        final AtomicInteger peakDepth = new AtomicInteger();
+        // Time threads spent waiting to put into this stage's full queue
+        final AtomicLong blockedNanos = new AtomicLong();
+        ExecutorService pool;
+
+        Stage(String name, int threads) {
+            this.name = name;
+            this.threads = threads;
+            this.in = new ArrayBlockingQueue<>(capacity);
+            this.alive = new AtomicInteger(threads);
+        }
+
+        void put(Item item) throws InterruptedException {
+            if (!in.offer(item)) {
+                long t0 = System.nanoTime();
+                in.put(item);
+                blockedNanos.addAndGet(System.nanoTime() - t0);
+            }
+            peakDepth.accumulateAndGet(in.size(), Math::max);
+        }
+
+        String stats() {
+            return name + " " + in.size() + "/" + capacity + " (peak " + peakDepth.get() + ", "
+                    + processed.get() + " done, blocked " + TimeUnit.NANOSECONDS.toMillis(blockedNanos.get()) + "ms)";
+        }
+    }
+
+    private final int capacity;
+    private final Sink sink;
+    private final Fetcher fetcher;
+    private final Parser parser;
+    private final Enricher enricher;
+    private final Stage fetch;
+    private final Stage parse;
+    private final Stage enrich;
+    private final Stage write;
+    private final ScheduledExecutorService reporter;
+    private boolean closed;
+
+    ProfilePipeline(Sink sink, Fetcher fetcher, Parser parser, Enricher enricher, int fetchThreads, int parseThreads,
+            int enrichThreads, int capacity, long reportSeconds) {
+        this.capacity = capacity;
+        this.sink = sink;
+        this.fetcher = fetcher;
+        this.parser = parser;
+        this.enricher = enricher;
+        this.fetch = new Stage("fetch", fetchThreads);
+        this.parse = new Stage("parse", parseThreads);
+        this.enrich = new Stage("enrich", enrichThreads);
+        this.write = new Stage("write", 1);
+        start(fetch, parse, this::fetchStep);
+        start(parse, enrich, this::parseStep);
+        start(enrich, write, this::enrichStep);
+        start(write, null, this::writeStep);
+        if (reportSeconds > 0) {
+            reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "pipeline-metrics");
+                t.setDaemon(true);
+                return t;
+            });
+            reporter.scheduleAtFixedRate(() -> System.out.println("  📊 Pipeline " + stats()),
+                    reportSeconds, reportSeconds, TimeUnit.SECONDS);
+        } else {
+            reporter = null;
+        }
+    }
+
+    /**
+     * Pipeline over EliteProspects: {@link ProfileScapper}'s fetch, parse and
+     * enrich steps (enrich also fetches the stats for {@link Item#positionJson})
+     * with the PIPELINE_* sizes.
+     */
+    public static ProfilePipeline start(Sink sink) {
+        return new ProfilePipeline(sink,
+                item -> {
+                    String html = ProfileScapper.fetchHtml(item.url, String.valueOf(item.id));
+                    Thread.sleep(FETCH_PAUSE_MS); // avoid rate limiting
+                    return html;
+                },
+                item -> ProfileScapper.parseProfile(Jsoup.parse(item.html, item.url), item.url, String.valueOf(item.id)),
+                item -> {
+                    PlayerProfile profile = ProfileScapper.enrich(item.profile, String.valueOf(item.id));
+                    item.positionJson = EliteProspectsAPI.fetchPositionJson(String.valueOf(item.id), profile.position);
+                    return profile;
+                },
+                FETCH_THREADS, PARSE_THREADS, ENRICH_THREADS, QUEUE_CAPACITY, REPORT_SECONDS);
+    }
+
+    private interface Step {
+        // returns false to drop the item (nothing reaches the sink)
+        boolean apply(Item item) throws Exception;
+    }
+
+    private void start(Stage stage, Stage next, Step step) {
+        stage.pool = Executors.newFixedThreadPool(stage.threads, r -> {
+            Thread t = new Thread(r, "pipeline-" + stage.name);
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < stage.threads; i++) {
+            stage.pool.execute(() -> runStage(stage, next, step));
+        }
+        stage.pool.shutdown();
+    }
+
+    private void runStage(Stage stage, Stage next, Step step) {
+        try {
+            while (true) {
+                Item item = stage.in.take();
+                if (item == END) {
+                    stage.in.put(END); // let the other threads of this stage see it too
+                    break;
+                }
+                boolean forward = true;
+                if (item.error == null || next == null) { // the writer also reports failures
+                    try {
+                        forward = step.apply(item);
+                    } catch (Exception e) {
+                        item.error = e;
+                    }
+                }
+                stage.processed.incrementAndGet();
+                if (next != null && forward) {
+                    // failed items skip straight to the writer
+                    (item.error != null ? write : next).put(item);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // the last thread out closes the next stage
+            if (stage.alive.decrementAndGet() == 0 && next != null) {
+                try {
+                    next.put(END);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private boolean fetchStep(Item item) throws Exception {
+        if (ShutdownCoordinator.isStopping()) {
+            return false; // not started: left for the next run
+        }
+        item.html = fetcher.fetch(item);
+        return true;
+    }
+
+    private boolean parseStep(Item item) throws Exception {
+        item.profile = parser.parse(item);
+        item.html = null;
+        if (item.profile == null) {
+            throw new IllegalStateException("no profile data on " + item.url);
+        }
+        return true;
+    }
+
+    private boolean enrichStep(Item item) throws Exception {
+        item.profile = enricher.enrich(item);
+        return true;
+    }
+
+    private boolean writeStep(Item item) {
+        if (item.error != null) {
+            sink.failed(item, item.error);
+            return true;
+        }
+        try {
+            sink.write(item);
+        } catch (Exception e) {
+            sink.failed(item, e);
+        }
+        return true;
+    }
+
+    /**
+     * Queues a player for fetching; blocks while the fetch queue is full.
+     */
+    public void submit(Item item) throws InterruptedException {
+        fetch.put(item);
+    }
+
+    /**
+     * Items waiting in all stage queues.
+     */
+    public int queued() {
+        return fetch.in.size() + parse.in.size() + enrich.in.size() + write.in.size();
+    }
+
+    public String stats() {
+        List<String> parts = new ArrayList<>();
+        for (Stage s : new Stage[] { fetch, parse, enrich, write }) {
+            parts.add(s.stats());
+        }
+        return String.join(" | ", parts);
+    }
+
+    /**
+     * Stops intake and waits until every submitted player has been written (or failed).
+     */
+    @Override
+    public void close() throws InterruptedException {
+        if (closed) return;
+        closed = true;
+        fetch.put(END);
+        for (Stage s : new Stage[] { fetch, parse, enrich, write }) {
+            s.pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        }
+        if (reporter != null) {
+            reporter.shutdownNow();
+        }
+        System.out.println("  📊 Pipeline finished: " + stats());
+    }
+}
@@ -0,0 +1,284 @@
+package com.brainium.core;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.function.Supplier;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+
+import com.brainium.data.LongHashSet;
+import com.brainium.data.LongObjectHashMap;
+import com.brainium.schema.PlayerProfile;
+
+/**
+ * Library entry point: streams scraped profiles to a {@link Flow.Subscriber}
+ * instead of writing output files.
+ * <pre>
+ *   ProfilePublisher.search("f", 2008).subscribe(subscriber);
+ *   ProfilePublisher.gamesOn(LocalDate.now().minusDays(1)).subscribe(subscriber);
+ * </pre>
+ * Every subscriber gets its own crawl on its own thread. The crawl is driven by
+ * demand: a profile is fetched only while the subscriber has requested more
+ * than it has received, and the next search page or team roster is loaded only
+ * when the players found so far are used up. Nothing is fetched ahead, so a
+ * subscriber that requests one at a time crawls one profile at a time.
+ *
+ * Players that fail to scrape are logged and skipped (the stream goes on);
+ * an error loading a search page or the games listing ends the stream with
+ * {@code onError}. Each player is emitted at most once per stream.
+ */
+public class ProfilePublisher implements Flow.Publisher<PlayerProfile> {
+
+    /**
+     * A discovered player.
+     */
+    static final class Ref {
+        final long id;
+        final String slug;
+
+        Ref(long id, String slug) {
+            this.id = id;
+            this.slug = slug;
+        }
+    }
+
+    /**
+     * Finds players lazily: each call returns the next batch (one search page,
+     * one team roster; may be empty), or null when there are no more.
+     */
+    interface Discovery {
+        List<Ref> next() throws Exception;
+    }
+
+    interface Fetcher {
+        PlayerProfile fetch(Ref ref) throws Exception;
+    }
+
+    private final Supplier<Discovery> discovery;
+    private final Fetcher fetcher;
+    private final Executor executor;
+
+    ProfilePublisher(Supplier<Discovery> discovery, Fetcher fetcher, Executor executor) {
+        this.discovery = discovery;
+        this.fetcher = fetcher;
+        this.executor = executor;
+    }
+
+    /**
+     * Swedish players of a position and birth year, page by page from the player search.
+     */
+    public static ProfilePublisher search(String position, int year) {
+        return new ProfilePublisher(() -> {
+            SwedishPlayersExtractor.authenticate();
+            return new SearchDiscovery(position, year);
+        }, ProfilePublisher::fetchProfile, ProfilePublisher::startThread);
+    }
+
+    /**
+     * Swedish players on the rosters of teams that played on {@code date}.
+     */
+    public static ProfilePublisher gamesOn(LocalDate date) {
+        return gamesOn(SwedishPlayersExtractor.DEFAULT_GAMES_URL, date);
+    }
+
+    public static ProfilePublisher gamesOn(String gamesUrl, LocalDate date) {
+        return new ProfilePublisher(() -> {
+            SwedishPlayersExtractor.authenticate();
+            return new GameDayDiscovery(gamesUrl, date);
+        }, ProfilePublisher::fetchProfile, ProfilePublisher::startThread);
+    }
+
+    private static PlayerProfile fetchProfile(Ref ref) throws Exception {
+        return ProfileScapper.getProfile(SwedishPlayersExtractor.playerUrl(ref.id, ref.slug), String.valueOf(ref.id));
+    }
+
+    private static void startThread(Runnable crawl) {
+        Thread t = new Thread(crawl, "profile-publisher");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super PlayerProfile> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        Crawl crawl = new Crawl(subscriber);
+        subscriber.onSubscribe(crawl);
+        executor.execute(crawl);
+    }
+
+    /**
+     * One subscriber's crawl; the subscription side only adjusts demand.
+     */
+    private final class Crawl implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super PlayerProfile> subscriber;
+        // Requested but not yet delivered; guarded by this
+        private long demand;
+        private boolean cancelled;
+        private IllegalArgumentException badRequest;
+
+        Crawl(Flow.Subscriber<? super PlayerProfile> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public synchronized void request(long n) {
+            if (n <= 0) {
+                badRequest = new IllegalArgumentException("request(" + n + "): demand must be positive");
+            } else {
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            }
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void cancel() {
+            cancelled = true;
+            notifyAll();
+        }
+
+        private synchronized boolean cancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Waits until the subscriber wants more; false once the stream should end.
+         */
+        private synchronized boolean awaitDemand() throws InterruptedException {
+            while (demand == 0 && !cancelled && badRequest == null && !ShutdownCoordinator.isStopping()) {
+                wait(1000); // wakes up now and then to notice a shutdown
+            }
+            return !cancelled && badRequest == null && !ShutdownCoordinator.isStopping();
+        }
+
+        @Override
+        public void run() {
+            Deque<Ref> pending = new ArrayDeque<>();
+            LongHashSet seen = new LongHashSet();
+            try {
+                Discovery source = null;
+                while (awaitDemand()) {
+                    if (pending.isEmpty()) {
+                        if (source == null) {
+                            source = discovery.get();
+                        }
+                        List<Ref> batch = source.next();
+                        if (batch == null) {
+                            break;
+                        }
+                        for (Ref ref : batch) {
+                            if (seen.add(ref.id)) pending.add(ref);
+                        }
+                        continue;
+                    }
+                    Ref ref = pending.poll();
+                    PlayerProfile profile;
+                    try {
+                        profile = fetcher.fetch(ref);
+                    } catch (InterruptedException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        System.err.println("Failed to scrape profile " + ref.id + ", skipped: " + e.getMessage());
+                        continue;
+                    }
+                    if (profile == null) continue;
+                    synchronized (this) {
+                        if (cancelled) return;
+                        demand--;
+                    }
+                    subscriber.onNext(profile);
+                }
+                IllegalArgumentException error;
+                synchronized (this) {
+                    if (cancelled) return;
+                    error = badRequest;
+                    cancelled = true;
+                }
+                if (error != null) {
+                    subscriber.onError(error);
+                } else {
+                    subscriber.onComplete();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                if (!cancelled()) {
+                    cancel();
+                    subscriber.onError(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Player search result pages, one page per batch, until a page has no players.
+     */
+    private static final class SearchDiscovery implements Discovery {
+        private final String position;
+        private final int year;
+        private int page = 1;
+        private boolean done;
+
+        SearchDiscovery(String position, int year) {
+            this.position = position;
+            this.year = year;
+        }
+
+        @Override
+        public List<Ref> next() throws Exception {
+            if (done) return null;
+            Document doc = SwedishPlayersExtractor.fetchDocument(TableScapper.searchUrl(position, year, page++));
+            Elements links = doc.select("td.name a");
+            if (links.isEmpty()) {
+                done = true;
+                return null;
+            }
+            List<Ref> refs = new ArrayList<>();
+            for (Element link : links) {
+                String[] parts = link.absUrl("href").split("/");
+                if (parts.length < 2) continue;
+                try {
+                    refs.add(new Ref(Long.parseLong(parts[parts.length - 2]), parts[parts.length - 1]));
+                } catch (NumberFormatException e) {
+                    // not a player link
+                }
+            }
+            return refs;
+        }
+    }
+
+    /**
+     * The day's teams from the games listing, then one team roster per batch.
+     */
+    private static final class GameDayDiscovery implements Discovery {
+        private final String gamesUrl;
+        private final LocalDate date;
+        private Iterator<String> teams;
+
+        GameDayDiscovery(String gamesUrl, LocalDate date) {
+            this.gamesUrl = gamesUrl;
+            this.date = date;
+        }
+
+        @Override
+        public List<Ref> next() throws Exception {
+            if (teams == null) {
+                teams = SwedishPlayersExtractor.collectGameDayTeams(gamesUrl, date, null).iterator();
+            }
+            if (!teams.hasNext()) return null;
+            LongObjectHashMap<String> roster = new LongObjectHashMap<>();
+            SwedishPlayersExtractor.collectFromTeam(teams.next(), roster, false);
+            List<Ref> refs = new ArrayList<>(roster.size());
+            roster.forEach((id, slug) -> refs.add(new Ref(id, slug)));
+            return refs;
+        }
+    }
+}
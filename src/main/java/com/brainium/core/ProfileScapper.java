@@ -11,6 +11,7 @@ import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 
+import com.brainium.data.ProfileStore;
 import com.brainium.schema.PlayerProfile;
 import com.brainium.schema.Skill;
 import com.brainium.schema.SkillResponse;
@@ -18,6 +19,7 @@ import com.brainium.service.ApiService;
 import com.google.gson.Gson;
 
 import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
 import okhttp3.RequestBody;
 import retrofit2.Response;
 import retrofit2.Retrofit;
@@ -40,10 +42,15 @@ public class ProfileScapper {
      */
     private static ApiService getApiService() {
         if (apiService == null) {
-            Retrofit retrofit = new Retrofit.Builder()
+            Retrofit.Builder builder = new Retrofit.Builder()
                     .baseUrl(API_BASE_URL)
-                    .addConverterFactory(GsonConverterFactory.create())
-                    .build();
+                    .addConverterFactory(GsonConverterFactory.create());
+            if (HttpCompression.GZIP_GRAPHQL) {
+                builder.client(new OkHttpClient.Builder()
+                        .addInterceptor(HttpCompression.gzipRequests(HttpCompression.GRAPHQL_MIN_BYTES))
+                        .build());
+            }
+            Retrofit retrofit = builder.build();
             apiService = retrofit.create(ApiService.class);
         }
         return apiService;
@@ -114,6 +121,8 @@ public class ProfileScapper {
 
     /**
      * Scrapes a player profile from the given EliteProspects URL.
+     * Runs the three steps {@link ProfilePipeline} splits into stages: fetch
+     * the page, parse it and add the GraphQL skills.
      *
      * @param url      The URL of the player's EliteProspects page
      * @param playerId Player numeric id used for GraphQL lookups
@@ -121,6 +130,17 @@ public class ProfileScapper {
      * @throws Exception if the page cannot be loaded or parsed
      */
     public static PlayerProfile getProfile(String url, String playerId) throws Exception {
+        Document doc = Jsoup.parse(fetchHtml(url, playerId), url);
+        PlayerProfile profile = parseProfile(doc, url, playerId);
+        if (profile == null) return null;
+        return enrich(profile, playerId);
+    }
+
+    /**
+     * Downloads a profile page (the I/O step), retrying timeouts and HTTP errors
+     * with exponential backoff.
+     */
+    static String fetchHtml(String url, String playerId) throws Exception {
         int maxRetries = 3;
         int retryCount = 0;
         Exception lastException = null;
@@ -130,37 +150,13 @@ public class ProfileScapper {
 
         while (retryCount < maxRetries) {
             try {
-                Document doc = Jsoup.connect(url)
+                return Jsoup.connect(url)
                     .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/117.0.0.0 Safari/537.36")
                     .header("cookie", cookieHeader)
                         .timeout(60000) // Increased to 60 seconds
                         .maxBodySize(0) // No limit on body size
-                        .get();
-
-                // If successful, process and return. Ensure returned PlayerProfile includes userId and userName
-                PlayerProfile profile = extractProfileData(doc, playerId);
-                if (profile == null) return null;
-                // set userId from parameter
-                profile.userId = playerId;
-                // try to extract username/slug from the URL: /player/{id}/{slug}
-                try {
-                    java.util.regex.Pattern p = java.util.regex.Pattern.compile("/player(?:\\.php\\?player=|/)(?:\\d+)/(.*?)(?:$|\\?)");
-                    java.util.regex.Matcher m = p.matcher(url);
-                    if (m.find()) {
-                        String slug = m.group(1);
-                        // strip any trailing fragments or query
-                        int q = slug.indexOf('?');
-                        if (q >= 0) slug = slug.substring(0, q);
-                        profile.userName = slug;
-                    } else {
-                        // fallback: if no slug segment, leave userName null
-                        profile.userName = profile.userName != null ? profile.userName : null;
-                    }
-                } catch (Exception ex) {
-                    // ignore; leave userName as-is
-                }
-
-                return profile;
+                        .execute()
+                        .body();
             } catch (java.net.SocketTimeoutException e) {
                 lastException = e;
                 retryCount++;
@@ -181,14 +177,13 @@ public class ProfileScapper {
                     String altUrl = url + "/" + playerId;
                     try {
                         System.out.println("Attempting fallback URL: " + altUrl);
-                        Document doc = Jsoup.connect(altUrl)
+                        return Jsoup.connect(altUrl)
                             .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/117.0.0.0 Safari/537.36")
                             .header("cookie", cookieHeader)
                                 .timeout(60000)
                                 .maxBodySize(0)
-                                .get();
-                        // If fallback succeeds, extract and return
-                        return extractProfileData(doc, playerId);
+                                .execute()
+                                .body();
                     } catch (Exception exFallback) {
                         System.out.println("Fallback URL failed: " + exFallback.getMessage());
                         // continue with retry handling below
@@ -208,6 +203,42 @@ public class ProfileScapper {
         throw new Exception("Failed to fetch profile for player " + playerId + " after " + maxRetries + " attempts", lastException);
     }
 
+    /**
+     * Extracts the profile from a fetched page (the CPU step). Skills are left
+     * empty until {@link #enrich(PlayerProfile, String)}.
+     */
+    static PlayerProfile parseProfile(Document doc, String url, String playerId) throws Exception {
+        PlayerProfile profile = extractProfileData(doc, playerId);
+        if (profile == null) return null;
+        // set userId from parameter
+        profile.userId = playerId;
+        // try to extract username/slug from the URL: /player/{id}/{slug}
+        try {
+            java.util.regex.Pattern p = java.util.regex.Pattern.compile("/player(?:\\.php\\?player=|/)(?:\\d+)/(.*?)(?:$|\\?)");
+            java.util.regex.Matcher m = p.matcher(url);
+            if (m.find()) {
+                String slug = m.group(1);
+                // strip any trailing fragments or query
+                int q = slug.indexOf('?');
+                if (q >= 0) slug = slug.substring(0, q);
+                profile.userName = slug;
+            }
+        } catch (Exception ex) {
+            // ignore; leave userName as-is
+        }
+        return profile;
+    }
+
+    /**
+     * Adds the GraphQL endorsement skills (the second I/O step) and interns the
+     * repetitive values.
+     */
+    static PlayerProfile enrich(PlayerProfile profile, String playerId) throws Exception {
+        profile.skills = fetchSkills(playerId).toArray(new Skill[0]);
+        // Collapse repetitive values (nation, teams, agency, skills, ...) to shared instances
+        return ProfileStore.intern(profile, ProfileStore.PROFILE_FIELDS);
+    }
+
     /**
      * Extracts profile data from the parsed HTML document.
      */
@@ -448,8 +479,8 @@ public class ProfileScapper {
             relation = relationBuilder.toString().replaceAll("\"", "").trim();
         }
 
-        // Fetch skills
-        Skill[] skillsArr = fetchSkills(playerId).toArray(new Skill[0]);
+        // Skills come from GraphQL, see enrich()
+        Skill[] skillsArr = new Skill[0];
 
         // Status
         String status = extractValue.apply("Status", "");
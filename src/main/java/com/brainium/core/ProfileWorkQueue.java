@@ -0,0 +1,84 @@
+package com.brainium.core;
+
+import java.time.LocalDate;
+import java.util.PriorityQueue;
+
+/**
+ * Orders profile scrapes so the most valuable updates happen first if a run is
+ * cut short. The priority is measured in hours:
+ * <ul>
+ * <li>+24 per day the player's last game is within the past week (played
+ * yesterday: +144),</li>
+ * <li>+1 per hour since the last successful scrape, capped at 30 days (never
+ * scraped counts as the cap),</li>
+ * <li>-48 per failed attempt since the last success (up to 10).</li>
+ * </ul>
+ * Ties go to the lower player id so the order is deterministic.
+ */
+public class ProfileWorkQueue {
+
+    static final int RECENT_GAME_DAYS = 7;
+    static final long MAX_STALENESS_HOURS = 30 * 24;
+    static final long FAILURE_PENALTY_HOURS = 48;
+    static final int MAX_COUNTED_FAILURES = 10;
+
+    private static final class Item {
+        final long id;
+        final long priority;
+
+        Item(long id, long priority) {
+            this.id = id;
+            this.priority = priority;
+        }
+    }
+
+    private final PriorityQueue<Item> queue = new PriorityQueue<>((a, b) -> a.priority != b.priority
+            ? Long.compare(b.priority, a.priority)
+            : Long.compare(a.id, b.id));
+    private final ScrapeHistory history;
+    private final long today;
+    private final long now;
+
+    /**
+     * @param history may be null, in which case every player counts as never scraped
+     */
+    public ProfileWorkQueue(ScrapeHistory history, LocalDate today, long nowMillis) {
+        this.history = history;
+        this.today = today.toEpochDay();
+        this.now = nowMillis;
+    }
+
+    public void add(long id) {
+        queue.add(new Item(id, priority(history != null ? history.get(id) : null, today, now)));
+    }
+
+    /**
+     * Removes and returns the highest-priority player id.
+     */
+    public long poll() {
+        return queue.poll().id;
+    }
+
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    static long priority(ScrapeHistory.Entry e, long today, long now) {
+        if (e == null) {
+            return MAX_STALENESS_HOURS;
+        }
+        long score = 0;
+        if (e.lastGameDay >= 0) {
+            score += 24 * Math.max(0, RECENT_GAME_DAYS - (today - e.lastGameDay));
+        }
+        score += e.lastSuccessAt > 0
+                ? Math.min(MAX_STALENESS_HOURS, Math.max(0, now - e.lastSuccessAt) / 3600_000L)
+                : MAX_STALENESS_HOURS;
+        score -= FAILURE_PENALTY_HOURS * Math.min(e.failures, MAX_COUNTED_FAILURES);
+        return score;
+    }
+}
@@ -0,0 +1,355 @@
+package com.brainium.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+
+import com.brainium.schema.PlayerProfile;
+import com.google.gson.JsonObject;
+
+/**
+ * Worker for the shared {@link FileJobQueue}: several of these processes can
+ * run on one host and split the historical crawl between them. Two job kinds:
+ * <ul>
+ * <li>page: one search results page (position, birth year, page). Queues a
+ * player job per listed player and the next page while pages are non-empty.
+ * A page given up on is logged to failed_pages.txt and skipped, like the
+ * single-process crawl does; after MAX_SKIPPED_PAGES in a row the position
+ * and year are left for a later run.</li>
+ * <li>player: one profile scrape, appended to output.csv.</li>
+ * </ul>
+ * Appends to output.csv are serialized across processes by {@link OutputCsv};
+ * duplicate rows from re-run jobs are dropped by
+ * {@link CsvCompactor}. Configuration: JOB_QUEUE_DIR (default job_queue),
+ * WORKER_THREADS (default 4), JOB_LEASE_TIMEOUT_MS (default 60000) and
+ * JOB_MAX_ATTEMPTS (default 3).
+ */
+public class QueueWorker {
+
+    public static final String QUEUE_DIR = System.getenv("JOB_QUEUE_DIR") != null
+            ? System.getenv("JOB_QUEUE_DIR")
+            : "job_queue";
+    private static final int THREADS = System.getenv("WORKER_THREADS") != null
+            ? Integer.parseInt(System.getenv("WORKER_THREADS"))
+            : 4;
+    private static final long LEASE_TIMEOUT_MS = System.getenv("JOB_LEASE_TIMEOUT_MS") != null
+            ? Long.parseLong(System.getenv("JOB_LEASE_TIMEOUT_MS"))
+            : 60_000;
+    private static final int MAX_ATTEMPTS = System.getenv("JOB_MAX_ATTEMPTS") != null
+            ? Integer.parseInt(System.getenv("JOB_MAX_ATTEMPTS"))
+            : 3;
+    private static final Path OUTPUT_FILE = Path.of("output.csv");
+    private static final Path FAILED_PAGES_FILE = Path.of("failed_pages.txt");
+    // Consecutive pages given up on before a position/year stops being crawled
+    private static final int MAX_SKIPPED_PAGES = 5;
+
+    private final FileJobQueue queue;
+    private final String cookies;
+    private final Set<String> scrapedIds = ConcurrentHashMap.newKeySet();
+    private final Set<FileJobQueue.Lease> active = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger pages = new AtomicInteger();
+    private final AtomicInteger players = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+
+    QueueWorker(FileJobQueue queue, String cookies) {
+        this.queue = queue;
+        this.cookies = cookies;
+    }
+
+    static String pageJobName(String position, int year, int page) {
+        return "page-" + position + "-" + year + "-" + page;
+    }
+
+    static JsonObject pageJob(String position, int year, int page) {
+        JsonObject job = new JsonObject();
+        job.addProperty("type", "page");
+        job.addProperty("position", position);
+        job.addProperty("year", year);
+        job.addProperty("page", page);
+        return job;
+    }
+
+    /**
+     * Queues page 1 of every position and birth year. Safe to run again: jobs
+     * that are already known are skipped.
+     *
+     * @return number of jobs added
+     */
+    public static int seed(List<String> positions, int fromYear, int toYear) throws IOException {
+        FileJobQueue queue = FileJobQueue.open(Path.of(QUEUE_DIR));
+        int added = 0;
+        for (String position : positions) {
+            for (int year = fromYear; year <= toYear; year++) {
+                if (queue.enqueue(pageJobName(position, year, 1), pageJob(position, year, 1))) {
+                    added++;
+                }
+            }
+        }
+        System.out.println("📥 Queued " + added + " search jobs in " + QUEUE_DIR + " (" + queue.pendingCount()
+                + " pending)");
+        return added;
+    }
+
+    /**
+     * Logs in, then works the queue with WORKER_THREADS threads until it is empty.
+     */
+    public static void runWorker() throws Exception {
+        String email = System.getenv("EP_EMAIL");
+        String password = System.getenv("EP_PASSWORD");
+        if (email == null || password == null) {
+            throw new IllegalArgumentException("EliteProspects credentials not set in environment variables EP_EMAIL and EP_PASSWORD");
+        }
+        JsonObject loginResp = EliteProspectsAPI.loginAndGetTokens(email, password);
+        StringBuilder cookieBuilder = new StringBuilder();
+        if (loginResp.has("token")) cookieBuilder.append("ep_next_token=").append(loginResp.get("token").getAsString()).append(";");
+        if (loginResp.has("streamToken")) cookieBuilder.append("streamToken=").append(loginResp.get("streamToken").getAsString()).append(";");
+
+        QueueWorker worker = new QueueWorker(FileJobQueue.open(Path.of(QUEUE_DIR)), cookieBuilder.toString());
+        worker.loadScrapedIds();
+        worker.run(THREADS);
+    }
+
+    void run(int threads) throws InterruptedException {
+        System.out.println("👷 Queue worker: " + threads + " threads on " + QUEUE_DIR + ", lease timeout "
+                + LEASE_TIMEOUT_MS + "ms");
+        ScheduledExecutorService housekeeping = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "queue-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        // Heartbeats well inside the timeout; reaping picks up jobs of workers that died
+        long beatMs = Math.max(1000, LEASE_TIMEOUT_MS / 4);
+        housekeeping.scheduleWithFixedDelay(() -> {
+            for (FileJobQueue.Lease lease : active) {
+                if (!queue.heartbeat(lease)) {
+                    System.err.println("⚠️  Lost lease on " + lease.name + " (reaped by another worker)");
+                }
+            }
+        }, beatMs, beatMs, TimeUnit.MILLISECONDS);
+        housekeeping.scheduleWithFixedDelay(() -> {
+            try {
+                int reaped = queue.reapExpired(LEASE_TIMEOUT_MS);
+                if (reaped > 0) System.out.println("♻️  Returned " + reaped + " expired leases to the queue");
+            } catch (IOException e) {
+                System.err.println("⚠️  Lease reaping failed: " + e.getMessage());
+            }
+        }, 0, LEASE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+        // On SIGTERM: stop claiming, let running jobs finish, hand back leases of jobs that didn't
+        ShutdownCoordinator.Registration running = ShutdownCoordinator.beginWork("queue worker");
+        ShutdownCoordinator.Registration release = ShutdownCoordinator.onShutdown("job leases", this::releaseActive);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(this::claimLoop);
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        } finally {
+            releaseActive();
+            release.close();
+            running.close();
+            housekeeping.shutdownNow();
+        }
+
+        System.out.println("[OK] Worker finished: " + pages.get() + " pages, " + players.get() + " players, "
+                + failures.get() + " failed jobs");
+    }
+
+    private void claimLoop() {
+        int idleChecks = 0;
+        int queueErrors = 0;
+        while (!Thread.currentThread().isInterrupted() && !ShutdownCoordinator.isStopping()) {
+            FileJobQueue.Lease lease;
+            try {
+                lease = queue.claim();
+                if (lease == null) {
+                    // Stop once nothing is pending and nobody holds a lease that could add more work
+                    if (queue.pendingCount() == 0 && queue.leasedCount() == 0 && ++idleChecks >= 2) {
+                        return;
+                    }
+                    Thread.sleep(2000);
+                    continue;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                // usually a race with a peer moving the same files; back off and try again
+                long backoff = Math.min(30_000, 1000L << Math.min(queueErrors++, 5));
+                System.err.println("⚠️  Job queue error, retrying in " + backoff / 1000 + "s: " + e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                continue;
+            }
+            idleChecks = 0;
+            queueErrors = 0;
+            active.add(lease);
+            try {
+                process(lease);
+                queue.complete(lease);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // lease expires and another worker takes it
+            } catch (Exception e) {
+                failed(lease, e);
+            } finally {
+                active.remove(lease);
+            }
+        }
+    }
+
+    private void process(FileJobQueue.Lease lease) throws Exception {
+        JsonObject job = lease.job;
+        if ("player".equals(job.get("type").getAsString())) {
+            scrapePlayer(job.get("id").getAsString(), job.get("slug").getAsString());
+        } else {
+            crawlPage(job.get("position").getAsString(), job.get("year").getAsInt(), job.get("page").getAsInt());
+        }
+    }
+
+    private void crawlPage(String position, int year, int page) throws IOException {
+        String url = String.format("https://www.eliteprospects.com/search/player?position=%s&dob=%d&nation=swe&page=%d",
+                position, year, page);
+        System.out.println("  📄 Page " + page + " | Position: " + position.toUpperCase() + " | Year: " + year);
+        Document doc = Jsoup.connect(url)
+                .header("cookie", cookies)
+                .timeout(60000)
+                .maxBodySize(0)
+                .get();
+        Elements links = doc.select("td.name a");
+        pages.incrementAndGet();
+        if (links.isEmpty()) {
+            System.out.println("  [OK] No more players on page " + page + ". Year " + year + " completed!");
+            return;
+        }
+        int queued = 0;
+        for (Element link : links) {
+            String[] parts = link.absUrl("href").split("/");
+            String playerId = parts[parts.length - 2];
+            if (scrapedIds.contains(playerId)) continue;
+            JsonObject job = new JsonObject();
+            job.addProperty("type", "player");
+            job.addProperty("id", playerId);
+            job.addProperty("slug", parts[parts.length - 1]);
+            job.addProperty("position", position);
+            if (queue.enqueue("player-" + playerId, job)) queued++;
+        }
+        queue.enqueue(pageJobName(position, year, page + 1), pageJob(position, year, page + 1));
+        System.out.println("  👥 Page " + page + ": " + links.size() + " players, " + queued + " queued");
+    }
+
+    private void scrapePlayer(String playerId, String slug) throws Exception {
+        String playerUrl = "https://www.eliteprospects.com/player/" + playerId + "/" + slug;
+        PlayerProfile profile = ProfileScapper.getProfile(playerUrl, playerId);
+        if (profile == null) {
+            throw new IOException("profile is null for player " + playerId); // failed job, retried up to MAX_ATTEMPTS
+        }
+        profile.userId = playerId;
+        profile.userName = slug;
+        // fetch and format outside the lock so other workers only wait for the append
+        String row = TableScapper.csvRow(profile, EliteProspectsAPI.fetchPositionJson(playerId, profile.position));
+        OutputCsv.append(OUTPUT_FILE, row);
+        scrapedIds.add(playerId);
+        players.incrementAndGet();
+        System.out.println("    [OK] Included: " + playerId + " | " + profile.name);
+        Thread.sleep(500); // same pacing as the single-process crawl
+    }
+
+    /**
+     * Returns leases still held (jobs interrupted by a shutdown) to the queue, so
+     * other workers don't have to wait for them to expire.
+     */
+    private void releaseActive() {
+        for (FileJobQueue.Lease lease : active) {
+            try {
+                queue.release(lease);
+                active.remove(lease);
+                System.out.println("↩️  Released unfinished job " + lease.name);
+            } catch (IOException e) {
+                System.err.println("⚠️  Could not release job " + lease.name + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void failed(FileJobQueue.Lease lease, Exception e) {
+        System.err.println("Failed job " + lease.name + " (attempt " + (lease.attempts() + 1) + "): " + e.getMessage());
+        try {
+            if (queue.fail(lease, MAX_ATTEMPTS)) {
+                failures.incrementAndGet();
+                JsonObject job = lease.job;
+                if ("player".equals(job.get("type").getAsString())) {
+                    TableScapper.logFailedPlayer(job.get("id").getAsString(), job.get("slug").getAsString(),
+                            job.get("position").getAsString(), String.valueOf(e.getMessage()));
+                } else {
+                    skipPage(job, String.valueOf(e.getMessage()));
+                }
+            }
+        } catch (IOException io) {
+            System.err.println("⚠️  Could not return job " + lease.name + ": " + io.getMessage());
+        }
+    }
+
+    /**
+     * Logs a page job given up on and queues the page after it, so the rest of
+     * the position/year is still crawled.
+     */
+    private void skipPage(JsonObject job, String error) throws IOException {
+        String position = job.get("position").getAsString();
+        int year = job.get("year").getAsInt();
+        int page = job.get("page").getAsInt();
+        int skipped = (job.has("skipped") ? job.get("skipped").getAsInt() : 0) + 1;
+        String line = position + "," + year + "," + page + "," + java.time.LocalDateTime.now() + ","
+                + error.replace(",", ";").replace("\n", " ") + System.lineSeparator();
+        try {
+            Files.writeString(FAILED_PAGES_FILE, line, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException io) {
+            System.err.println("Failed to log failed page " + page + " to file: " + io.getMessage());
+        }
+        if (skipped >= MAX_SKIPPED_PAGES) {
+            System.err.println("⚠️  " + skipped + " pages in a row failed for " + position + " " + year
+                    + ", leaving the rest for a later run");
+            return;
+        }
+        JsonObject next = pageJob(position, year, page + 1);
+        next.addProperty("skipped", skipped);
+        queue.enqueue(pageJobName(position, year, page + 1), next);
+        System.err.println("  ⏭️  Skipping page " + page + " (" + position + " " + year + "), continuing with page "
+                + (page + 1));
+    }
+
+    private void loadScrapedIds() {
+        if (!Files.exists(OUTPUT_FILE)) return;
+        try (BufferedReader reader = Files.newBufferedReader(OUTPUT_FILE)) {
+            CsvCompactor.readRecord(reader); // header
+            String record;
+            while ((record = CsvCompactor.readRecord(reader)) != null) {
+                String id = CsvCompactor.keyOf(record);
+                if (!id.isEmpty()) scrapedIds.add(id);
+            }
+            System.out.println("  [INFO] Loaded " + scrapedIds.size() + " already scraped player IDs from " + OUTPUT_FILE);
+        } catch (IOException e) {
+            System.out.println("Warning: Could not load scraped player IDs: " + e.getMessage());
+        }
+    }
+}
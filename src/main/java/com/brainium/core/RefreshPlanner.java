@@ -0,0 +1,213 @@
+package com.brainium.core;
+
+import java.io.BufferedReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.brainium.data.LongObjectHashMap;
+import com.brainium.schema.PlayerProfile;
+
+/**
+ * Nightly incremental refresh of output.csv. The historical crawl only adds
+ * players it has never scraped. This planner picks a bounded slice of known
+ * players whose profiles are due again. Each player gets a refresh interval
+ * from the activity signals in {@link ScrapeHistory}:
+ * <ul>
+ * <li>active (a game in the last 30 days, or a current/last-season entry):
+ * REFRESH_ACTIVE_DAYS, default 7,</li>
+ * <li>retired: REFRESH_RETIRED_DAYS, default 180,</li>
+ * <li>everyone else: REFRESH_IDLE_DAYS, default 30, or half of that if
+ * the profile changed in the last 90 days.</li>
+ * </ul>
+ * Due players are refreshed most-overdue first (age / interval), up to
+ * REFRESH_BUDGET (default 500) per night. Players never tried yet come first,
+ * so the existing database is picked up over a few nights. After a failed
+ * scrape the age counts from that attempt and the interval doubles with each
+ * failure in a row, so deleted or unparseable profiles don't crowd out real
+ * refreshes.
+ */
+public class RefreshPlanner {
+
+    private static final String OUTPUT_FILE = "output.csv";
+    private static final int THREADS = System.getenv("REFRESH_THREADS") != null
+            ? Integer.parseInt(System.getenv("REFRESH_THREADS"))
+            : 4;
+    private static final long DAY_MS = 24 * 3600_000L;
+
+    private final int activeDays;
+    private final int idleDays;
+    private final int retiredDays;
+
+    public RefreshPlanner(int activeDays, int idleDays, int retiredDays) {
+        this.activeDays = activeDays;
+        this.idleDays = idleDays;
+        this.retiredDays = retiredDays;
+    }
+
+    public static RefreshPlanner fromEnv() {
+        return new RefreshPlanner(env("REFRESH_ACTIVE_DAYS", 7), env("REFRESH_IDLE_DAYS", 30),
+                env("REFRESH_RETIRED_DAYS", 180));
+    }
+
+    static int budgetFromEnv() {
+        return env("REFRESH_BUDGET", 500);
+    }
+
+    private static int env(String name, int defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    /**
+     * Days between refreshes for a player with these signals.
+     */
+    int intervalDays(ScrapeHistory.Entry e, LocalDate today, long now) {
+        if (e == null) {
+            return idleDays;
+        }
+        if (e.retired) {
+            return retiredDays;
+        }
+        // Seasons start in the autumn: in spring the current season began last year
+        int currentSeason = today.getMonthValue() >= 8 ? today.getYear() : today.getYear() - 1;
+        boolean recentGame = e.lastGameDay >= 0 && today.toEpochDay() - e.lastGameDay <= 30;
+        if (recentGame || e.latestSeason >= currentSeason - 1) {
+            return activeDays;
+        }
+        if (e.lastChangedAt > 0 && now - e.lastChangedAt <= 90 * DAY_MS) {
+            return Math.max(1, idleDays / 2);
+        }
+        return idleDays;
+    }
+
+    /**
+     * Picks up to {@code budget} candidates that are due, most overdue first.
+     */
+    public List<Long> plan(long[] candidates, ScrapeHistory history, LocalDate today, long now, int budget) {
+        List<long[]> due = new ArrayList<>(); // {id, overdue ratio in thousandths}
+        for (long id : candidates) {
+            ScrapeHistory.Entry e = history != null ? history.get(id) : null;
+            // after failures: back off from the last attempt, 2^failures intervals
+            long since = e == null ? 0 : e.failures > 0 ? e.lastAttemptAt : e.lastSuccessAt;
+            long ratio;
+            if (since == 0) {
+                ratio = Long.MAX_VALUE;
+            } else {
+                long intervalMs = (intervalDays(e, today, now) * DAY_MS) << Math.min(e.failures, 10);
+                ratio = (now - since) * 1000 / intervalMs;
+                if (ratio < 1000) continue; // not due yet
+            }
+            due.add(new long[] { id, ratio });
+        }
+        due.sort(Comparator.<long[]>comparingLong(d -> -d[1]).thenComparingLong(d -> d[0]));
+        List<Long> slice = new ArrayList<>(Math.min(budget, due.size()));
+        for (int i = 0; i < due.size() && i < budget; i++) {
+            slice.add(due.get(i)[0]);
+        }
+        return slice;
+    }
+
+    public static void main(String[] args) {
+        ShutdownCoordinator.install();
+        runNightly();
+    }
+
+    /**
+     * Refreshes tonight's slice: re-scrapes each profile, appends the new row to
+     * output.csv and compacts it so only the newest row per player remains.
+     *
+     * @return number of profiles refreshed
+     */
+    public static int runNightly() {
+        Path csv = Path.of(OUTPUT_FILE);
+        if (!Files.exists(csv)) {
+            System.out.println("[INFO] " + OUTPUT_FILE + " not found, nothing to refresh.");
+            return 0;
+        }
+        LongObjectHashMap<String> slugs = new LongObjectHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(csv)) {
+            CsvCompactor.readRecord(reader); // header
+            String record;
+            while ((record = CsvCompactor.readRecord(reader)) != null) {
+                try {
+                    slugs.put(Long.parseLong(CsvCompactor.keyOf(record)), CsvCompactor.fieldOf(record, 1));
+                } catch (NumberFormatException e) {
+                    // blank or malformed row
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Could not read " + OUTPUT_FILE + ": " + e.getMessage());
+            return 0;
+        }
+
+        AtomicInteger refreshed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        // Stopped early at shutdown; players not reached stay due and come first next night
+        ShutdownCoordinator.Registration running = ShutdownCoordinator.beginWork("refresh");
+        try (ScrapeHistory history = ScrapeHistory.open(Path.of(ScrapeHistory.FILE))) {
+            int budget = budgetFromEnv();
+            List<Long> slice = fromEnv().plan(slugs.keys(), history, LocalDate.now(), System.currentTimeMillis(), budget);
+            System.out.println("🔄 Refresh plan: " + slice.size() + " of " + slugs.size() + " players due (budget "
+                    + budget + ")");
+
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            List<Future<?>> futures = new ArrayList<>();
+            for (long id : slice) {
+                String slug = slugs.get(id);
+                futures.add(executor.submit(() -> {
+                    if (ShutdownCoordinator.isStopping()) {
+                        return;
+                    }
+                    String playerId = String.valueOf(id);
+                    String url = "https://www.eliteprospects.com/player/" + id + "/" + slug;
+                    try {
+                        PlayerProfile profile = ProfileScapper.getProfile(url, playerId);
+                        if (profile == null) {
+                            System.err.println("Failed to refresh player " + playerId + ": profile is null");
+                            ScrapeHistory.recordScrape(history, id, null);
+                            failed.incrementAndGet();
+                            return;
+                        }
+                        profile.userId = playerId;
+                        profile.userName = slug;
+                        TableScapper.writeProfileToCSV(profile); // appends under the output.csv lock
+                        ScrapeHistory.recordScrape(history, id, profile);
+                        refreshed.incrementAndGet();
+                        Thread.sleep(500); // same pacing as the historical crawl
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (Exception e) {
+                        System.err.println("Failed to refresh player " + playerId + ": " + e.getMessage());
+                        ScrapeHistory.recordScrape(history, id, null);
+                        failed.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> f : futures) {
+                try {
+                    f.get();
+                } catch (Exception ignored) {
+                }
+            }
+            executor.shutdown();
+        } catch (Exception e) {
+            System.err.println("❌ Refresh stopped: " + e.getMessage());
+        } finally {
+            running.close();
+        }
+
+        System.out.println("[OK] Refreshed " + refreshed.get() + " profiles (" + failed.get() + " failed)");
+        if (refreshed.get() > 0) {
+            CsvCompactor.compactFile(csv);
+        }
+        return refreshed.get();
+    }
+}
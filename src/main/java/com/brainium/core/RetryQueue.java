@@ -0,0 +1,319 @@
+package com.brainium.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.brainium.data.LongObjectHashMap;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Players whose profile scrape failed, each with the time of its next attempt.
+ * Every failure doubles the wait (RETRY_BASE_DELAY_MS, default 30s, capped at
+ * RETRY_MAX_DELAY_MS, default 6h); after RETRY_MAX_ATTEMPTS (default 5) the
+ * player is moved to the dead-letter file and dropped from the queue.
+ *
+ * The persistent queue ({@link #open(Path)}) keeps its state in the snapshot
+ * plus {@code <file>.log} (see {@link CheckpointLog}) so retries carry over to
+ * the next run. Processes sharing the files don't lose each other's changes
+ * (compaction rebuilds from the files), but each only sees what it loaded
+ * plus its own changes; processes without a queue report failures through
+ * failed_players.txt, which {@link #importFailedPlayers(Path, long)} pulls in.
+ */
+public class RetryQueue implements Closeable {
+    public static final String FILE = System.getenv("RETRY_QUEUE") != null
+            ? System.getenv("RETRY_QUEUE")
+            : "retry_queue.json";
+    public static final String DEAD_LETTER_FILE = System.getenv("RETRY_DEAD_LETTER") != null
+            ? System.getenv("RETRY_DEAD_LETTER")
+            : "failed_players_dead.txt";
+    static final int MAX_ATTEMPTS = System.getenv("RETRY_MAX_ATTEMPTS") != null
+            ? Integer.parseInt(System.getenv("RETRY_MAX_ATTEMPTS"))
+            : 5;
+    static final long BASE_DELAY_MS = System.getenv("RETRY_BASE_DELAY_MS") != null
+            ? Long.parseLong(System.getenv("RETRY_BASE_DELAY_MS"))
+            : 30_000;
+    static final long MAX_DELAY_MS = System.getenv("RETRY_MAX_DELAY_MS") != null
+            ? Long.parseLong(System.getenv("RETRY_MAX_DELAY_MS"))
+            : 6 * 3600_000L;
+    private static final int COMPACT_EVERY = 500;
+
+    public static final class Entry {
+        public final long id;
+        public final String slug;
+        public final String position;
+        // Failed attempts so far and when the next one may start (epoch millis)
+        public int attempts;
+        public long nextAttemptAt;
+        public String lastError;
+
+        Entry(long id, String slug, String position) {
+            this.id = id;
+            this.slug = slug != null ? slug : "";
+            this.position = position != null ? position : "";
+        }
+    }
+
+    private final CheckpointLog log; // null for an in-memory queue
+    private final Path deadLetter;
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final LongObjectHashMap<Entry> entries = new LongObjectHashMap<>();
+
+    RetryQueue(Path file, Path deadLetter, int maxAttempts, long baseDelayMs, long maxDelayMs) {
+        this.log = file != null
+                ? new CheckpointLog(file, file.resolveSibling(file.getFileName() + ".log"), COMPACT_EVERY)
+                : null;
+        this.deadLetter = deadLetter;
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+    }
+
+    /**
+     * Loads the queue from the snapshot and the changes logged since.
+     */
+    public static RetryQueue open(Path file) throws IOException {
+        RetryQueue queue = new RetryQueue(file, Path.of(DEAD_LETTER_FILE), MAX_ATTEMPTS, BASE_DELAY_MS, MAX_DELAY_MS);
+        queue.load();
+        return queue;
+    }
+
+    /**
+     * A queue that lives only as long as the current run; players it gives up on
+     * are appended to {@code deadLetter}.
+     */
+    public static RetryQueue inMemory(Path deadLetter) {
+        return new RetryQueue(null, deadLetter, MAX_ATTEMPTS, BASE_DELAY_MS, MAX_DELAY_MS);
+    }
+
+    void load() throws IOException {
+        load(log.readSnapshot(), log.readRecords());
+    }
+
+    private void load(String json, List<JsonObject> records) {
+        entries.clear();
+        if (json != null) {
+            try {
+                for (Map.Entry<String, JsonElement> e : JsonParser.parseString(json).getAsJsonObject().entrySet()) {
+                    apply(Long.parseLong(e.getKey()), e.getValue().getAsJsonObject());
+                }
+            } catch (Exception e) {
+                System.err.println("⚠️  Failed to read retry queue, starting empty: " + e.getMessage());
+            }
+        }
+        for (JsonObject record : records) {
+            apply(record.get("id").getAsLong(), record);
+        }
+    }
+
+    // Snapshot entries and log records share the field names slug / pos / n / next / err; del removes
+    private void apply(long id, JsonObject r) {
+        if (r.has("del")) {
+            entries.remove(id);
+            return;
+        }
+        Entry e = new Entry(id, r.has("slug") ? r.get("slug").getAsString() : "",
+                r.has("pos") ? r.get("pos").getAsString() : "");
+        e.attempts = r.has("n") ? r.get("n").getAsInt() : 0;
+        e.nextAttemptAt = r.has("next") ? r.get("next").getAsLong() : 0;
+        e.lastError = r.has("err") ? r.get("err").getAsString() : null;
+        entries.put(id, e);
+    }
+
+    private static JsonObject toJson(Entry e) {
+        JsonObject o = new JsonObject();
+        o.addProperty("slug", e.slug);
+        if (!e.position.isEmpty()) o.addProperty("pos", e.position);
+        o.addProperty("n", e.attempts);
+        o.addProperty("next", e.nextAttemptAt);
+        if (e.lastError != null) o.addProperty("err", e.lastError);
+        return o;
+    }
+
+    /**
+     * Wait before the next attempt after {@code attempts} failures: base, 2x base, 4x base, ... up to the cap.
+     */
+    long backoffMs(int attempts) {
+        int doublings = Math.min(Math.max(attempts - 1, 0), 30);
+        return Math.min(maxDelayMs, baseDelayMs << doublings);
+    }
+
+    /**
+     * Records a failed attempt and schedules the next one, or moves the player
+     * to the dead-letter file once it has failed {@code maxAttempts} times.
+     *
+     * @return false if the player was given up on
+     */
+    public synchronized boolean recordFailure(long id, String slug, String position, String error, long now)
+            throws IOException {
+        Entry e = entries.get(id);
+        if (e == null) {
+            e = new Entry(id, slug, position);
+        }
+        e.attempts++;
+        e.lastError = error;
+        if (e.attempts >= maxAttempts) {
+            entries.remove(id);
+            writeDeadLetter(e, now);
+            persistRemoval(id);
+            System.err.println("    ☠️  Giving up on player " + id + " after " + e.attempts + " attempts (see " + deadLetter + ")");
+            return false;
+        }
+        e.nextAttemptAt = now + backoffMs(e.attempts);
+        entries.put(id, e);
+        persist(e);
+        return true;
+    }
+
+    /**
+     * Queues a player that hasn't been attempted yet (e.g. work cut short by a
+     * shutdown), due at {@code now}; a player already queued is left as is.
+     *
+     * @return false if the player was already queued
+     */
+    public synchronized boolean defer(long id, String slug, long now) throws IOException {
+        if (entries.containsKey(id)) return false;
+        Entry e = new Entry(id, slug, "");
+        e.nextAttemptAt = now;
+        entries.put(id, e);
+        persist(e);
+        return true;
+    }
+
+    /**
+     * Removes a player after a successful attempt (no-op if it isn't queued).
+     */
+    public synchronized void recordSuccess(long id) throws IOException {
+        if (entries.remove(id) != null) {
+            persistRemoval(id);
+        }
+    }
+
+    /**
+     * Entries whose next attempt is due at {@code now}, earliest first.
+     */
+    public synchronized List<Entry> due(long now) {
+        List<Entry> due = new ArrayList<>();
+        entries.forEach((id, e) -> {
+            if (e.nextAttemptAt <= now) due.add(e);
+        });
+        due.sort((a, b) -> a.nextAttemptAt != b.nextAttemptAt
+                ? Long.compare(a.nextAttemptAt, b.nextAttemptAt)
+                : Long.compare(a.id, b.id));
+        return due;
+    }
+
+    /**
+     * Earliest next-attempt time, or -1 if the queue is empty.
+     */
+    public synchronized long nextDueAt() {
+        long[] min = { Long.MAX_VALUE };
+        entries.forEach((id, e) -> min[0] = Math.min(min[0], e.nextAttemptAt));
+        return min[0] == Long.MAX_VALUE ? -1 : min[0];
+    }
+
+    public synchronized Entry get(long id) {
+        return entries.get(id);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Moves every queued player to the dead-letter file, e.g. when a run with an
+     * in-memory queue ends before the retries are due.
+     *
+     * @return number of players moved
+     */
+    public synchronized int deadLetterAll(long now) throws IOException {
+        List<Entry> all = new ArrayList<>();
+        entries.forEach((id, e) -> all.add(e));
+        for (Entry e : all) {
+            entries.remove(e.id);
+            writeDeadLetter(e, now);
+            persistRemoval(e.id);
+        }
+        return all.size();
+    }
+
+    /**
+     * Moves the lines of a failed_players.txt file
+     * (playerId,playerUserName,position,timestamp,errorMessage) into the queue as
+     * one failed attempt each, due now, then deletes the file.
+     *
+     * @return number of players imported
+     */
+    public synchronized int importFailedPlayers(Path file, long now) throws IOException {
+        if (!Files.exists(file)) return 0;
+        int imported = 0;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.trim().isEmpty()) continue;
+            String[] parts = line.split(",", 5);
+            long id;
+            try {
+                id = Long.parseLong(parts[0].trim());
+            } catch (NumberFormatException ex) {
+                System.err.println("⚠️  Skipping malformed line in " + file + ": " + line);
+                continue;
+            }
+            Entry e = entries.get(id);
+            if (e == null) {
+                e = new Entry(id, parts.length > 1 ? parts[1].trim() : "", parts.length > 2 ? parts[2].trim() : "");
+                e.attempts = 1;
+            }
+            e.nextAttemptAt = Math.min(e.nextAttemptAt == 0 ? now : e.nextAttemptAt, now);
+            if (parts.length > 4) e.lastError = parts[4].trim();
+            entries.put(id, e);
+            persist(e);
+            imported++;
+        }
+        Files.deleteIfExists(file);
+        return imported;
+    }
+
+    private void writeDeadLetter(Entry e, long now) throws IOException {
+        String line = e.id + "," + e.slug + "," + e.position + "," + java.time.Instant.ofEpochMilli(now) + ","
+                + (e.lastError != null ? e.lastError.replace(",", ";").replace("\n", " ") : "") + System.lineSeparator();
+        Files.writeString(deadLetter, line, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private void persist(Entry e) throws IOException {
+        if (log == null) return;
+        JsonObject r = toJson(e);
+        r.addProperty("id", e.id);
+        if (log.append(r)) compact();
+    }
+
+    private void persistRemoval(long id) throws IOException {
+        if (log == null) return;
+        JsonObject r = new JsonObject();
+        r.addProperty("id", id);
+        r.addProperty("del", true);
+        if (log.append(r)) compact();
+    }
+
+    private void compact() throws IOException {
+        log.compact((json, records) -> {
+            load(json, records);
+            JsonObject snapshot = new JsonObject();
+            entries.forEach((id, e) -> snapshot.add(Long.toString(id), toJson(e)));
+            return snapshot.toString();
+        });
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (log != null) log.close();
+    }
+}
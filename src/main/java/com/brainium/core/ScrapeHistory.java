@@ -0,0 +1,248 @@
+package com.brainium.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.brainium.data.LongObjectHashMap;
+import com.brainium.schema.PlayerProfile;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Long-lived per-player scrape bookkeeping (unlike the per-run status file it
+ * survives the daily cleanup): when the player last appeared in a game, when
+ * the profile was last scraped successfully, how often it has failed since,
+ * and activity signals taken from the last scraped profile. Used to decide
+ * which profiles to fetch first and which to refresh (see {@link RefreshPlanner}).
+ * Changes are appended to {@code <file>.log} and compacted into the snapshot
+ * (see {@link CheckpointLog}).
+ */
+public class ScrapeHistory implements Closeable {
+    public static final String FILE = System.getenv("SCRAPE_HISTORY") != null
+            ? System.getenv("SCRAPE_HISTORY")
+            : "scrape_history.json";
+    private static final int COMPACT_EVERY = 2000;
+    private static final Gson gson = new Gson();
+
+    public static final class Entry {
+        // Epoch day of the most recent game the player's team was seen in, -1 if unknown
+        public long lastGameDay = -1;
+        // Epoch millis of the last successful / attempted profile scrape, 0 if never
+        public long lastSuccessAt = 0;
+        public long lastAttemptAt = 0;
+        // Failed attempts since the last success
+        public int failures = 0;
+        // Activity signals from the last successful scrape: when the profile content
+        // last changed, its hash, the start year of its latest season (-1 if unknown)
+        // and whether the profile says the player has retired
+        public long lastChangedAt = 0;
+        public long profileHash = 0;
+        public int latestSeason = -1;
+        public boolean retired = false;
+    }
+
+    private final CheckpointLog log;
+    private final LongObjectHashMap<Entry> entries = new LongObjectHashMap<>();
+
+    private ScrapeHistory(Path file) {
+        this.log = new CheckpointLog(file, file.resolveSibling(file.getFileName() + ".log"), COMPACT_EVERY);
+    }
+
+    /**
+     * Loads the snapshot and replays changes logged since. A damaged snapshot
+     * only costs the priority information, so it is reported and ignored.
+     */
+    public static ScrapeHistory open(Path file) throws IOException {
+        ScrapeHistory history = new ScrapeHistory(file);
+        history.load(history.log.readSnapshot(), history.log.readRecords());
+        return history;
+    }
+
+    /**
+     * Replaces the entries with a snapshot plus the changes logged after it.
+     */
+    private void load(String json, List<JsonObject> records) {
+        entries.clear();
+        if (json != null) {
+            try {
+                for (Map.Entry<String, JsonElement> e : JsonParser.parseString(json).getAsJsonObject().entrySet()) {
+                    apply(Long.parseLong(e.getKey()), e.getValue().getAsJsonObject());
+                }
+            } catch (Exception e) {
+                System.err.println("⚠️  Failed to read scrape history, starting without it: " + e.getMessage());
+            }
+        }
+        for (JsonObject record : records) {
+            apply(record.get("id").getAsLong(), record);
+        }
+    }
+
+    // Snapshot entries and log records share the field names g / ok / h / s / r / at / f / c / fail
+    private void apply(long id, JsonObject r) {
+        Entry e = entry(id);
+        if (r.has("g")) e.lastGameDay = Math.max(e.lastGameDay, r.get("g").getAsLong());
+        if (r.has("ok")) {
+            e.lastSuccessAt = r.get("ok").getAsLong();
+            e.lastAttemptAt = Math.max(e.lastAttemptAt, e.lastSuccessAt);
+            e.failures = 0;
+            if (r.has("h")) {
+                long h = r.get("h").getAsLong();
+                // the first scrape is not a change; later ones are if the content differs
+                if (e.profileHash != 0 && h != e.profileHash) e.lastChangedAt = e.lastSuccessAt;
+                e.profileHash = h;
+                // the signals below come with the hash; a scrape recorded without a profile keeps the old ones
+                e.latestSeason = r.has("s") ? r.get("s").getAsInt() : -1;
+                e.retired = r.has("r") && r.get("r").getAsBoolean();
+            }
+        }
+        if (r.has("c")) e.lastChangedAt = r.get("c").getAsLong();
+        if (r.has("at")) e.lastAttemptAt = Math.max(e.lastAttemptAt, r.get("at").getAsLong());
+        if (r.has("f")) e.failures = r.get("f").getAsInt();
+        if (r.has("fail")) {
+            e.lastAttemptAt = Math.max(e.lastAttemptAt, r.get("fail").getAsLong());
+            e.failures++;
+        }
+    }
+
+    private Entry entry(long id) {
+        Entry e = entries.get(id);
+        if (e == null) {
+            e = new Entry();
+            entries.put(id, e);
+        }
+        return e;
+    }
+
+    /**
+     * Returns the player's history, or null if it has never been seen.
+     */
+    public synchronized Entry get(long id) {
+        return entries.get(id);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Records that these players' teams played on {@code day} (one log write).
+     */
+    public synchronized void markPlayedOn(long[] ids, LocalDate day) throws IOException {
+        long epochDay = day.toEpochDay();
+        List<JsonObject> records = new ArrayList<>();
+        for (long id : ids) {
+            Entry e = entry(id);
+            if (e.lastGameDay >= epochDay) continue;
+            e.lastGameDay = epochDay;
+            JsonObject r = new JsonObject();
+            r.addProperty("id", id);
+            r.addProperty("g", epochDay);
+            records.add(r);
+        }
+        if (log.appendAll(records)) compact();
+    }
+
+    public synchronized void markScraped(long id, long at) throws IOException {
+        markScraped(id, at, null);
+    }
+
+    /**
+     * Records a successful scrape along with the profile's activity signals
+     * (content hash, latest season, retired status); {@code profile} may be null.
+     */
+    public synchronized void markScraped(long id, long at, PlayerProfile profile) throws IOException {
+        JsonObject r = new JsonObject();
+        r.addProperty("id", id);
+        r.addProperty("ok", at);
+        if (profile != null) {
+            r.addProperty("h", UploadLedger.hash(gson.toJson(profile).getBytes(StandardCharsets.UTF_8)));
+            int season = seasonStart(profile.season);
+            if (season >= 0) r.addProperty("s", season);
+            if (profile.status != null && profile.status.toLowerCase().contains("retired")) r.addProperty("r", true);
+        }
+        apply(id, r);
+        if (log.append(r)) compact();
+    }
+
+    /**
+     * 2025 for "2025-2026" or "2025-26", -1 if the text doesn't start with a year.
+     */
+    static int seasonStart(String season) {
+        if (season == null) return -1;
+        String s = season.trim();
+        if (s.length() < 4) return -1;
+        for (int i = 0; i < 4; i++) {
+            if (!Character.isDigit(s.charAt(i))) return -1;
+        }
+        return Integer.parseInt(s.substring(0, 4));
+    }
+
+    /**
+     * Records a profile fetch in {@code history} (null if there is none) now; a
+     * null profile counts as a failure. Errors are logged, not thrown: the
+     * history is best-effort for the crawlers.
+     */
+    public static void recordScrape(ScrapeHistory history, long id, PlayerProfile profile) {
+        if (history == null || id < 0) return;
+        try {
+            if (profile != null) {
+                history.markScraped(id, System.currentTimeMillis(), profile);
+            } else {
+                history.markFailed(id, System.currentTimeMillis());
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️  Failed to update scrape history for " + id + ": " + e.getMessage());
+        }
+    }
+
+    public synchronized void markFailed(long id, long at) throws IOException {
+        JsonObject r = new JsonObject();
+        r.addProperty("id", id);
+        r.addProperty("fail", at);
+        apply(id, r);
+        if (log.append(r)) compact();
+    }
+
+    /**
+     * Rebuilds from the files under the log's lock (see {@link CheckpointLog#compact(CheckpointLog.Merge)}),
+     * so changes other processes logged meanwhile are kept.
+     */
+    private void compact() throws IOException {
+        log.compact((json, records) -> {
+            load(json, records);
+            return snapshot();
+        });
+    }
+
+    private String snapshot() {
+        JsonObject snapshot = new JsonObject();
+        entries.forEach((id, e) -> {
+            JsonObject o = new JsonObject();
+            if (e.lastGameDay >= 0) o.addProperty("g", e.lastGameDay);
+            if (e.lastSuccessAt > 0) {
+                o.addProperty("ok", e.lastSuccessAt);
+                if (e.profileHash != 0) o.addProperty("h", e.profileHash);
+                if (e.latestSeason >= 0) o.addProperty("s", e.latestSeason);
+                if (e.retired) o.addProperty("r", true);
+            }
+            if (e.lastChangedAt > 0) o.addProperty("c", e.lastChangedAt);
+            if (e.lastAttemptAt > e.lastSuccessAt) o.addProperty("at", e.lastAttemptAt);
+            if (e.failures > 0) o.addProperty("f", e.failures);
+            snapshot.add(Long.toString(id), o);
+        });
+        return snapshot.toString();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        log.close();
+    }
+}
@@ -0,0 +1,197 @@
+package com.brainium.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resident replacement for the cron + run_daily_extraction_with_upload.sh
+ * pipeline: one JVM runs the daily extraction, compaction and upload, and
+ * retries a failed upload every few hours. HTTP clients, login tokens and
+ * JIT-compiled code stay warm between runs.
+ *
+ * Jobs run one at a time on a single scheduler thread. Configuration:
+ * DAEMON_RUN_AT (local HH:mm, default 00:00), DAEMON_RETRY_HOURS (default 6),
+ * DAEMON_RUN_ON_START (default false) and STREAM_UPLOAD as for the script.
+ * With DAEMON_REFRESH=true each daily run ends with the output.csv refresh
+ * slice from {@link RefreshPlanner}.
+ */
+public class ScraperDaemon {
+
+    private static final String RUN_AT = System.getenv("DAEMON_RUN_AT") != null
+            ? System.getenv("DAEMON_RUN_AT")
+            : "00:00";
+    private static final long RETRY_HOURS = System.getenv("DAEMON_RETRY_HOURS") != null
+            ? Long.parseLong(System.getenv("DAEMON_RETRY_HOURS"))
+            : 6;
+    private static final boolean RUN_ON_START = Boolean.parseBoolean(System.getenv("DAEMON_RUN_ON_START"));
+    private static final boolean STREAM_UPLOAD = Boolean.parseBoolean(System.getenv("STREAM_UPLOAD"));
+    private static final boolean REFRESH = Boolean.parseBoolean(System.getenv("DAEMON_REFRESH"));
+
+    private static final Path DATA_FILE = Path.of("recent_swedish_players_data.json");
+
+    // Per-run files removed after a successful upload (same list as the daily script)
+    static final String[] RUN_FILES = {
+            "status.json", "swedish_extractor_status.json", "swedish_extractor_status.log",
+            "recent_swedish_players_data.json", "recent_swedish_players_profiles.jsonl",
+            "recent_swedish_players_profiles.enc.jsonl", "recent_swedish_players_profiles.enc.jsonl.dict",
+            "recent_swedish_players_ids.txt", "recent_swedish_players_urls.txt", "team.txt" };
+
+    private final ScheduledThreadPoolExecutor scheduler = newScheduler();
+    private final LocalTime runAt = LocalTime.parse(RUN_AT);
+
+    /**
+     * Schedules the jobs and blocks until the JVM is asked to stop.
+     */
+    public void runForever() throws InterruptedException {
+        System.out.println("╔════════════════════════════════════════╗");
+        System.out.println("║     Scraper daemon                     ║");
+        System.out.println("╚════════════════════════════════════════╝");
+        System.out.println("   Daily run at " + runAt + " (" + ZoneId.systemDefault() + "), upload retry every "
+                + RETRY_HOURS + "h" + (STREAM_UPLOAD ? ", streaming upload" : ""));
+
+        // A running job sees ShutdownCoordinator.isStopping() and wraps up before the scheduler stops
+        ShutdownCoordinator.install();
+        ShutdownCoordinator.onShutdown("daemon scheduler", this::stop);
+
+        if (RUN_ON_START) {
+            scheduler.execute(() -> guarded("daily run", this::dailyRun));
+        }
+        scheduleNextDailyRun();
+        scheduler.scheduleWithFixedDelay(() -> guarded("upload retry", this::retryUpload),
+                RETRY_HOURS, RETRY_HOURS, TimeUnit.HOURS);
+
+        scheduler.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+    }
+
+    /**
+     * Stops scheduling; a job that is running gets a minute to finish (at JVM
+     * shutdown, after the {@link ShutdownCoordinator} grace period).
+     */
+    public void stop() {
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(1, TimeUnit.MINUTES)) {
+                System.err.println("⚠️  Daemon job still running at shutdown, interrupting it");
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor newScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "scraper-daemon");
+            t.setDaemon(false);
+            return t;
+        });
+        // The next daily run can be hours away: drop it at shutdown instead of waiting for it
+        scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        return scheduler;
+    }
+
+    private void scheduleNextDailyRun() {
+        long delayMs = millisUntil(runAt, ZonedDateTime.now());
+        System.out.println("⏰ Next daily run in " + Duration.ofMillis(delayMs).toMinutes() + " minutes");
+        // Rescheduled after each run rather than at a fixed rate, so DST changes don't shift the run time
+        scheduler.schedule(() -> {
+            guarded("daily run", this::dailyRun);
+            if (!scheduler.isShutdown()) {
+                scheduleNextDailyRun();
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    static long millisUntil(LocalTime time, ZonedDateTime now) {
+        ZonedDateTime next = LocalDateTime.of(now.toLocalDate(), time).atZone(now.getZone());
+        if (!next.isAfter(now)) {
+            next = LocalDateTime.of(now.toLocalDate().plusDays(1), time).atZone(now.getZone());
+        }
+        return Duration.between(now, next).toMillis();
+    }
+
+    /**
+     * Extraction, output.csv compaction and upload; run files are removed once
+     * the upload succeeded, otherwise they are kept for {@link #retryUpload()}.
+     */
+    void dailyRun() {
+        System.out.println("\n==========================================");
+        System.out.println("🚀 Starting Daily Extraction at " + LocalDateTime.now());
+        System.out.println("==========================================");
+
+        int code = SwedishPlayersExtractor.run(STREAM_UPLOAD);
+        if (code == 1) {
+            System.err.println("⚠️  Extraction stopped with an error, uploading what was scraped");
+        }
+        System.out.println("🗜️  Compacting output.csv...");
+        if (!CsvCompactor.compactFile(Path.of("output.csv"))) {
+            System.err.println("⚠️  output.csv compaction failed, continuing");
+        }
+
+        boolean uploaded;
+        if (STREAM_UPLOAD) {
+            uploaded = code != 2;
+        } else {
+            System.out.println("\n📤 Running ApiUploader...");
+            uploaded = Files.exists(DATA_FILE) && ApiUploader.uploadPlayerData();
+        }
+        if (uploaded) {
+            cleanupRunFiles();
+            System.out.println("📊 Daily run: SUCCESS");
+        } else {
+            System.err.println("📊 Daily run: upload incomplete, retrying every " + RETRY_HOURS + "h");
+        }
+        if (REFRESH) {
+            System.out.println("\n🔄 Refreshing stale profiles in output.csv...");
+            RefreshPlanner.runNightly();
+        }
+    }
+
+    /**
+     * Re-uploads the data file left behind by a failed upload. The upload ledger
+     * means only players that were not accepted yet are sent again.
+     */
+    void retryUpload() {
+        if (!Files.exists(DATA_FILE)) {
+            return;
+        }
+        System.out.println("\n🔁 Retrying upload of " + DATA_FILE + " at " + LocalDateTime.now());
+        if (ApiUploader.uploadPlayerData()) {
+            cleanupRunFiles();
+            System.out.println("✅ Retry upload succeeded");
+        }
+    }
+
+    static void cleanupRunFiles() {
+        System.out.println("🧹 Cleaning up status and data files...");
+        for (String name : RUN_FILES) {
+            try {
+                Files.deleteIfExists(Path.of(name));
+            } catch (IOException e) {
+                System.err.println("⚠️  Could not delete " + name + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // A job that throws must not cancel the schedule; none start once shutdown has begun
+    private static void guarded(String name, Runnable job) {
+        if (ShutdownCoordinator.isStopping()) {
+            return;
+        }
+        try {
+            job.run();
+        } catch (Throwable t) {
+            System.err.println("❌ Daemon " + name + " failed: " + t);
+            t.printStackTrace();
+        }
+    }
+}
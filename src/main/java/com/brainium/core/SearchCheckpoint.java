@@ -0,0 +1,219 @@
+package com.brainium.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.brainium.data.LongHashSet;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+/**
+ * Per-search resume state for TableScapper, recorded per player id and per page.
+ * Each search key (e.g. "f_1992") gets its own snapshot + log pair under
+ * {@code CHECKPOINT_DIR}, so several searches can run concurrently without
+ * sharing a file.
+ *
+ * Marking progress only updates memory and queues a record; a background
+ * thread appends queued records to the log in batches every
+ * {@link #FLUSH_INTERVAL_MS} ms, so scraper threads never wait on disk.
+ */
+public class SearchCheckpoint implements Closeable {
+
+    private static final String CHECKPOINT_DIR = System.getenv("CHECKPOINT_DIR") != null
+            ? System.getenv("CHECKPOINT_DIR")
+            : "checkpoints";
+    private static final int COMPACT_EVERY = 1000;
+    static final long FLUSH_INTERVAL_MS = 1000;
+
+    private static final Gson gson = new Gson();
+
+    // One daemon thread flushes every open checkpoint
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "search-checkpoint-flusher");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final String searchKey;
+    private final CheckpointLog log;
+    private final TreeSet<Integer> completedPages = new TreeSet<>();
+    private final Map<Integer, LongHashSet> donePlayers = new TreeMap<>();
+    private final ConcurrentLinkedQueue<JsonObject> pending = new ConcurrentLinkedQueue<>();
+    private final Object flushLock = new Object();
+    private ScheduledFuture<?> flushTask;
+
+    /**
+     * Serialized form of the snapshot file.
+     */
+    private static class Snapshot {
+        String searchKey;
+        List<Integer> completedPages;
+        Map<Integer, LongHashSet> donePlayers;
+    }
+
+    SearchCheckpoint(String searchKey, Path dir) {
+        this.searchKey = searchKey;
+        String base = searchKey.replaceAll("[^A-Za-z0-9_.-]", "_");
+        this.log = new CheckpointLog(dir.resolve(base + ".json"), dir.resolve(base + ".log"), COMPACT_EVERY);
+    }
+
+    /**
+     * Opens (and replays) the checkpoint for a search key and starts batched flushing.
+     */
+    public static SearchCheckpoint open(String searchKey) throws IOException {
+        return open(searchKey, Path.of(CHECKPOINT_DIR));
+    }
+
+    static SearchCheckpoint open(String searchKey, Path dir) throws IOException {
+        Files.createDirectories(dir);
+        SearchCheckpoint checkpoint = new SearchCheckpoint(searchKey, dir);
+        checkpoint.load();
+        checkpoint.flushTask = FLUSHER.scheduleWithFixedDelay(checkpoint::flushQuietly,
+                FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        return checkpoint;
+    }
+
+    private void load() throws IOException {
+        String json = log.readSnapshot();
+        if (json != null) {
+            try {
+                Snapshot s = gson.fromJson(json, Snapshot.class);
+                if (s != null && searchKey.equals(s.searchKey)) {
+                    if (s.completedPages != null) completedPages.addAll(s.completedPages);
+                    if (s.donePlayers != null) donePlayers.putAll(s.donePlayers);
+                }
+            } catch (Exception e) {
+                System.err.println("⚠️  Failed to read checkpoint for " + searchKey + ": " + e.getMessage());
+            }
+        }
+        for (JsonObject record : log.readRecords()) {
+            int page = record.get("page").getAsInt();
+            if (record.has("id")) {
+                donePlayers.computeIfAbsent(page, p -> new LongHashSet()).add(record.get("id").getAsLong());
+            } else {
+                completeInMemory(page);
+            }
+        }
+    }
+
+    /**
+     * Returns the first page at or after {@code defaultPage} that has not been completed.
+     */
+    public synchronized int firstUnfinishedPage(int defaultPage) {
+        int page = defaultPage;
+        while (completedPages.contains(page)) {
+            page++;
+        }
+        return page;
+    }
+
+    public synchronized boolean isPageDone(int page) {
+        return completedPages.contains(page);
+    }
+
+    public synchronized boolean isPlayerDone(int page, long playerId) {
+        if (completedPages.contains(page)) return true;
+        LongHashSet ids = donePlayers.get(page);
+        return ids != null && ids.contains(playerId);
+    }
+
+    /**
+     * Records that a player on {@code page} was handled (scraped, or logged as failed).
+     */
+    public void markPlayerDone(int page, long playerId) {
+        synchronized (this) {
+            if (!donePlayers.computeIfAbsent(page, p -> new LongHashSet()).add(playerId)) return;
+        }
+        JsonObject record = new JsonObject();
+        record.addProperty("page", page);
+        record.addProperty("id", playerId);
+        pending.add(record);
+    }
+
+    /**
+     * Records that every player on {@code page} was handled.
+     */
+    public void markPageDone(int page) {
+        synchronized (this) {
+            if (completedPages.contains(page)) return;
+            completeInMemory(page);
+        }
+        JsonObject record = new JsonObject();
+        record.addProperty("page", page);
+        pending.add(record);
+    }
+
+    // Per-player ids are only needed until the page itself is complete
+    private void completeInMemory(int page) {
+        completedPages.add(page);
+        donePlayers.remove(page);
+    }
+
+    /**
+     * Appends all queued records to the log in one write, compacting if due.
+     */
+    public void flush() throws IOException {
+        synchronized (flushLock) {
+            List<JsonObject> batch = new ArrayList<>();
+            JsonObject record;
+            while ((record = pending.poll()) != null) {
+                batch.add(record);
+            }
+            if (log.appendAll(batch)) {
+                log.compact(snapshotJson());
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            System.err.println("⚠️  Failed to flush checkpoint for " + searchKey + ": " + e.getMessage());
+        }
+    }
+
+    private synchronized String snapshotJson() {
+        Snapshot s = new Snapshot();
+        s.searchKey = searchKey;
+        s.completedPages = new ArrayList<>(completedPages);
+        s.donePlayers = donePlayers;
+        return gson.toJson(s);
+    }
+
+    /**
+     * The search ran to completion: drop its checkpoint so the next run starts fresh.
+     */
+    public void finish() throws IOException {
+        stopFlushing();
+        synchronized (flushLock) {
+            pending.clear();
+            log.delete();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        stopFlushing();
+        flush();
+        log.close();
+    }
+
+    private void stopFlushing() {
+        if (flushTask != null) {
+            flushTask.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.brainium.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Process-wide graceful shutdown. One JVM shutdown hook (SIGTERM, Ctrl+C):
+ * <ol>
+ * <li>sets {@link #isStopping()}, so crawl loops stop taking new pages,
+ * players and jobs,</li>
+ * <li>waits until running work ({@link #beginWork(String)}) has ended and the
+ * registered pools have drained, all within SHUTDOWN_GRACE_MS (default 30000);
+ * pools still busy after that are interrupted,</li>
+ * <li>runs the flush steps ({@link #onShutdown(String, Step)}) newest first,
+ * so checkpoints and status files end up on disk and unfinished items are
+ * recorded for the next run.</li>
+ * </ol>
+ * Work that ends normally closes its registrations, so only whatever is still
+ * open at shutdown gets flushed by the hook.
+ */
+public final class ShutdownCoordinator {
+
+    static final long GRACE_MS = System.getenv("SHUTDOWN_GRACE_MS") != null
+            ? Long.parseLong(System.getenv("SHUTDOWN_GRACE_MS"))
+            : 30_000;
+
+    /**
+     * A flush step; may throw, the remaining steps still run.
+     */
+    public interface Step {
+        void run() throws Exception;
+    }
+
+    /**
+     * Closing a registration removes it (idempotent).
+     */
+    public interface Registration extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final class Entry {
+        final String name;
+        final Step step;
+        final ExecutorService pool;
+
+        Entry(String name, Step step, ExecutorService pool) {
+            this.name = name;
+            this.step = step;
+            this.pool = pool;
+        }
+    }
+
+    private static final AtomicBoolean installed = new AtomicBoolean();
+    private static final AtomicBoolean stopping = new AtomicBoolean();
+    private static final List<Entry> work = new CopyOnWriteArrayList<>();
+    private static final List<Entry> pools = new CopyOnWriteArrayList<>();
+    private static final List<Entry> steps = new CopyOnWriteArrayList<>();
+    private static final Object workDone = new Object();
+
+    private ShutdownCoordinator() {
+    }
+
+    /**
+     * Installs the shutdown hook (once per JVM).
+     */
+    public static void install() {
+        if (installed.compareAndSet(false, true)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> shutdown(GRACE_MS), "graceful-shutdown"));
+        }
+    }
+
+    /**
+     * True once shutdown has started: don't start new pages, players or jobs.
+     */
+    public static boolean isStopping() {
+        return stopping.get();
+    }
+
+    /**
+     * Marks a unit of work (a run, a search) the shutdown should wait for.
+     */
+    public static Registration beginWork(String name) {
+        Entry e = new Entry(name, null, null);
+        work.add(e);
+        return () -> {
+            if (work.remove(e)) {
+                synchronized (workDone) {
+                    workDone.notifyAll();
+                }
+            }
+        };
+    }
+
+    /**
+     * Lets a pool finish its running tasks at shutdown before the flush steps run.
+     */
+    public static Registration drainOnShutdown(String name, ExecutorService pool) {
+        Entry e = new Entry(name, null, pool);
+        pools.add(e);
+        return () -> pools.remove(e);
+    }
+
+    /**
+     * Runs {@code step} at shutdown unless the registration was closed first.
+     */
+    public static Registration onShutdown(String name, Step step) {
+        Entry e = new Entry(name, step, null);
+        steps.add(e);
+        return () -> steps.remove(e);
+    }
+
+    static void shutdown(long graceMs) {
+        if (!stopping.compareAndSet(false, true)) return;
+        long deadline = System.currentTimeMillis() + graceMs;
+        System.out.println("\n🛑 Shutdown requested: finishing in-flight work (up to " + graceMs / 1000 + "s)...");
+
+        for (Entry e : pools) {
+            e.pool.shutdown(); // no new tasks; tasks that haven't started check isStopping() and return
+        }
+        synchronized (workDone) {
+            while (!work.isEmpty() && System.currentTimeMillis() < deadline) {
+                try {
+                    workDone.wait(Math.max(1, Math.min(500, deadline - System.currentTimeMillis())));
+                } catch (InterruptedException ie) {
+                    break;
+                }
+            }
+        }
+        for (Entry e : work) {
+            System.err.println("⚠️  Still running at shutdown: " + e.name);
+        }
+        for (Entry e : pools) {
+            try {
+                long left = Math.max(0, deadline - System.currentTimeMillis());
+                if (!e.pool.awaitTermination(left, TimeUnit.MILLISECONDS)) {
+                    int dropped = e.pool.shutdownNow().size();
+                    System.err.println("⚠️  " + e.name + " still busy at the deadline, interrupted (" + dropped
+                            + " queued tasks dropped)");
+                }
+            } catch (InterruptedException ie) {
+                e.pool.shutdownNow();
+            }
+        }
+
+        List<Entry> flush = new ArrayList<>(steps);
+        Collections.reverse(flush);
+        for (Entry e : flush) {
+            try {
+                e.step.run();
+            } catch (Exception ex) {
+                System.err.println("⚠️  Shutdown step '" + e.name + "' failed: " + ex.getMessage());
+            }
+        }
+        System.out.println("🛑 Shutdown complete");
+    }
+
+    // Tests run several shutdowns in one JVM
+    static void reset() {
+        stopping.set(false);
+        work.clear();
+        pools.clear();
+        steps.clear();
+    }
+}
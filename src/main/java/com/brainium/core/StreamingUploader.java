@@ -0,0 +1,207 @@
+package com.brainium.core;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Combined scrape-and-upload mode: the extractor publishes each finished player
+ * onto a bounded queue and a consumer thread batches and sends them through
+ * {@link BatchUploader} while scraping continues, instead of re-reading
+ * recent_swedish_players_data.json afterwards.
+ *
+ * A full queue slows the scraper down rather than growing memory
+ * (UPLOAD_QUEUE_CAPACITY, default 1000 players). A partial batch is sent once
+ * no new player has arrived for UPLOAD_LINGER_MS (default 2000 ms).
+ */
+public class StreamingUploader implements AutoCloseable {
+
+    static final int QUEUE_CAPACITY = System.getenv("UPLOAD_QUEUE_CAPACITY") != null
+            ? Integer.parseInt(System.getenv("UPLOAD_QUEUE_CAPACITY"))
+            : 1000;
+    static final long LINGER_MS = System.getenv("UPLOAD_LINGER_MS") != null
+            ? Long.parseLong(System.getenv("UPLOAD_LINGER_MS"))
+            : 2000;
+
+    // Marks the end of the stream; compared by identity
+    private static final UploadRecord END = new UploadRecord(null, null, new byte[0]);
+
+    private final BlockingQueue<UploadRecord> queue;
+    private final BatchUploader uploader;
+    private final AdaptiveBatchSizer sizer;
+    private final UploadLedger ledger;
+    private final boolean force;
+    private final long lingerMs;
+    private final Thread consumer;
+    private volatile Throwable consumerError;
+    private boolean finished = false;
+
+    // Players queued; publish() runs on the producers' threads
+    public final AtomicInteger published = new AtomicInteger();
+    // Counters written by the consumer thread; read them after finish()
+    public int skippedUnchanged = 0;
+    public int batches = 0;
+
+    public StreamingUploader(HttpClient httpClient, String url, int maxInFlight, AdaptiveBatchSizer sizer,
+            UploadLedger ledger, boolean force, int capacity, long lingerMs) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.sizer = sizer;
+        this.ledger = ledger;
+        this.force = force;
+        this.lingerMs = lingerMs;
+        this.uploader = new BatchUploader(httpClient, url, maxInFlight, sizer, ledger);
+        this.consumer = new Thread(this::consume, "upload-consumer");
+        consumer.start();
+    }
+
+    /**
+     * Uploader configured like {@link ApiUploader} (endpoint, in-flight limit,
+     * adaptive sizing and ledger).
+     */
+    public static StreamingUploader start() throws IOException {
+        UploadLedger ledger = UploadLedger.open(Path.of(ApiUploader.LEDGER_FILE));
+        System.out.println("📤 Streaming upload enabled: " + ApiUploader.FULL_URL + " (queue " + QUEUE_CAPACITY
+                + ", " + ApiUploader.UPLOAD_IN_FLIGHT + " in flight, ledger " + ledger.size() + " players)");
+        return new StreamingUploader(ApiUploader.httpClient, ApiUploader.FULL_URL, ApiUploader.UPLOAD_IN_FLIGHT,
+                AdaptiveBatchSizer.fromEnv(ApiUploader.MAX_BATCH_PLAYERS), ledger, ApiUploader.FORCE_UPLOAD,
+                QUEUE_CAPACITY, LINGER_MS);
+    }
+
+    /**
+     * Queues one player, waiting while the queue is full. Returns false (and
+     * drops the player) if the consumer has died; the player is still in the
+     * data file for a later ApiUploader run.
+     */
+    public boolean publish(UploadRecord player) throws InterruptedException {
+        while (consumer.isAlive()) {
+            if (queue.offer(player, 1, TimeUnit.SECONDS)) {
+                published.incrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Ends the stream, waits until every queued player has been sent and
+     * accounted for, and writes failed player URLs like ApiUploader does.
+     *
+     * @return true if every batch was accepted
+     */
+    public boolean finish() throws InterruptedException {
+        if (!finished) {
+            finished = true;
+            while (consumer.isAlive() && !queue.offer(END, 1, TimeUnit.SECONDS)) {
+                // consumer is still draining a full queue
+            }
+            consumer.join();
+            closeLedger();
+            ApiUploader.writeFailedUrls(uploader.failedPlayerUrls);
+            System.out.println("\n📊 STREAMING UPLOAD SUMMARY");
+            System.out.println("   Players published: " + published.get());
+            System.out.println("   ⏭️  Unchanged since last accepted upload (skipped): " + skippedUnchanged);
+            System.out.println("   🚫 Rejected by upload schema (not sent): " + uploader.rejectedPlayers);
+            System.out.println("   Batches: " + batches + " (✅ " + uploader.successfulBatches + ", ❌ "
+                    + uploader.failedBatches + ")");
+            if (!uploader.failedBatchNumbers.isEmpty()) {
+                System.out.println("   Failed batch numbers: " + String.join(", ", uploader.failedBatchNumbers));
+            }
+        }
+        if (consumerError != null) {
+            System.err.println("❌ Streaming upload stopped: " + consumerError);
+            return false;
+        }
+        return uploader.failedBatches == 0 && uploader.rejectedPlayers == 0;
+    }
+
+    public int successfulBatches() {
+        return uploader.successfulBatches;
+    }
+
+    public int failedBatches() {
+        return uploader.failedBatches;
+    }
+
+    private void consume() {
+        List<UploadRecord> batch = new ArrayList<>();
+        long batchBytes = BatchUploader.BatchBuffer.OVERHEAD;
+        UploadRecord next = null; // player that didn't fit the previous batch
+        boolean ended = false;
+        try {
+            while (true) {
+                // Halves of a rejected (422) batch go out before new players
+                if (uploader.resubmitNextSplit()) {
+                    continue;
+                }
+                if (next == null) next = uploader.pollRequeued();
+                if (next == null && !ended) {
+                    next = queue.poll(lingerMs, TimeUnit.MILLISECONDS);
+                    if (next == END) {
+                        ended = true;
+                        next = null;
+                    } else if (next != null && !next.isValid()) {
+                        uploader.rejectLocally(next);
+                        next = null;
+                        continue;
+                    } else if (next != null && !force && ledger != null && ledger.isUnchanged(next)) {
+                        skippedUnchanged++;
+                        next = null;
+                        continue;
+                    }
+                }
+
+                if (next != null && sizer.fits(batch.size(), batchBytes, next.json.length)) {
+                    batch.add(next);
+                    batchBytes += next.json.length + 1;
+                    next = null;
+                    continue;
+                }
+                // Batch is full, the producer went quiet, or the stream ended: send what we have
+                if (!batch.isEmpty()) {
+                    uploader.submit(batches++, batch);
+                    batch.clear();
+                    batchBytes = BatchUploader.BatchBuffer.OVERHEAD;
+                    if (uploader.maxInFlight() == 1) {
+                        uploader.awaitAll();
+                    }
+                    continue;
+                }
+                if (next == null && uploader.hasInFlight() && (ended || queue.isEmpty())) {
+                    // Nothing to send: collect responses, which may hand back players or halves
+                    uploader.awaitAll();
+                    continue;
+                }
+                if (ended && next == null && !uploader.hasInFlight()) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            consumerError = e;
+        } catch (RuntimeException e) {
+            consumerError = e;
+        } finally {
+            uploader.awaitAll();
+        }
+    }
+
+    private void closeLedger() {
+        if (ledger == null) return;
+        try {
+            ledger.close();
+        } catch (IOException e) {
+            System.err.println("⚠️  Warning: Could not close upload ledger: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        finish();
+    }
+}
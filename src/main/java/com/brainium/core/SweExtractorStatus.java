@@ -1,130 +1,236 @@
 package com.brainium.core;
 
+import com.brainium.data.LongHashSet;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
  * Tracks progress for SwedishPlayersExtractor to enable resume functionality.
+ * Every change is appended as one small record to swedish_extractor_status.log;
+ * the full status is only rewritten (to swedish_extractor_status.json) when the
+ * log is compacted or {@link #save()} is called.
  */
 public class SweExtractorStatus {
     // Teams that have been fully processed
     public Set<String> processedTeams = new HashSet<>();
-    
-    // Players that have been fully scraped and saved
-    public Set<String> scrapedPlayerIds = new HashSet<>();
-    
+
+    // Players that have been fully scraped and saved (numeric player ids)
+    public LongHashSet scrapedPlayerIds = new LongHashSet();
+
     // Current page number in pagination
     public int currentPage = 1;
-    
+
     // Last team URL being processed (for mid-team resume)
     public String currentTeam = null;
-    
+
     // Timestamp of last update
     public long lastUpdate = System.currentTimeMillis();
-    
+
     private static final String STATUS_FILE = "swedish_extractor_status.json";
+    private static final String STATUS_LOG = "swedish_extractor_status.log";
+    // Compact the log into a fresh snapshot after this many records
+    private static final int COMPACT_EVERY = 500;
     private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
-    
+
+    private transient CheckpointLog log;
+
+    private static CheckpointLog openLog() {
+        return new CheckpointLog(Path.of(STATUS_FILE), Path.of(STATUS_LOG), COMPACT_EVERY);
+    }
+
     /**
-     * Load status from file, or return new status if file doesn't exist.
+     * Load status from the snapshot plus any logged events, or return new status
+     * if neither exists.
      */
     public static SweExtractorStatus load() {
-        Path statusPath = Path.of(STATUS_FILE);
-        if (Files.exists(statusPath)) {
-            try {
-                String json = Files.readString(statusPath, StandardCharsets.UTF_8);
-                SweExtractorStatus status = gson.fromJson(json, SweExtractorStatus.class);
-                System.out.println("📂 Resuming from previous run:");
-                System.out.println("   - Processed teams: " + status.processedTeams.size());
-                System.out.println("   - Scraped players: " + status.scrapedPlayerIds.size());
-                System.out.println("   - Current page: " + status.currentPage);
-                if (status.currentTeam != null) {
-                    System.out.println("   - Current team: " + status.currentTeam);
-                }
-                return status;
-            } catch (Exception e) {
-                System.err.println("⚠️  Failed to load status file, starting fresh: " + e.getMessage());
+        CheckpointLog log = openLog();
+        SweExtractorStatus status = new SweExtractorStatus();
+        status.log = log;
+        String json = null;
+        try {
+            json = log.readSnapshot();
+        } catch (Exception e) {
+            System.err.println("⚠️  Failed to load status file, starting fresh: " + e.getMessage());
+        }
+        List<JsonObject> records = List.of();
+        try {
+            records = log.readRecords();
+        } catch (Exception e) {
+            System.err.println("⚠️  Failed to replay status log: " + e.getMessage());
+        }
+        status.loadFrom(json, records);
+        int replayed = records.size();
+
+        if (status.processedTeams.isEmpty() && status.scrapedPlayerIds.isEmpty() && replayed == 0
+                && status.currentTeam == null) {
+            System.out.println("🆕 Starting fresh extraction (no previous status found)");
+            return status;
+        }
+        System.out.println("📂 Resuming from previous run:");
+        System.out.println("   - Processed teams: " + status.processedTeams.size());
+        System.out.println("   - Scraped players: " + status.scrapedPlayerIds.size());
+        System.out.println("   - Current page: " + status.currentPage);
+        if (status.currentTeam != null) {
+            System.out.println("   - Current team: " + status.currentTeam);
+        }
+        if (replayed > 0) {
+            System.out.println("   - Replayed log records: " + replayed);
+        }
+        return status;
+    }
+
+    /**
+     * Replaces this status with a snapshot plus the events logged after it.
+     */
+    private void loadFrom(String json, List<JsonObject> records) {
+        SweExtractorStatus snapshot = null;
+        try {
+            if (json != null) {
+                snapshot = gson.fromJson(json, SweExtractorStatus.class);
             }
+        } catch (Exception e) {
+            System.err.println("⚠️  Failed to load status file, starting fresh: " + e.getMessage());
+        }
+        if (snapshot == null) {
+            snapshot = new SweExtractorStatus();
+        }
+        processedTeams = snapshot.processedTeams;
+        scrapedPlayerIds = snapshot.scrapedPlayerIds;
+        currentPage = snapshot.currentPage;
+        currentTeam = snapshot.currentTeam;
+        for (JsonObject record : records) {
+            apply(record);
         }
-        System.out.println("🆕 Starting fresh extraction (no previous status found)");
-        return new SweExtractorStatus();
     }
-    
+
     /**
-     * Save current status to file.
+     * Write a full snapshot of the status and truncate the event log. Other
+     * workers may share the log, so the snapshot is rebuilt from the files
+     * (which hold this process's events too) under the log's lock.
      */
-    public void save() {
+    public synchronized void save() {
         try {
-            this.lastUpdate = System.currentTimeMillis();
-            String json = gson.toJson(this);
-            Files.writeString(Path.of(STATUS_FILE), json, StandardCharsets.UTF_8);
+            log().compact((json, records) -> {
+                loadFrom(json, records);
+                this.lastUpdate = System.currentTimeMillis();
+                return gson.toJson(this);
+            });
         } catch (IOException e) {
             System.err.println("⚠️  Failed to save status: " + e.getMessage());
         }
     }
-    
+
+    /**
+     * Append one event to the log, compacting when enough have accumulated.
+     */
+    private void record(String op, String key, Object value) {
+        JsonObject record = new JsonObject();
+        record.addProperty("op", op);
+        if (value instanceof Number) {
+            record.addProperty(key, (Number) value);
+        } else {
+            record.addProperty(key, (String) value);
+        }
+        try {
+            if (log().append(record)) {
+                save();
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️  Failed to append status record: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Re-apply a logged event. All events are idempotent.
+     */
+    private void apply(JsonObject record) {
+        String op = record.has("op") ? record.get("op").getAsString() : "";
+        switch (op) {
+            case "team":
+                processedTeams.add(record.get("url").getAsString());
+                currentTeam = null;
+                break;
+            case "current":
+                currentTeam = record.get("url").getAsString();
+                break;
+            case "player":
+                scrapedPlayerIds.add(record.get("id").getAsLong());
+                break;
+            case "page":
+                currentPage = record.get("page").getAsInt();
+                break;
+            default:
+                System.err.println("⚠️  Unknown status record: " + record);
+        }
+    }
+
+    private CheckpointLog log() {
+        if (log == null) {
+            log = openLog();
+        }
+        return log;
+    }
+
     /**
      * Mark a team as fully processed.
      */
-    public void markTeamProcessed(String teamUrl) {
+    public synchronized void markTeamProcessed(String teamUrl) {
         processedTeams.add(teamUrl);
         currentTeam = null;
-        save();
+        record("team", "url", teamUrl);
     }
-    
+
     /**
      * Mark current team being processed.
      */
-    public void setCurrentTeam(String teamUrl) {
+    public synchronized void setCurrentTeam(String teamUrl) {
         currentTeam = teamUrl;
-        save();
+        record("current", "url", teamUrl);
     }
-    
+
     /**
      * Mark a player as scraped.
      */
-    public void markPlayerScraped(String playerId) {
-        scrapedPlayerIds.add(playerId);
-        // Save every 10 players to avoid too frequent I/O
-        if (scrapedPlayerIds.size() % 10 == 0) {
-            save();
+    public synchronized void markPlayerScraped(long playerId) {
+        if (scrapedPlayerIds.add(playerId)) {
+            record("player", "id", playerId);
         }
     }
-    
+
     /**
      * Update current page number.
      */
-    public void setCurrentPage(int page) {
+    public synchronized void setCurrentPage(int page) {
         currentPage = page;
-        save();
+        record("page", "page", page);
     }
-    
+
     /**
      * Check if a team has been processed.
      */
-    public boolean isTeamProcessed(String teamUrl) {
+    public synchronized boolean isTeamProcessed(String teamUrl) {
         return processedTeams.contains(teamUrl);
     }
-    
+
     /**
      * Check if a player has been scraped.
      */
-    public boolean isPlayerScraped(String playerId) {
+    public synchronized boolean isPlayerScraped(long playerId) {
         return scrapedPlayerIds.contains(playerId);
     }
-    
+
     /**
      * Reset/clear status (useful for starting completely fresh).
      */
     public static void reset() {
         try {
-            Files.deleteIfExists(Path.of(STATUS_FILE));
+            openLog().delete();
             System.out.println("[INFO] Status file deleted, will start fresh");
         } catch (IOException e) {
             System.err.println("Failed to delete status file: " + e.getMessage());
@@ -19,6 +19,11 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.time.format.DateTimeFormatter;
 import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jsoup.Connection;
 import org.jsoup.Jsoup;
@@ -26,6 +31,10 @@ import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 
+import com.brainium.data.LongObjectHashMap;
+import com.brainium.data.ProfileStore;
+import com.brainium.data.SegmentedProfileLog;
+import com.brainium.schema.CompactPlayerProfile;
 import com.brainium.schema.PlayerProfile;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -42,7 +51,7 @@ import java.util.LinkedHashMap;
  */
 public class SwedishPlayersExtractor {
 
-    private static final String DEFAULT_GAMES_URL = System.getenv("GAMES_URL") != null
+    static final String DEFAULT_GAMES_URL = System.getenv("GAMES_URL") != null
             ? System.getenv("GAMES_URL")
             : "https://www.eliteprospects.com/games/2025-2026/all-leagues/all-teams";
 
@@ -55,270 +64,170 @@ public class SwedishPlayersExtractor {
 
     private static final String BASE = "https://www.eliteprospects.com";
 
+    // Long-lived compressed profile history (not removed by the daily cleanup)
+    private static final String PROFILE_LOG_DIR = System.getenv("PROFILE_LOG_DIR") != null
+            ? System.getenv("PROFILE_LOG_DIR")
+            : "profile_log";
+    private static final long PROFILE_LOG_SEGMENT_BYTES = System.getenv("PROFILE_LOG_SEGMENT_BYTES") != null
+            ? Long.parseLong(System.getenv("PROFILE_LOG_SEGMENT_BYTES"))
+            : SegmentedProfileLog.DEFAULT_SEGMENT_BYTES;
+
     private static final Pattern PLAYER_ID_PATTERN = Pattern.compile("/player(?:\\.php\\?player=|/)(\\d+)");
 
     // Store cookies obtained from initial fetch or login so subsequent requests
     // reuse them
-    private static final Map<String, String> cookiesStore = new HashMap<>();
+    private static final Map<String, String> cookiesStore = new ConcurrentHashMap<>(); // shared with the backfill pool
+
+    // Combined run (--upload or STREAM_UPLOAD=true): exported players are also handed to this uploader
+    private static StreamingUploader liveUpload;
+
+    // API login tokens are reused by later runs in the same JVM (daemon mode) while younger than this
+    private static final long TOKEN_TTL_MS = (System.getenv("EP_TOKEN_TTL_HOURS") != null
+            ? Long.parseLong(System.getenv("EP_TOKEN_TTL_HOURS"))
+            : 12) * 3600_000L;
+    private static long tokensObtainedAt = 0;
+
+    // Failed profiles are retried on this many threads; at the end of a run the
+    // extractor waits this long for retries that are about to come due
+    private static final int RETRY_THREADS = System.getenv("RETRY_THREADS") != null
+            ? Integer.parseInt(System.getenv("RETRY_THREADS"))
+            : 4;
+    private static final long RETRY_WAIT_MS = System.getenv("RETRY_WAIT_MS") != null
+            ? Long.parseLong(System.getenv("RETRY_WAIT_MS"))
+            : 120_000;
+    // Players currently on the retry pool
+    private static final Set<Long> retrying = ConcurrentHashMap.newKeySet();
 
     public static void main(String[] args) {
-        String gamesUrl = args != null && args.length > 0 ? args[0] : DEFAULT_GAMES_URL;
-        System.out.println("Starting SwedishPlayersExtractor for: " + gamesUrl);
+        ShutdownCoordinator.install();
+        String gamesUrl = DEFAULT_GAMES_URL;
+        boolean streamUpload = Boolean.parseBoolean(System.getenv("STREAM_UPLOAD"));
+        // Backfill: --from=2026-01-10 [--to=2026-01-12] scrapes every day in the range (--to defaults to yesterday)
+        LocalDate from = null;
+        LocalDate to = null;
+        if (args != null) {
+            for (String arg : args) {
+                if ("--upload".equals(arg)) {
+                    streamUpload = true;
+                } else if (arg.startsWith("--from=")) {
+                    from = LocalDate.parse(arg.substring("--from=".length()));
+                } else if (arg.startsWith("--to=")) {
+                    to = LocalDate.parse(arg.substring("--to=".length()));
+                } else if (!arg.isBlank()) {
+                    gamesUrl = arg;
+                }
+            }
+        }
+        // Extraction errors are logged and the partial data file is still uploaded; only upload failures set the exit code
+        if (from == null && to != null) {
+            from = to;
+        }
+        if (run(gamesUrl, from, to, streamUpload) == 2) {
+            System.exit(2);
+        }
+    }
+
+    public static int run(boolean streamUpload) {
+        return run(DEFAULT_GAMES_URL, streamUpload);
+    }
+
+    /**
+     * One extraction run (also used by the daemon, which keeps this JVM and its
+     * login tokens between runs).
+     *
+     * @param streamUpload upload players while scraping (see {@link StreamingUploader})
+     * @return 0 on success, 1 if extraction stopped with an error, 2 if the streaming upload had failures
+     */
+    public static int run(String gamesUrl, boolean streamUpload) {
+        return run(gamesUrl, null, null, streamUpload);
+    }
+
+    /**
+     * Extraction run over the games played from {@code from} to {@code to}
+     * (inclusive; {@code to} null means yesterday), or yesterday only when
+     * {@code from} is null. Days are looked up through {@link GamesCalendarIndex};
+     * yesterday falls back to the page-by-page walk if the index finds no games.
+     */
+    public static int run(String gamesUrl, LocalDate from, LocalDate to, boolean streamUpload) {
+        System.out.println("Starting SwedishPlayersExtractor for: " + gamesUrl
+                + (from != null ? " (" + from + " … " + (to != null ? to : "yesterday") + ")" : ""));
+        boolean uploadOk = true;
+        boolean extractionOk = true;
 
         // Load status for resume functionality
         SweExtractorStatus status = SweExtractorStatus.load();
-
-        // Map of playerId -> slug (username)
-        Map<String, String> idToSlug = new HashMap<>();
-        // Map of playerId -> fullUrl
-        Map<String, String> idToUrl = new HashMap<>();
+        // On SIGTERM: stop discovering and scraping, keep what's done (see ShutdownCoordinator)
+        ShutdownCoordinator.Registration running = ShutdownCoordinator.beginWork("extraction run");
+        ShutdownCoordinator.Registration flushStatus = ShutdownCoordinator.onShutdown("extractor status", status::save);
+
+        // Map of playerId -> slug (username); profile URLs are derived via playerUrl(id, slug)
+        LongObjectHashMap<String> idToSlug = new LongObjectHashMap<>();
+        // Profiles scraped in this run (dictionary-interned), reused for output.csv and the encoded export
+        ProfileStore store = new ProfileStore();
         Gson gson = new GsonBuilder().serializeNulls().create();
+        RetryQueue retries = null;
+        ExecutorService retryPool = null;
+        SegmentedProfileLog history = null;
+        ScrapeHistory scrapeHistory = null;
 
         try {
-            // --- LOGIN AND GET FRESH TOKENS ---
-            String email = System.getenv("EP_EMAIL");
-            String password = System.getenv("EP_PASSWORD");
-            boolean loginSuccess = false;
-            
-            if (email != null && password != null) {
-                try {
-                    System.out.println("Logging in to get fresh authentication tokens...");
-                    JsonObject loginResp = EliteProspectsAPI.loginAndGetTokens(email, password);
-                    String token = loginResp.has("token") ? loginResp.get("token").getAsString() : null;
-                    String streamToken = loginResp.has("streamToken") ? loginResp.get("streamToken").getAsString() : null;
-                    
-                    // Store fresh cookies in cookiesStore
-                    if (token != null) {
-                        cookiesStore.put("ep_next_token", token);
-                    }
-                    if (streamToken != null) {
-                        cookiesStore.put("streamToken", streamToken);
-                    }
-                    System.out.println("✓ Fresh authentication tokens obtained successfully!");
-                    loginSuccess = true;
-                } catch (Exception e) {
-                    System.err.println("Warning: Failed to get fresh tokens via API login: " + e.getMessage());
-                    System.err.println("Falling back to EP_COOKIE_HEADER environment variable...");
-                }
-            }
-            
-            // If API login failed or credentials not set, try to use EP_COOKIE_HEADER
-            if (!loginSuccess && COOKIE_HEADER != null && !COOKIE_HEADER.isEmpty()) {
-                System.out.println("Using fresh cookies from EP_COOKIE_HEADER environment variable...");
-                // Parse cookies from COOKIE_HEADER format (e.g., "cookie1=value1; cookie2=value2")
-                String[] cookiePairs = COOKIE_HEADER.split(";");
-                for (String pair : cookiePairs) {
-                    pair = pair.trim();
-                    if (!pair.isEmpty() && pair.contains("=")) {
-                        String[] parts = pair.split("=", 2);
-                        if (parts.length == 2) {
-                            cookiesStore.put(parts[0].trim(), parts[1].trim());
-                        }
-                    }
-                }
-                System.out.println("✓ Fresh cookies loaded from environment variable!");
-            } else if (!loginSuccess) {
-                System.out.println("Note: No fresh credentials available. Will attempt anonymous fetch for basic cookies.");
+            if (streamUpload) {
+                liveUpload = StreamingUploader.start();
             }
 
+            authenticate();
+
             System.out.println("\n🚀 Starting extraction from games page...\n");
             // compute yesterday in UTC (site uses UTC timestamps like
             // 2026-02-02T12:00:00+00:00)
-            LocalDate targetDate = LocalDate.now(ZoneOffset.UTC).minusDays(1);
-            // also compute a display text like "February 2" to match the visible td text
-            DateTimeFormatter displayFmt = DateTimeFormatter.ofPattern("MMMM d", Locale.ENGLISH);
-            String displayTarget = targetDate.format(displayFmt);
-
-            // Pagination loop: start from the provided gamesUrl and follow "Next" links
-            String pageUrl = gamesUrl;
-            Set<String> teamUrls = new LinkedHashSet<>();
-            boolean sawHeaderOnce = false;
-            int pageCount = 0;
-            final int MAX_PAGES = 20; // safety cap to avoid infinite loops
-
-            while (pageUrl != null && pageCount < MAX_PAGES) {
-                pageCount++;
-                status.setCurrentPage(pageCount);
-                Document pageDoc = fetchDocument(pageUrl);
-
-                // Find date header row that corresponds to "yesterday" by parsing the
-                // `data-date` attr.
-                Elements dateHeaders = pageDoc.select("tr.title:has(td[data-action=transform-to-local-date])");
-                if (dateHeaders.isEmpty()) {
-                    System.out.println("No date header rows found on games page: " + pageUrl);
-                    break;
+            LocalDate targetDate = to != null ? to : LocalDate.now(ZoneOffset.UTC).minusDays(1);
+
+            Set<String> teamUrls;
+            // Backfill only: last day in the window each team played, and its Swedish players
+            Map<String, LocalDate> teamPlayedOn = null;
+            Map<String, long[]> rosterIds = new HashMap<>();
+            // Day → pages / games / teams from earlier runs, so the listing isn't walked from page 1
+            GamesCalendarIndex calendar = GamesCalendarIndex.open(Path.of(GamesCalendarIndex.FILE), gamesUrl);
+            LocalDate today = LocalDate.now(ZoneOffset.UTC);
+            if (from == null) {
+                teamUrls = new LinkedHashSet<>();
+                try {
+                    teamUrls.addAll(calendar.teams(targetDate, targetDate, today).keySet());
+                } catch (IOException e) {
+                    System.err.println("⚠️  Calendar index lookup failed, walking the listing: " + e.getMessage());
                 }
-
-                Element yesterdayHeader = null;
-                for (Element header : dateHeaders) {
-                    Element td = header.selectFirst("td[data-date]");
-                    boolean matched = false;
-                    if (td != null) {
-                        String dataDate = td.attr("data-date");
-                        try {
-                            OffsetDateTime odt = OffsetDateTime.parse(dataDate);
-                            if (odt.toLocalDate().equals(targetDate)) {
-                                yesterdayHeader = header;
-                                matched = true;
-                                break;
-                            }
-                        } catch (Exception ex) {
-                            // ignore parse errors and continue
-                        }
-                        // try matching by displayed text inside the td as a fallback
-                        String tdText = td.text() != null ? td.text().trim() : "";
-                        if (!matched && tdText.contains(displayTarget)) {
-                            yesterdayHeader = header;
-                            break;
-                        }
+                if (teamUrls.isEmpty()) {
+                    teamUrls = collectGameDayTeams(gamesUrl, targetDate, status);
+                }
+                for (String full : teamUrls) {
+                    if (ShutdownCoordinator.isStopping()) break;
+                    if (!status.isTeamProcessed(full)) {
+                        status.setCurrentTeam(full);
+                        collectFromTeam(full, idToSlug, true);
+                        status.markTeamProcessed(full);
                     } else {
-                        // header without data-date: try matching header text
-                        String headerText = header.text() != null ? header.text().trim() : "";
-                        if (headerText.contains(displayTarget)) {
-                            yesterdayHeader = header;
-                            break;
-                        }
+                        System.out.println("  ⏭️  Skipping already processed team: " + full);
                     }
                 }
-
-                if (yesterdayHeader == null) {
-                    if (!sawHeaderOnce) {
-                        // fallback on first page only
-                        yesterdayHeader = dateHeaders.last();
-                        System.out.println("No exact match for yesterday (" + displayTarget
-                                + "); falling back to last date header on page: " + yesterdayHeader.text());
+            } else {
+                teamPlayedOn = calendar.teams(from, targetDate, today);
+                teamUrls = new LinkedHashSet<>(teamPlayedOn.keySet());
+                List<String> pendingTeams = new ArrayList<>();
+                for (String full : teamUrls) {
+                    if (status.isTeamProcessed(full)) {
+                        System.out.println("  ⏭️  Skipping already processed team: " + full);
                     } else {
-                        // we've seen the header on earlier page(s) and this page doesn't include it;
-                        // stop
-                        break;
+                        pendingTeams.add(full);
                     }
                 }
-
-                List<Element> gameRows = new ArrayList<>();
-
-                if (yesterdayHeader != null) {
-                    sawHeaderOnce = true;
-                    gameRows = getGameRowsForDate(yesterdayHeader);
-                    System.out.println("Page " + pageCount + " (" + pageUrl + ") found " + gameRows.size()
-                            + " game rows for yesterday.");
-                } else if (sawHeaderOnce) {
-                    // We found the header on a previous page, but not this one.
-                    // This implies the date block continues from the top of this page.
-                    // We must collect rows from the top until we hit a NEW date header.
-                    gameRows = collectGamesFromTop(pageDoc);
-                    if (gameRows.isEmpty()) {
-                        System.out.println("No continuation game rows found on page " + pageCount + ". Ending search.");
-                        break;
+                // Rosters are fetched concurrently; players on several teams in the window are kept once
+                for (Map.Entry<String, LongObjectHashMap<String>> e : GamesBackfill.collectRosters(pendingTeams).entrySet()) {
+                    LongObjectHashMap<String> roster = e.getValue();
+                    roster.forEach(idToSlug::putIfAbsent);
+                    rosterIds.put(e.getKey(), roster.keys());
+                    if (!ShutdownCoordinator.isStopping()) {
+                        status.markTeamProcessed(e.getKey());
                     }
-                    System.out.println("Page " + pageCount + " (" + pageUrl + ") found " + gameRows.size()
-                            + " continuation game rows for yesterday.");
-                } else {
-                    // Header not found yet, and not seen before.
-                    System.out.println("Detailed debug: No yesterday header found on page " + pageCount
-                            + " and sawHeaderOnce=false.");
-                    break;
-                }
-
-                if (!gameRows.isEmpty()) {
-
-                    for (Element gameRow : gameRows) {
-                        try {
-                            Elements teamTds = gameRow.select("td.team");
-                            if (teamTds.size() < 2)
-                                continue;
-
-                            Element homeTeamLink = teamTds.get(0).selectFirst("a:nth-of-type(2)");
-                            Element awayTeamLink = teamTds.get(1).selectFirst("a:nth-of-type(2)");
-
-                            if (homeTeamLink != null) {
-                                String href = homeTeamLink.attr("href");
-                                String full = href.startsWith("http") ? href : BASE + href;
-                                teamUrls.add(full);
-                                
-                                if (!status.isTeamProcessed(full)) {
-                                    status.setCurrentTeam(full);
-                                    collectFromTeam(href, idToSlug, idToUrl);
-                                    status.markTeamProcessed(full);
-                                } else {
-                                    System.out.println("  ⏭️  Skipping already processed team: " + full);
-                                }
-                            }
-                            if (awayTeamLink != null) {
-                                String href = awayTeamLink.attr("href");
-                                String full = href.startsWith("http") ? href : BASE + href;
-                                teamUrls.add(full);
-                                
-                                if (!status.isTeamProcessed(full)) {
-                                    status.setCurrentTeam(full);
-                                    collectFromTeam(href, idToSlug, idToUrl);
-                                    status.markTeamProcessed(full);
-                                } else {
-                                    System.out.println("  ⏭️  Skipping already processed team: " + full);
-                                }
-                            }
-                        } catch (Exception e) {
-                            System.err.println("Error processing game row: " + e.getMessage());
-                        }
-                    }
-
-                    // Check if we should continue to next page:
-                    // 1. If the last game row has no next sibling (hit end of page)
-                    // 2. AND there's a "Next" pagination link available
-                    
-                    String nextHref = null;
-                    boolean shouldContinue = false;
-                    
-                    try {
-                        // Check if the last collected game row reached end of page
-                        if (!gameRows.isEmpty()) {
-                            Element lastRow = gameRows.get(gameRows.size() - 1);
-                            Element nextSibling = lastRow.nextElementSibling();
-                            
-                            // Check if next sibling is a different date header (means yesterday's games ended)
-                            boolean hitDifferentDate = (nextSibling != null) && 
-                                                      (nextSibling.hasClass("title") ||
-                                                       nextSibling.selectFirst("td[data-date-type=text]") != null);
-                            
-                            // Only continue to next page if we hit actual page end (null), NOT a different date
-                            if (nextSibling == null) {
-                                // True page end - yesterday's games may continue on next page
-                                Elements pagLinks = pageDoc.select(".table-pagination a");
-                                for (Element a : pagLinks) {
-                                    String t = a.text();
-                                    if (t != null && t.toLowerCase().contains("next")) {
-                                        nextHref = a.absUrl("href");
-                                        if (nextHref == null || nextHref.isEmpty())
-                                            nextHref = a.attr("href");
-                                        if (nextHref != null && !nextHref.isEmpty()) {
-                                            shouldContinue = true;
-                                        }
-                                        break;
-                                    }
-                                }
-                            } else if (hitDifferentDate) {
-                                // Hit a different date - stop immediately
-                                System.out.println("Detected next date header after " + displayTarget + " games. Stopping pagination.");
-                            }
-                        }
-                    } catch (Exception ex) {
-                        System.err.println("Error checking pagination: " + ex.getMessage());
-                    }
-
-                    if (shouldContinue && nextHref != null) {
-                        // Continue to next page to collect more games from yesterday
-                        if (!nextHref.startsWith("http"))
-                            nextHref = BASE + (nextHref.startsWith("/") ? nextHref : "/" + nextHref);
-                        System.out.println("Continuing to next page (" + displayTarget + " games may continue): " + nextHref);
-                        pageUrl = nextHref;
-                        continue;
-                    } else {
-                        // Stop: Either we hit next date header or no more pages
-                        System.out.println("Completed collecting all " + displayTarget + " games.");
-                        break;
-                    }
-                } else {
-                    // No game rows found, stop
-                    break;
                 }
             }
 
@@ -332,14 +241,15 @@ public class SwedishPlayersExtractor {
                 }
             }
 
-            System.out.println("Total unique Swedish players found: " + idToUrl.size());
+            System.out.println("Total unique Swedish players found: " + idToSlug.size());
+            long[] playerIds = idToSlug.keys();
 
             // Persist URLs
             Path urlsOut = Path.of("recent_swedish_players_urls.txt");
             try (BufferedWriter w = Files.newBufferedWriter(urlsOut, StandardCharsets.UTF_8,
                     StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
-                for (String u : idToUrl.values()) {
-                    w.write(u);
+                for (long id : playerIds) {
+                    w.write(playerUrl(id, idToSlug.get(id)));
                     w.newLine();
                 }
             }
@@ -348,11 +258,9 @@ public class SwedishPlayersExtractor {
             Path idsOut = Path.of("recent_swedish_players_ids.txt");
             try (BufferedWriter w2 = Files.newBufferedWriter(idsOut, StandardCharsets.UTF_8,
                     StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
-                for (Map.Entry<String, String> e : idToUrl.entrySet()) {
-                    String id = e.getKey();
-                    String url = e.getValue();
+                for (long id : playerIds) {
                     String slug = idToSlug.getOrDefault(id, "");
-                    w2.write(id + "," + slug + "," + url);
+                    w2.write(id + "," + slug + "," + playerUrl(id, slug));
                     w2.newLine();
                 }
             }
@@ -374,155 +282,109 @@ public class SwedishPlayersExtractor {
             // 2) JSON array file `recent_swedish_players_data.json` (append-safe helper)
             Path profilesOut = Path.of("recent_swedish_players_profiles.jsonl");
             Path exportOut = Path.of("recent_swedish_players_data.json");
+            Path encodedOut = Path.of("recent_swedish_players_profiles.enc.jsonl");
+            history = openProfileHistory();
+            scrapeHistory = openScrapeHistory();
+            if (scrapeHistory != null) {
+                try {
+                    if (teamPlayedOn == null) {
+                        scrapeHistory.markPlayedOn(playerIds, targetDate);
+                    } else {
+                        for (Map.Entry<String, long[]> e : rosterIds.entrySet()) {
+                            scrapeHistory.markPlayedOn(e.getValue(), teamPlayedOn.get(e.getKey()));
+                        }
+                    }
+                } catch (Exception ex) {
+                    System.err.println("⚠️  Failed to record game dates in " + ScrapeHistory.FILE + ": " + ex.getMessage());
+                }
+            }
 
-            for (Map.Entry<String, String> e : idToUrl.entrySet()) {
-                String playerId = e.getKey();
-                String fullUrl = e.getValue();
+            // Most valuable first: recent games, stale profiles, few past failures (see ProfileWorkQueue)
+            ProfileWorkQueue work = new ProfileWorkQueue(scrapeHistory, targetDate.plusDays(1), System.currentTimeMillis());
+            for (long id : playerIds) {
+                work.add(id);
+            }
+            System.out.println("Scraping " + work.size() + " profiles in priority order");
+
+            // Failed profiles are retried with backoff on a small pool while the crawl goes on
+            RunOutputs outputs = new RunOutputs(profilesOut, exportOut, history, scrapeHistory, status, store);
+            retries = openRetryQueue();
+            retryPool = Executors.newFixedThreadPool(RETRY_THREADS, r -> {
+                Thread t = new Thread(r, "profile-retry");
+                t.setDaemon(true);
+                return t;
+            });
+            ShutdownCoordinator.Registration drainRetryPool = ShutdownCoordinator.drainOnShutdown("retry pool", retryPool);
+
+            while (!work.isEmpty()) {
+                if (ShutdownCoordinator.isStopping()) {
+                    deferUnscraped(work, idToSlug, status, retries);
+                    break;
+                }
+                long id = work.poll();
+                String playerId = String.valueOf(id);
+                String slug = idToSlug.get(id);
+                String fullUrl = playerUrl(id, slug);
                 
-                // Skip if player already scraped
-                if (status.isPlayerScraped(playerId)) {
+                // Skip if player already scraped (or being retried right now)
+                if (status.isPlayerScraped(id) || retrying.contains(id)) {
                     System.out.println("  ⏭️  Skipping already scraped player: " + playerId);
                     continue;
                 }
                 
                 try {
                     PlayerProfile profile = ProfileScapper.getProfile(fullUrl, playerId);
-                    if (profile == null)
+                    if (profile == null) {
+                        ScrapeHistory.recordScrape(scrapeHistory, id, null);
+                        scheduleRetry(retries, id, slug, "profile is null");
                         continue;
-
-                    // Build export object using the shared method
-                    LinkedHashMap<String, Object> obj = buildPlayerObject(profile, playerId, fullUrl, idToSlug);
-                    String objJson = gson.toJson(obj);
-
-                    // Append to JSON-lines file
-                    try {
-                        Files.writeString(profilesOut, objJson + System.lineSeparator(), StandardCharsets.UTF_8,
-                                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
-                    } catch (Exception ex) {
-                        System.err.println("Failed to append profile jsonl for " + fullUrl + " : " + ex.getMessage());
                     }
 
-                    // Append to JSON array file safely
-                    try {
-                        appendObjectToJsonArray(exportOut, objJson);
-                    } catch (Exception ex) {
-                        System.err.println("Failed to append to recent_swedish_players_data.json for " + fullUrl + " : "
-                                + ex.getMessage());
+                    // Build export object using the shared method
+                    CompactPlayerProfile compact = store.put(id, profile);
+                    LinkedHashMap<String, Object> obj = buildPlayerObject(compact, fullUrl, slug);
+                    outputs.persist(id, fullUrl, gson.toJson(obj), profile);
+                    if (retries != null) {
+                        retries.recordSuccess(id); // queued by an earlier run
                     }
 
-                    // Mark player as successfully scraped
-                    status.markPlayerScraped(playerId);
-
                 } catch (Exception ex) {
                     System.err.println("Failed to scrape profile for " + fullUrl + " : " + ex.getMessage());
+                    ScrapeHistory.recordScrape(scrapeHistory, id, null);
+                    scheduleRetry(retries, id, slug, ex.getMessage());
                 }
+                submitDueRetries(retries, retryPool, outputs, gson);
             }
+            drainRetries(retries, retryPool, outputs, gson);
+            drainRetryPool.close();
 
             // Also append rows to the main `output.csv` including the Position JSON column
-            try {
-                Path outCsv = Path.of("output.csv");
-                // write header if needed (keep same header as TableScapper)
-                if (!Files.exists(outCsv)) {
-                    String header = "User ID,Username,Name,Date of Birth,Age,Place of Birth,Nation,Youth Team,latest_team_position,latest_team,seasone,Position,Height,Weight,Shoots,Contract,Player Type,Cap Hit,Cap Hit Image,NHL Rights,Drafted,Highlights,Agency,Relation,Image URL,Skills,Status\n";
-                    Files.writeString(outCsv, header, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
-                            StandardOpenOption.WRITE);
+            Path outCsv = Path.of("output.csv");
+            for (long id : playerIds) {
+                // Only players scraped in this run; reuse the stored profile instead of re-fetching
+                CompactPlayerProfile profile = store.getCompact(id);
+                if (profile == null) {
+                    continue;
                 }
-
-                try (BufferedWriter csvw = Files.newBufferedWriter(outCsv, StandardCharsets.UTF_8,
-                        StandardOpenOption.APPEND)) {
-                    for (Map.Entry<String, String> e2 : idToUrl.entrySet()) {
-                        String playerId = e2.getKey();
-                        String fullUrl = e2.getValue();
-                        
-                        // Skip already scraped players for CSV too
-                        if (status.isPlayerScraped(playerId)) {
-                            continue;
-                        }
-                        
-                        try {
-                            PlayerProfile profile = ProfileScapper.getProfile(fullUrl, playerId);
-                            if (profile == null)
-                                continue;
-
-                            // fetch stats JSON string for CSV
-                            String positionJsonStr = profile.position != null ? profile.position : "";
-                            try {
-                                String statsResponse = EliteProspectsAPI.fetchStatsFromAPI(profile.userId);
-                                positionJsonStr = EliteProspectsAPI.parsePlayerStats(profile.position, statsResponse);
-                            } catch (Exception ex) {
-                                // keep position string
-                            }
-
-                            String playerTypeStr = String.join("; ",
-                                    profile.playerType != null ? profile.playerType : new String[0]);
-                            String highlightsStr = String.join("; ",
-                                    profile.highlights != null ? profile.highlights : new String[0]);
-                            String skillsStr = profile.getSkillsFormatted();
-
-                            // Format latest_team_position similarly
-                            String formattedPosition = "";
-                            if (profile.latest_team_position != null) {
-                                String temp = profile.latest_team_position.trim();
-                                temp = temp.replaceAll("/.*$", "").trim();
-                                if (!temp.isEmpty()) {
-                                    if (!temp.startsWith("#"))
-                                        formattedPosition = "#" + temp;
-                                    else
-                                        formattedPosition = temp;
-                                }
-                            }
-
-                            String[] fields = new String[] {
-                                    escapeForFormat(escapeCSV(profile.userId)),
-                                    escapeForFormat(escapeCSV(profile.userName)),
-                                    escapeForFormat(escapeCSV(profile.name)),
-                                    escapeForFormat(escapeCSV(profile.dateOfBirth)),
-                                    escapeForFormat(escapeCSV(profile.age)),
-                                    escapeForFormat(escapeCSV(profile.placeOfBirth)),
-                                    escapeForFormat(escapeCSV(profile.nation)),
-                                    escapeForFormat(escapeCSV(profile.youthTeam)),
-                                    escapeForFormat(escapeCSV(formattedPosition)),
-                                    escapeForFormat(escapeCSV(profile.latest_team)),
-                                    escapeForFormat(escapeCSV(profile.season)),
-                                    escapeForFormat(escapeCSV(positionJsonStr)),
-                                    escapeForFormat(escapeCSV(profile.height)),
-                                    escapeForFormat(escapeCSV(profile.weight)),
-                                    escapeForFormat(escapeCSV(profile.shoots)),
-                                    escapeForFormat(escapeCSV(profile.contract)),
-                                    escapeForFormat(playerTypeStr),
-                                    escapeForFormat(escapeCSV(profile.capHit)),
-                                    escapeForFormat(escapeCSV(profile.capHitImage)),
-                                    escapeForFormat(escapeCSV(profile.nhlRights)),
-                                    escapeForFormat(escapeCSV(profile.drafted)),
-                                    escapeForFormat(highlightsStr),
-                                    escapeForFormat(escapeCSV(profile.agency)),
-                                    escapeForFormat(escapeCSV(profile.relation)),
-                                    escapeForFormat(escapeCSV(profile.imageUrl)),
-                                    escapeForFormat(skillsStr),
-                                    escapeForFormat(escapeCSV(profile.status))
-                            };
-
-                            StringBuilder row = new StringBuilder();
-                            for (int i = 0; i < fields.length; i++) {
-                                if (i > 0)
-                                    row.append(',');
-                                row.append(fields[i]);
-                            }
-                            row.append('\n');
-                            csvw.write(row.toString());
-
-                        } catch (Exception ex) {
-                            System.err
-                                    .println("Failed to append to output.csv for " + fullUrl + " : " + ex.getMessage());
-                        }
-                    }
+                try {
+                    String positionJsonStr = EliteProspectsAPI.fetchPositionJson(String.valueOf(id), profile.position);
+                    OutputCsv.append(outCsv, TableScapper.csvRow(profile, positionJsonStr));
+                } catch (Exception ex) {
+                    System.err.println("Failed to append to output.csv for " + playerUrl(id, idToSlug.get(id))
+                            + " : " + ex.getMessage());
                 }
+            }
+
+            // Dictionary-encoded copy of this run's profiles (code table in <file>.dict)
+            try {
+                store.writeEncoded(encodedOut);
             } catch (Exception ex) {
-                System.err.println("Failed to write output.csv: " + ex.getMessage());
+                System.err.println("Failed to write " + encodedOut + ": " + ex.getMessage());
             }
 
-            // --- RETRY FAILED PLAYERS ---
-            retryFailedPlayers(status, profilesOut, exportOut, idToSlug);
+            if (liveUpload != null) {
+                uploadOk = liveUpload.finish();
+            }
 
             // Final status save
             status.save();
@@ -531,36 +393,73 @@ public class SwedishPlayersExtractor {
             System.out.println("   - Total players scraped: " + status.scrapedPlayerIds.size());
             System.out.println(
                     "Done. URLs saved to recent_swedish_players_urls.txt, profiles to recent_swedish_players_profiles.jsonl and output.csv updated.");
-            System.out.println("\nTo upload player data to API, run:");
-            System.out.println("    mvn exec:java -Dexec.mainClass=com.brainium.core.ApiUploader");
+            if (liveUpload == null) {
+                System.out.println("\nTo upload player data to API, run:");
+                System.out.println("    mvn exec:java -Dexec.mainClass=com.brainium.core.ApiUploader");
+            }
             
         } catch (Exception e) {
             System.err.println("Error in SwedishPlayersExtractor: " + e.getMessage());
             e.printStackTrace();
+            extractionOk = false;
+        } finally {
+            if (retryPool != null) {
+                retryPool.shutdownNow();
+            }
+            closeRetryQueue(retries);
+            closeHistory(history);
+            closeScrapeHistory(scrapeHistory);
+            flushStatus.close();
+            if (liveUpload != null) {
+                try {
+                    // No-op if already finished; otherwise sends what was published before the error
+                    uploadOk &= liveUpload.finish();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    uploadOk = false;
+                }
+                liveUpload = null;
+            }
+            running.close();
+        }
+        if (!uploadOk) {
+            System.err.println("❌ Streaming upload had failures (see Updated_failed_players.txt)");
+            return 2;
         }
+        return extractionOk ? 0 : 1;
     }
 
     /**
-     * Build player object for JSON export from a PlayerProfile.
+     * Hands an exported player to the streaming uploader in a combined run.
      */
-    private static LinkedHashMap<String, Object> buildPlayerObject(PlayerProfile profile, String playerId, String fullUrl, Map<String, String> idToSlug) {
-        LinkedHashMap<String, Object> obj = new LinkedHashMap<>();
-        Object uid;
+    private static void publishForUpload(String jsonObject) {
+        if (liveUpload == null) return;
         try {
-            uid = Integer.parseInt(profile.userId != null ? profile.userId.trim() : playerId);
-        } catch (Exception ex) {
-            uid = profile.userId != null ? profile.userId : playerId;
+            if (!liveUpload.publish(UploadRecord.fromExportJson(jsonObject))) {
+                System.err.println("⚠️  Upload consumer stopped; player kept in the data file only");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("⚠️  Could not queue player for upload: " + e.getMessage());
         }
-        obj.put("user_id", uid);
+    }
+
+    /**
+     * Build player object for JSON export from a stored profile.
+     */
+    private static LinkedHashMap<String, Object> buildPlayerObject(CompactPlayerProfile profile, String fullUrl, String slug) {
+        LinkedHashMap<String, Object> obj = new LinkedHashMap<>();
+        obj.put("user_id", profile.playerId);
         obj.put("nation", profile.nation);
         obj.put("name", profile.name);
-        obj.put("birthdate", profile.dateOfBirth);
-        obj.put("latest_team", profile.latest_team);
+        obj.put("birthdate", profile.dateOfBirthText());
+        obj.put("latest_team", profile.latestTeam);
         obj.put("profile_link", fullUrl);
         obj.put("player_username",
-                profile.userName != null ? profile.userName : idToSlug.getOrDefault(playerId, ""));
-        obj.put("dob_profile", profile.dateOfBirth);
-        obj.put("age", profile.age);
+                profile.userName != null ? profile.userName : (slug != null ? slug : ""));
+        obj.put("dob_profile", profile.dateOfBirthText());
+        obj.put("age", profile.ageText());
         
         // Replace dashes with empty strings for API compatibility (API rejects "-")
         String placeOfBirth = profile.placeOfBirth != null && !profile.placeOfBirth.equals("-") 
@@ -579,7 +478,7 @@ public class SwedishPlayersExtractor {
         // position: try to attach parsed stats JSON if available, otherwise position string
         String positionRaw = profile.position != null ? profile.position : "";
         try {
-            String statsResponse = EliteProspectsAPI.fetchStatsFromAPI(profile.userId);
+            String statsResponse = EliteProspectsAPI.fetchStatsFromAPI(String.valueOf(profile.playerId));
             String parsed = EliteProspectsAPI.parsePlayerStats(profile.position, statsResponse);
             // Send position as string (not parsed JSON object)
             obj.put("position", parsed);
@@ -587,8 +486,8 @@ public class SwedishPlayersExtractor {
             obj.put("position", positionRaw);
         }
 
-        obj.put("height", profile.height);
-        obj.put("weight", profile.weight);
+        obj.put("height", profile.heightText());
+        obj.put("weight", profile.weightText());
         
         // Always include shoots field (actual value or empty string)
         String shoots = profile.shoots;
@@ -606,10 +505,10 @@ public class SwedishPlayersExtractor {
         }
         obj.put("player_type", playerTypeStr);
         
-        obj.put("cap_hit", profile.capHit);
+        obj.put("cap_hit", profile.capHitText());
         obj.put("cap_hit_image", profile.capHitImage);
         obj.put("nhl_rights", profile.nhlRights);
-        obj.put("drafted", profile.drafted);
+        obj.put("drafted", profile.draftedText());
         obj.put("agency", profile.agency);
         obj.put("profile_picture", profile.imageUrl);
         obj.put("relation", profile.relation);
@@ -636,126 +535,514 @@ public class SwedishPlayersExtractor {
         // Award as string (same as highlights)
         obj.put("award", highlightsStr);
         
-        obj.put("latest_team_position", profile.latest_team_position);
+        obj.put("latest_team_position", profile.latestTeamPosition);
         obj.put("season", profile.season);
 
         return obj;
     }
 
     /**
-     * Retry failed players from failed_players.txt file.
-     * Format: playerId,playerUserName,position,timestamp,errorMessage
+     * Opens the scrape history, or returns null (profiles are then scraped in discovery order).
      */
-    private static void retryFailedPlayers(SweExtractorStatus status, Path profilesOut, Path exportOut, Map<String, String> idToSlug) {
-        Path failedFile = Path.of("failed_players.txt");
-        if (!Files.exists(failedFile)) {
-            System.out.println("\n[INFO] No failed_players.txt found, skipping retry.");
-            return;
+    private static ScrapeHistory openScrapeHistory() {
+        try {
+            return ScrapeHistory.open(Path.of(ScrapeHistory.FILE));
+        } catch (Exception ex) {
+            System.err.println("⚠️  Failed to open scrape history " + ScrapeHistory.FILE + ": " + ex.getMessage());
+            return null;
         }
+    }
 
-        System.out.println("\n========================================");
-        System.out.println("🔄 RETRYING FAILED PLAYERS");
-        System.out.println("========================================");
+    private static void closeScrapeHistory(ScrapeHistory scrapeHistory) {
+        if (scrapeHistory == null) return;
+        try {
+            scrapeHistory.close();
+        } catch (Exception ex) {
+            System.err.println("⚠️  Failed to close scrape history: " + ex.getMessage());
+        }
+    }
 
+    /**
+     * Opens the segmented profile history, or returns null (history is best-effort).
+     */
+    private static SegmentedProfileLog openProfileHistory() {
         try {
-            List<String> lines = Files.readAllLines(failedFile, StandardCharsets.UTF_8);
-            if (lines.isEmpty()) {
-                System.out.println("[INFO] failed_players.txt is empty, nothing to retry.");
-                return;
+            return SegmentedProfileLog.open(Path.of(PROFILE_LOG_DIR), PROFILE_LOG_SEGMENT_BYTES);
+        } catch (Exception ex) {
+            System.err.println("⚠️  Failed to open profile history in " + PROFILE_LOG_DIR + ": " + ex.getMessage());
+            return null;
+        }
+    }
+
+    private static void appendToHistory(SegmentedProfileLog history, long id, String objJson) {
+        if (history == null) return;
+        try {
+            history.append(id, objJson);
+        } catch (Exception ex) {
+            System.err.println("Failed to append profile history for " + id + " : " + ex.getMessage());
+        }
+    }
+
+    private static void closeHistory(SegmentedProfileLog history) {
+        if (history == null) return;
+        try {
+            history.close();
+            System.out.println("📚 Profile history: " + history.size() + " players in " + PROFILE_LOG_DIR + "/");
+        } catch (Exception ex) {
+            System.err.println("Failed to close profile history: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Where a scraped profile goes in this run. Shared by the crawl loop and the
+     * retry pool, so writes to the run files are serialized here.
+     */
+    private static final class RunOutputs {
+        final Path profilesOut;
+        final Path exportOut;
+        final SegmentedProfileLog history;
+        final ScrapeHistory scrapeHistory;
+        final SweExtractorStatus status;
+        final ProfileStore store;
+        final AtomicInteger recovered = new AtomicInteger();
+        final AtomicInteger retryFailures = new AtomicInteger();
+
+        RunOutputs(Path profilesOut, Path exportOut, SegmentedProfileLog history, ScrapeHistory scrapeHistory,
+                SweExtractorStatus status, ProfileStore store) {
+            this.profilesOut = profilesOut;
+            this.exportOut = exportOut;
+            this.history = history;
+            this.scrapeHistory = scrapeHistory;
+            this.status = status;
+            this.store = store;
+        }
+
+        synchronized void persist(long id, String fullUrl, String objJson, PlayerProfile profile) {
+            // Append to JSON-lines file
+            try {
+                Files.writeString(profilesOut, objJson + System.lineSeparator(), StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (Exception ex) {
+                System.err.println("Failed to append profile jsonl for " + fullUrl + " : " + ex.getMessage());
             }
 
-            System.out.println("Found " + lines.size() + " failed player(s) to retry...");
+            // Append to JSON array file safely
+            try {
+                appendObjectToJsonArray(exportOut, objJson);
+            } catch (Exception ex) {
+                System.err.println("Failed to append to recent_swedish_players_data.json for " + fullUrl + " : "
+                        + ex.getMessage());
+            }
 
-            int retrySuccess = 0;
-            int retryFailed = 0;
-            List<String> stillFailing = new ArrayList<>();
-            Gson gson = new GsonBuilder().serializeNulls().create();
+            appendToHistory(history, id, objJson);
+            publishForUpload(objJson);
 
-            for (String line : lines) {
-                if (line.trim().isEmpty()) continue;
+            // Mark player as successfully scraped
+            status.markPlayerScraped(id);
+            ScrapeHistory.recordScrape(scrapeHistory, id, profile);
+        }
+    }
 
-                // Parse CSV line: playerId,playerUserName,position,timestamp,errorMessage
-                String[] parts = line.split(",", 5);
-                if (parts.length < 2) {
-                    System.err.println("⚠️  Skipping malformed line: " + line);
-                    stillFailing.add(line);
-                    continue;
-                }
+    /**
+     * Opens the persistent retry queue and moves failed_players.txt (written by
+     * the historical crawl) into it. Returns null if it can't be opened; failures
+     * are then only logged, as before.
+     */
+    private static RetryQueue openRetryQueue() {
+        try {
+            RetryQueue retries = RetryQueue.open(Path.of(RetryQueue.FILE));
+            int imported = retries.importFailedPlayers(Path.of("failed_players.txt"), System.currentTimeMillis());
+            if (imported > 0) {
+                System.out.println("📥 Imported " + imported + " players from failed_players.txt into the retry queue");
+            }
+            if (retries.size() > 0) {
+                System.out.println("🔄 " + retries.size() + " players in the retry queue");
+            }
+            return retries;
+        } catch (Exception ex) {
+            System.err.println("⚠️  Failed to open retry queue " + RetryQueue.FILE + ": " + ex.getMessage());
+            return null;
+        }
+    }
 
-                String playerId = parts[0].trim();
-                String playerUserName = parts[1].trim();
+    private static void closeRetryQueue(RetryQueue retries) {
+        if (retries == null) return;
+        try {
+            retries.close();
+        } catch (Exception ex) {
+            System.err.println("⚠️  Failed to close retry queue: " + ex.getMessage());
+        }
+    }
 
-                // Skip if already scraped
-                if (status.isPlayerScraped(playerId)) {
-                    System.out.println("  ⏭️  Player " + playerId + " already scraped, skipping retry.");
-                    retrySuccess++;
-                    continue;
+    private static void scheduleRetry(RetryQueue retries, long id, String slug, String error) {
+        if (retries == null) return;
+        try {
+            if (retries.recordFailure(id, slug, "", error, System.currentTimeMillis())) {
+                RetryQueue.Entry e = retries.get(id);
+                System.out.println("    🔁 Will retry " + id + " in "
+                        + Math.max(0, (e.nextAttemptAt - System.currentTimeMillis()) / 1000) + "s");
+            }
+        } catch (Exception ex) {
+            System.err.println("⚠️  Failed to queue retry for " + id + ": " + ex.getMessage());
+        }
+    }
+
+    /**
+     * At shutdown: players found on team pages but not scraped yet would be lost,
+     * because their teams are already marked processed. They go into the retry
+     * queue, due immediately, so the next run scrapes them first.
+     */
+    private static void deferUnscraped(ProfileWorkQueue work, LongObjectHashMap<String> idToSlug,
+            SweExtractorStatus status, RetryQueue retries) {
+        int deferred = 0;
+        while (!work.isEmpty()) {
+            long id = work.poll();
+            if (retries == null || status.isPlayerScraped(id)) continue;
+            try {
+                if (retries.defer(id, idToSlug.get(id), System.currentTimeMillis())) deferred++;
+            } catch (IOException ex) {
+                System.err.println("⚠️  Failed to record unfinished player " + id + ": " + ex.getMessage());
+            }
+        }
+        System.out.println("🛑 Stopping: " + deferred + " unscraped players recorded in " + RetryQueue.FILE
+                + " for the next run");
+    }
+
+    /**
+     * Hands retries that are due to the pool; players already on the pool are skipped.
+     */
+    private static void submitDueRetries(RetryQueue retries, ExecutorService pool, RunOutputs outputs, Gson gson) {
+        if (retries == null) return;
+        long now = System.currentTimeMillis();
+        long next = retries.nextDueAt();
+        if (next < 0 || next > now) return;
+        for (RetryQueue.Entry e : retries.due(now)) {
+            if (!retrying.add(e.id)) continue;
+            pool.execute(() -> {
+                try {
+                    retryPlayer(retries, e, outputs, gson);
+                } finally {
+                    retrying.remove(e.id);
                 }
+            });
+        }
+    }
 
-                // Construct profile URL
-                String fullUrl = BASE + "/player/" + playerId + "/" + playerUserName;
+    private static void retryPlayer(RetryQueue retries, RetryQueue.Entry e, RunOutputs outputs, Gson gson) {
+        String playerId = String.valueOf(e.id);
+        if (ShutdownCoordinator.isStopping()) {
+            return; // stays queued for the next run
+        }
+        try {
+            if (outputs.status.isPlayerScraped(e.id)) {
+                retries.recordSuccess(e.id);
+                return;
+            }
+            String fullUrl = playerUrl(e.id, e.slug);
+            System.out.println("  🔄 Retrying player: " + playerId + " (" + e.slug + "), attempt " + (e.attempts + 1));
+            try {
+                PlayerProfile profile = ProfileScapper.getProfile(fullUrl, playerId);
+                if (profile == null) {
+                    throw new IOException("profile is null");
+                }
+                CompactPlayerProfile compact = outputs.store.put(e.id, profile);
+                LinkedHashMap<String, Object> obj = buildPlayerObject(compact, fullUrl, e.slug);
+                outputs.persist(e.id, fullUrl, gson.toJson(obj), profile);
+                retries.recordSuccess(e.id);
+                outputs.recovered.incrementAndGet();
+                System.out.println("    ✓ Retry successful for player " + playerId);
+            } catch (Exception ex) {
+                System.err.println("    ❌ Retry failed for " + playerId + ": " + ex.getMessage());
+                ScrapeHistory.recordScrape(outputs.scrapeHistory, e.id, null);
+                outputs.retryFailures.incrementAndGet();
+                retries.recordFailure(e.id, e.slug, e.position, ex.getMessage(), System.currentTimeMillis());
+            }
+        } catch (IOException ex) {
+            System.err.println("⚠️  Failed to update retry queue for " + playerId + ": " + ex.getMessage());
+        }
+    }
 
-                System.out.println("  🔄 Retrying player: " + playerId + " (" + playerUserName + ")");
+    /**
+     * After the crawl: keeps the pool busy with retries that come due within
+     * RETRY_WAIT_MS, then leaves the rest in the queue for the next run.
+     */
+    private static void drainRetries(RetryQueue retries, ExecutorService pool, RunOutputs outputs, Gson gson)
+            throws InterruptedException {
+        if (retries == null) return;
+        long deadline = System.currentTimeMillis() + RETRY_WAIT_MS;
+        if (retries.size() > 0) {
+            System.out.println("\n========================================");
+            System.out.println("🔄 RETRYING FAILED PLAYERS (" + retries.size() + " queued)");
+            System.out.println("========================================");
+        }
+        while (!ShutdownCoordinator.isStopping()) {
+            submitDueRetries(retries, pool, outputs, gson);
+            long next = retries.nextDueAt();
+            if (retrying.isEmpty() && (next < 0 || next > deadline)) break;
+            Thread.sleep(500);
+        }
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+
+        System.out.println("\n[RETRY SUMMARY]");
+        System.out.println("  ✓ Successful retries: " + outputs.recovered.get());
+        System.out.println("  ❌ Failed attempts: " + outputs.retryFailures.get());
+        if (retries.size() > 0) {
+            System.out.println("  📝 " + retries.size() + " players left in " + RetryQueue.FILE + " for the next run");
+        }
+    }
 
-                try {
-                    // Add delay to avoid rate limiting
-                    Thread.sleep(1000);
+    /**
+     * Logs in with EP_EMAIL / EP_PASSWORD (tokens are reused for EP_TOKEN_TTL_HOURS),
+     * falling back to EP_COOKIE_HEADER, so later fetches carry the session cookies.
+     */
+    static void authenticate() {
+        String email = System.getenv("EP_EMAIL");
+        String password = System.getenv("EP_PASSWORD");
+        boolean loginSuccess = false;
+        
+        if (email != null && password != null && tokensObtainedAt > 0
+                && System.currentTimeMillis() - tokensObtainedAt < TOKEN_TTL_MS) {
+            System.out.println("✓ Reusing authentication tokens from "
+                    + ((System.currentTimeMillis() - tokensObtainedAt) / 60_000) + " minutes ago");
+            loginSuccess = true;
+        } else if (email != null && password != null) {
+            try {
+                System.out.println("Logging in to get fresh authentication tokens...");
+                JsonObject loginResp = EliteProspectsAPI.loginAndGetTokens(email, password);
+                String token = loginResp.has("token") ? loginResp.get("token").getAsString() : null;
+                String streamToken = loginResp.has("streamToken") ? loginResp.get("streamToken").getAsString() : null;
+                
+                // Store fresh cookies in cookiesStore
+                if (token != null) {
+                    cookiesStore.put("ep_next_token", token);
+                }
+                if (streamToken != null) {
+                    cookiesStore.put("streamToken", streamToken);
+                }
+                System.out.println("✓ Fresh authentication tokens obtained successfully!");
+                loginSuccess = true;
+                tokensObtainedAt = System.currentTimeMillis();
+            } catch (Exception e) {
+                System.err.println("Warning: Failed to get fresh tokens via API login: " + e.getMessage());
+                System.err.println("Falling back to EP_COOKIE_HEADER environment variable...");
+            }
+        }
+        
+        // If API login failed or credentials not set, try to use EP_COOKIE_HEADER
+        if (!loginSuccess && COOKIE_HEADER != null && !COOKIE_HEADER.isEmpty()) {
+            System.out.println("Using fresh cookies from EP_COOKIE_HEADER environment variable...");
+            // Parse cookies from COOKIE_HEADER format (e.g., "cookie1=value1; cookie2=value2")
+            String[] cookiePairs = COOKIE_HEADER.split(";");
+            for (String pair : cookiePairs) {
+                pair = pair.trim();
+                if (!pair.isEmpty() && pair.contains("=")) {
+                    String[] parts = pair.split("=", 2);
+                    if (parts.length == 2) {
+                        cookiesStore.put(parts[0].trim(), parts[1].trim());
+                    }
+                }
+            }
+            System.out.println("✓ Fresh cookies loaded from environment variable!");
+        } else if (!loginSuccess) {
+            System.out.println("Note: No fresh credentials available. Will attempt anonymous fetch for basic cookies.");
+        }
+    }
 
-                    PlayerProfile profile = ProfileScapper.getProfile(fullUrl, playerId);
-                    if (profile == null) {
-                        System.err.println("    ❌ Retry failed: profile is null for " + playerId);
-                        stillFailing.add(line);
-                        retryFailed++;
-                        continue;
+    /**
+     * Walks the games listing from {@code gamesUrl}, following "Next" while the
+     * day continues, and returns the URLs of the teams that played on
+     * {@code targetDate} in listing order. {@code status} (may be null) tracks the page.
+     */
+    static Set<String> collectGameDayTeams(String gamesUrl, LocalDate targetDate, SweExtractorStatus status)
+            throws IOException {
+        // also compute a display text like "February 2" to match the visible td text
+        DateTimeFormatter displayFmt = DateTimeFormatter.ofPattern("MMMM d", Locale.ENGLISH);
+        String displayTarget = targetDate.format(displayFmt);
+
+        // Pagination loop: start from the provided gamesUrl and follow "Next" links
+        String pageUrl = gamesUrl;
+        Set<String> teamUrls = new LinkedHashSet<>();
+        boolean sawHeaderOnce = false;
+        int pageCount = 0;
+        final int MAX_PAGES = 20; // safety cap to avoid infinite loops
+
+        while (pageUrl != null && pageCount < MAX_PAGES && !ShutdownCoordinator.isStopping()) {
+            pageCount++;
+            if (status != null) {
+                status.setCurrentPage(pageCount);
+            }
+            Document pageDoc = fetchDocument(pageUrl);
+
+            // Find date header row that corresponds to "yesterday" by parsing the
+            // `data-date` attr.
+            Elements dateHeaders = pageDoc.select("tr.title:has(td[data-action=transform-to-local-date])");
+            if (dateHeaders.isEmpty()) {
+                System.out.println("No date header rows found on games page: " + pageUrl);
+                break;
+            }
+
+            Element yesterdayHeader = null;
+            for (Element header : dateHeaders) {
+                Element td = header.selectFirst("td[data-date]");
+                boolean matched = false;
+                if (td != null) {
+                    String dataDate = td.attr("data-date");
+                    try {
+                        OffsetDateTime odt = OffsetDateTime.parse(dataDate);
+                        if (odt.toLocalDate().equals(targetDate)) {
+                            yesterdayHeader = header;
+                            matched = true;
+                            break;
+                        }
+                    } catch (Exception ex) {
+                        // ignore parse errors and continue
+                    }
+                    // try matching by displayed text inside the td as a fallback
+                    String tdText = td.text() != null ? td.text().trim() : "";
+                    if (!matched && tdText.contains(displayTarget)) {
+                        yesterdayHeader = header;
+                        break;
                     }
+                } else {
+                    // header without data-date: try matching header text
+                    String headerText = header.text() != null ? header.text().trim() : "";
+                    if (headerText.contains(displayTarget)) {
+                        yesterdayHeader = header;
+                        break;
+                    }
+                }
+            }
 
-                    // Build JSON object for this player
-                    LinkedHashMap<String, Object> obj = buildPlayerObject(profile, playerId, fullUrl, idToSlug);
-                    String objJson = gson.toJson(obj);
+            if (yesterdayHeader == null) {
+                if (!sawHeaderOnce) {
+                    // fallback on first page only
+                    yesterdayHeader = dateHeaders.last();
+                    System.out.println("No exact match for yesterday (" + displayTarget
+                            + "); falling back to last date header on page: " + yesterdayHeader.text());
+                } else {
+                    // we've seen the header on earlier page(s) and this page doesn't include it;
+                    // stop
+                    break;
+                }
+            }
 
-                    // Append to JSONL file
-                    Files.writeString(profilesOut, objJson + System.lineSeparator(), StandardCharsets.UTF_8,
-                            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            List<Element> gameRows = new ArrayList<>();
+
+            if (yesterdayHeader != null) {
+                sawHeaderOnce = true;
+                gameRows = getGameRowsForDate(yesterdayHeader);
+                System.out.println("Page " + pageCount + " (" + pageUrl + ") found " + gameRows.size()
+                        + " game rows for yesterday.");
+            } else if (sawHeaderOnce) {
+                // We found the header on a previous page, but not this one.
+                // This implies the date block continues from the top of this page.
+                // We must collect rows from the top until we hit a NEW date header.
+                gameRows = collectGamesFromTop(pageDoc);
+                if (gameRows.isEmpty()) {
+                    System.out.println("No continuation game rows found on page " + pageCount + ". Ending search.");
+                    break;
+                }
+                System.out.println("Page " + pageCount + " (" + pageUrl + ") found " + gameRows.size()
+                        + " continuation game rows for yesterday.");
+            } else {
+                // Header not found yet, and not seen before.
+                System.out.println("Detailed debug: No yesterday header found on page " + pageCount
+                        + " and sawHeaderOnce=false.");
+                break;
+            }
 
-                    // Append to JSON array file
-                    appendObjectToJsonArray(exportOut, objJson);
+            if (!gameRows.isEmpty()) {
 
-                    // Mark as successfully scraped
-                    status.markPlayerScraped(playerId);
+                for (Element gameRow : gameRows) {
+                    if (ShutdownCoordinator.isStopping()) break;
+                    try {
+                        Elements teamTds = gameRow.select("td.team");
+                        if (teamTds.size() < 2)
+                            continue;
 
-                    System.out.println("    ✓ Retry successful for player " + playerId);
-                    retrySuccess++;
+                        Element homeTeamLink = teamTds.get(0).selectFirst("a:nth-of-type(2)");
+                        Element awayTeamLink = teamTds.get(1).selectFirst("a:nth-of-type(2)");
 
-                } catch (Exception ex) {
-                    System.err.println("    ❌ Retry failed for " + playerId + ": " + ex.getMessage());
-                    stillFailing.add(line);
-                    retryFailed++;
+                        if (homeTeamLink != null) {
+                            String href = homeTeamLink.attr("href");
+                            teamUrls.add(href.startsWith("http") ? href : BASE + href);
+                        }
+                        if (awayTeamLink != null) {
+                            String href = awayTeamLink.attr("href");
+                            teamUrls.add(href.startsWith("http") ? href : BASE + href);
+                        }
+                    } catch (Exception e) {
+                        System.err.println("Error processing game row: " + e.getMessage());
+                    }
                 }
-            }
 
-            System.out.println("\n[RETRY SUMMARY]");
-            System.out.println("  ✓ Successful retries: " + retrySuccess);
-            System.out.println("  ❌ Still failing: " + retryFailed);
+                // Check if we should continue to next page:
+                // 1. If the last game row has no next sibling (hit end of page)
+                // 2. AND there's a "Next" pagination link available
+                
+                String nextHref = null;
+                boolean shouldContinue = false;
+                
+                try {
+                    // Check if the last collected game row reached end of page
+                    if (!gameRows.isEmpty()) {
+                        Element lastRow = gameRows.get(gameRows.size() - 1);
+                        Element nextSibling = lastRow.nextElementSibling();
+                        
+                        // Check if next sibling is a different date header (means yesterday's games ended)
+                        boolean hitDifferentDate = (nextSibling != null) && 
+                                                  (nextSibling.hasClass("title") ||
+                                                   nextSibling.selectFirst("td[data-date-type=text]") != null);
+                        
+                        // Only continue to next page if we hit actual page end (null), NOT a different date
+                        if (nextSibling == null) {
+                            // True page end - yesterday's games may continue on next page
+                            Elements pagLinks = pageDoc.select(".table-pagination a");
+                            for (Element a : pagLinks) {
+                                String t = a.text();
+                                if (t != null && t.toLowerCase().contains("next")) {
+                                    nextHref = a.absUrl("href");
+                                    if (nextHref == null || nextHref.isEmpty())
+                                        nextHref = a.attr("href");
+                                    if (nextHref != null && !nextHref.isEmpty()) {
+                                        shouldContinue = true;
+                                    }
+                                    break;
+                                }
+                            }
+                        } else if (hitDifferentDate) {
+                            // Hit a different date - stop immediately
+                            System.out.println("Detected next date header after " + displayTarget + " games. Stopping pagination.");
+                        }
+                    }
+                } catch (Exception ex) {
+                    System.err.println("Error checking pagination: " + ex.getMessage());
+                }
 
-            // Update failed_players.txt with only the players that still failed
-            if (stillFailing.isEmpty()) {
-                Files.deleteIfExists(failedFile);
-                System.out.println("  🗑️  All failures resolved! Deleted failed_players.txt");
+                if (shouldContinue && nextHref != null) {
+                    // Continue to next page to collect more games from yesterday
+                    if (!nextHref.startsWith("http"))
+                        nextHref = BASE + (nextHref.startsWith("/") ? nextHref : "/" + nextHref);
+                    System.out.println("Continuing to next page (" + displayTarget + " games may continue): " + nextHref);
+                    pageUrl = nextHref;
+                    continue;
+                } else {
+                    // Stop: Either we hit next date header or no more pages
+                    System.out.println("Completed collecting all " + displayTarget + " games.");
+                    break;
+                }
             } else {
-                Files.write(failedFile, stillFailing, StandardCharsets.UTF_8,
-                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-                System.out.println("  📝 Updated failed_players.txt with " + stillFailing.size() + " remaining failures");
+                // No game rows found, stop
+                break;
             }
-
-        } catch (Exception ex) {
-            System.err.println("Error during failed player retry: " + ex.getMessage());
-            ex.printStackTrace();
         }
+        return teamUrls;
     }
 
     // All static methods below remain inside the class
 
-    private static Document fetchDocument(String url) throws IOException {
+    static Document fetchDocument(String url) throws IOException {
         // Only ensure cookies if cookiesStore is empty (shouldn't happen if login was successful)
         if (cookiesStore.isEmpty()) {
             System.out.println("  ⚠️  cookiesStore empty, attempting to collect cookies from fresh fetch...");
@@ -813,17 +1100,23 @@ public class SwedishPlayersExtractor {
         }
     }
 
-    private static void collectFromTeam(String teamHref, Map<String, String> idToSlug, Map<String, String> idToUrl) {
+    /**
+     * Adds the Swedish players on a team page to {@code idToSlug}. With {@code persist}
+     * the team and newly found players are also appended to the run's text files.
+     */
+    static void collectFromTeam(String teamHref, LongObjectHashMap<String> idToSlug, boolean persist) {
         try {
             String teamUrl = teamHref.startsWith("http") ? teamHref : BASE + teamHref;
             System.out.println("Visiting team: " + teamUrl);
             // Persist this team immediately so interruptions still leave team list
-            try {
-                Path teamsAppend = Path.of("team.txt");
-                Files.writeString(teamsAppend, teamUrl + System.lineSeparator(), StandardCharsets.UTF_8,
-                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
-            } catch (Exception ex) {
-                // non-fatal
+            if (persist) {
+                try {
+                    Path teamsAppend = Path.of("team.txt");
+                    Files.writeString(teamsAppend, teamUrl + System.lineSeparator(), StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                } catch (Exception ex) {
+                    // non-fatal
+                }
             }
             Document doc = fetchDocument(teamUrl);
 
@@ -841,15 +1134,15 @@ public class SwedishPlayersExtractor {
                     String playerId = extractPlayerId(fullUrl);
                     String slug = extractPlayerSlug(fullUrl);
                     if (playerId != null) {
-                        // store first-seen slug/url for the id
-                        boolean isNew = !idToUrl.containsKey(playerId);
-                        idToSlug.putIfAbsent(playerId, slug != null ? slug : playerLink.text().trim());
-                        idToUrl.putIfAbsent(playerId, fullUrl);
+                        // store first-seen slug for the id; the URL is rebuilt from id + slug on demand
+                        long id = Long.parseLong(playerId);
+                        boolean isNew = !idToSlug.containsKey(id);
+                        idToSlug.putIfAbsent(id, slug != null ? slug : playerLink.text().trim());
                         System.out.println("    Swedish player: " + playerLink.text().trim() + " -> id=" + playerId
                                 + " slug=" + slug + " url=" + fullUrl);
 
                         // Persist newly discovered URL and id line immediately so progress isn't lost
-                        if (isNew) {
+                        if (isNew && persist) {
                             try {
                                 Path urlsOut = Path.of("recent_swedish_players_urls.txt");
                                 Files.writeString(urlsOut, fullUrl + System.lineSeparator(), StandardCharsets.UTF_8,
@@ -860,40 +1153,13 @@ public class SwedishPlayersExtractor {
 
                             try {
                                 Path idsOut = Path.of("recent_swedish_players_ids.txt");
-                                String slugVal = idToSlug.getOrDefault(playerId, "");
+                                String slugVal = idToSlug.getOrDefault(id, "");
                                 String line = playerId + "," + slugVal + "," + fullUrl + System.lineSeparator();
                                 Files.writeString(idsOut, line, StandardCharsets.UTF_8,
                                         StandardOpenOption.CREATE, StandardOpenOption.APPEND);
                             } catch (Exception ex) {
                                 System.err.println("Failed to append id line for " + fullUrl + " : " + ex.getMessage());
                             }
-
-                            // Immediately attempt to scrape and persist this player's profile (best-effort)
-                            try {
-                                Gson localGson = new GsonBuilder().serializeNulls().create();
-                                PlayerProfile scraped = ProfileScapper.getProfile(fullUrl, playerId);
-                                if (scraped != null) {
-                                    String jsonLine = localGson
-                                            .toJson(buildExportObject(scraped, playerId, fullUrl, idToSlug));
-                                    Path profilesOut = Path.of("recent_swedish_players_profiles.jsonl");
-                                    Files.writeString(profilesOut, jsonLine + System.lineSeparator(),
-                                            StandardCharsets.UTF_8,
-                                            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
-
-                                    // append to array file
-                                    Path exportOut = Path.of("recent_swedish_players_data.json");
-                                    try {
-                                        appendObjectToJsonArray(exportOut, jsonLine);
-                                    } catch (Exception ex) {
-                                        System.err.println("Failed to append to recent_swedish_players_data.json for "
-                                                + fullUrl + " : " + ex.getMessage());
-                                    }
-                                }
-                            } catch (Exception ex) {
-                                // non-fatal; log and continue
-                                System.err.println(
-                                        "Failed to fetch+persist profile for " + fullUrl + " : " + ex.getMessage());
-                            }
                         }
                     } else {
                         System.out.println(
@@ -999,6 +1265,16 @@ public class SwedishPlayersExtractor {
         return null;
     }
 
+    /**
+     * Rebuilds a canonical profile URL from a player id and slug.
+     * Falls back to /player/{id}, which ProfileScapper retries as /player/{id}/{id} on 404.
+     */
+    static String playerUrl(long playerId, String slug) {
+        if (slug == null || slug.isEmpty())
+            return BASE + "/player/" + playerId;
+        return BASE + "/player/" + playerId + "/" + slug;
+    }
+
     private static String extractPlayerSlug(String playerUrl) {
         if (playerUrl == null)
             return null;
@@ -1020,29 +1296,6 @@ public class SwedishPlayersExtractor {
         return null;
     }
 
-    /**
-     * Escapes a string for CSV format by wrapping in quotes if it contains commas,
-     * quotes, or newlines.
-     */
-    private static String escapeCSV(String value) {
-        if (value == null)
-            return "";
-        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
-            String escaped = value.replace("\"", "\"\"");
-            return "\"" + escaped + "\"";
-        }
-        return value;
-    }
-
-    /**
-     * Escape '%' characters for safe formatting (mirrors TableScapper helper).
-     */
-    private static String escapeForFormat(String value) {
-        if (value == null)
-            return "";
-        return value.replace("%", "%%");
-    }
-
     /**
      * Append a JSON object (string) into a file that stores wrapped in recentlyUpdatedPlayers key.
      * Format: { "recentlyUpdatedPlayers": [ {...}, {...} ] }
@@ -1094,109 +1347,4 @@ public class SwedishPlayersExtractor {
         Files.writeString(file, formatted, StandardCharsets.UTF_8, StandardOpenOption.TRUNCATE_EXISTING);
     }
 
-    /**
-     * Build the export object map for a given PlayerProfile using the requested
-     * keys.
-     */
-    private static Map<String, Object> buildExportObject(PlayerProfile profile, String playerId, String fullUrl,
-            Map<String, String> idToSlug) {
-        Map<String, Object> obj = new LinkedHashMap<>();
-        Object uid;
-        try {
-            String effectiveId = (profile.userId != null && !profile.userId.trim().isEmpty()) ? profile.userId.trim()
-                    : playerId;
-            uid = Integer.parseInt(effectiveId);
-        } catch (Exception ex) {
-            uid = (profile.userId != null && !profile.userId.trim().isEmpty()) ? profile.userId : playerId;
-        }
-        obj.put("user_id", uid);
-        obj.put("nation", profile.nation);
-        obj.put("name", profile.name);
-        obj.put("birthdate", profile.dateOfBirth);
-        obj.put("latest_team", profile.latest_team);
-        obj.put("profile_link", fullUrl);
-        obj.put("player_username", profile.userName != null ? profile.userName : idToSlug.getOrDefault(playerId, ""));
-        obj.put("dob_profile", profile.dateOfBirth);
-        obj.put("age", profile.age);
-        
-        // Replace dashes with empty strings for API compatibility (API rejects "-")
-        String placeOfBirth = profile.placeOfBirth != null && !profile.placeOfBirth.equals("-") 
-            ? profile.placeOfBirth : "";
-        obj.put("place_of_birth", placeOfBirth);
-        
-        // Fix dual nationality - extract first country only
-        String nationNormalized = profile.nation;
-        if (nationNormalized != null && nationNormalized.contains("/")) {
-            // Extract first country from "USA / Sweden" -> "USA"
-            nationNormalized = nationNormalized.split("/")[0].trim();
-        }
-        obj.put("nation_profile", nationNormalized);
-        obj.put("youth_team", profile.youthTeam);
-
-        // Try to collect stats JSON into the position field. Use the provided playerId
-        // if profile.userId is missing to ensure we fetch the correct data.
-        try {
-            String effectiveId = (profile.userId != null && !profile.userId.trim().isEmpty()) ? profile.userId.trim()
-                    : playerId;
-            String statsResponse = EliteProspectsAPI.fetchStatsFromAPI(effectiveId);
-            String parsed = EliteProspectsAPI.parsePlayerStats(profile.position, statsResponse);
-            // Send position as string (not parsed JSON object)
-            obj.put("position", parsed);
-        } catch (Exception ex) {
-            obj.put("position", profile.position != null ? profile.position : "");
-        }
-
-        obj.put("height", profile.height);
-        obj.put("weight", profile.weight);
-        
-        // Always include shoots field (actual value or empty string)
-        String shoots = profile.shoots;
-        if (shoots == null || (shoots != null && (shoots.trim().isEmpty() || shoots.equals("-")))) {
-            shoots = "";
-        }
-        obj.put("shoots", shoots != null ? shoots : "");
-        
-        obj.put("contract", profile.contract);
-        
-        // Player type as string (empty if no data)
-        String playerTypeStr = "";
-        if (profile.playerType != null && profile.playerType.length > 0) {
-            playerTypeStr = String.join("; ", profile.playerType);
-        }
-        obj.put("player_type", playerTypeStr);
-        
-        obj.put("cap_hit", profile.capHit);
-        obj.put("cap_hit_image", profile.capHitImage);
-        obj.put("nhl_rights", profile.nhlRights);
-        obj.put("drafted", profile.drafted);
-        obj.put("agency", profile.agency);
-        obj.put("profile_picture", profile.imageUrl);
-        obj.put("relation", profile.relation);
-
-        // Skills as string (empty if no data)
-        String skillsStr = "";
-        if (profile.skills != null && profile.skills.length > 0) {
-            List<String> skillsList = new ArrayList<>();
-            for (int i = 0; i < profile.skills.length; i++)
-                skillsList.add(profile.skills[i].toFormattedString());
-            skillsStr = String.join("; ", skillsList);
-        }
-        obj.put("skills", skillsStr);
-
-        // Highlights as string (empty if no data)
-        String highlightsStr = "";
-        if (profile.highlights != null && profile.highlights.length > 0) {
-            highlightsStr = String.join("; ", profile.highlights);
-        }
-        obj.put("highlights", highlightsStr);
-        
-        obj.put("status", profile.status);
-        
-        // Award as string (same as highlights)
-        obj.put("award", highlightsStr);
-        obj.put("latest_team_position", profile.latest_team_position);
-        obj.put("season", profile.season);
-
-        return obj;
-    }
 }
\ No newline at end of file
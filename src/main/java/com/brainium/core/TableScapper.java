@@ -1,11 +1,11 @@
 package com.brainium.core;
 
+import java.io.BufferedReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 
 import org.jsoup.Jsoup;
@@ -13,6 +13,7 @@ import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 
+import com.brainium.schema.CompactPlayerProfile;
 import com.brainium.schema.PlayerProfile;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
@@ -63,7 +64,10 @@ public class TableScapper {
 
         // Load status to resume from last page
         String searchKey = position + "_" + year;
-        int startPage = readStatus(searchKey, defaultPage);
+        SearchCheckpoint checkpoint = SearchCheckpoint.open(searchKey);
+        // Scrape times and activity signals feed the nightly RefreshPlanner
+        ScrapeHistory history = openHistory();
+        int startPage = checkpoint.firstUnfinishedPage(readStatus(searchKey, defaultPage));
 
         int page = startPage;
 
@@ -86,102 +90,301 @@ public class TableScapper {
         // Add any other static or required cookies here if needed
         String dynamicCookies = cookieBuilder.toString();
 
-        java.util.concurrent.ExecutorService executor = java.util.concurrent.Executors.newFixedThreadPool(8); // 8 threads
-        Object csvLock = new Object();
         Object scrapedSetLock = new Object();
-        while (true) {
-            String url = String.format("https://www.eliteprospects.com/search/player?position=%s&dob=%d&nation=swe&page=%d",
-                    escapeForFormat(position), year, page);
+        // Failed players are retried with backoff through the same pipeline while later pages are crawled;
+        // players given up on (or not due before the search ends) go to failed_players.txt
+        RetryQueue retries = RetryQueue.inMemory(Paths.get(FAILED_PLAYERS_FILE));
+        // Players between submit() and the writer, so a retry or a repeat on a later page isn't queued twice
+        Set<Long> inFlight = java.util.concurrent.ConcurrentHashMap.newKeySet();
+        PageProgress progress = new PageProgress();
+        // fetch → parse → enrich → write over bounded queues; only the writer thread appends to
+        // output.csv and the scrape history
+        ProfilePipeline pipeline = ProfilePipeline.start(new ProfilePipeline.Sink() {
+            @Override
+            public void write(ProfilePipeline.Item item) throws Exception {
+                PlayerProfile profile = item.profile;
+                String playerId = playerIdOf(item);
+                profile.userId = playerId;
+                profile.userName = item.slug;
+                writeProfileToCSV(profile, item.positionJson);
+                synchronized (scrapedSetLock) {
+                    scrapedPlayerIds.add(playerId);
+                }
+                ScrapeHistory.recordScrape(history, item.id, profile);
+                if (item.tag instanceof RetryQueue.Entry) {
+                    try {
+                        retries.recordSuccess(item.id);
+                    } catch (IOException e) {
+                        System.err.println("Failed to update retry queue for " + playerId + ": " + e.getMessage());
+                    }
+                    System.out.println("    [OK] Retry succeeded: " + playerId + " | " + profile.name);
+                } else {
+                    System.out.println("    [OK] Included: " + playerId + " | " + profile.name + " | DOB: " + profile.dateOfBirth);
+                }
+                finished(item);
+            }
 
-            System.out.println("  📄 Page " + page + " | Position: " + position.toUpperCase() + " | Year: " + year);
+            @Override
+            public void failed(ProfilePipeline.Item item, Exception e) {
+                String playerId = playerIdOf(item);
+                ScrapeHistory.recordScrape(history, item.id, null);
+                if (item.tag instanceof RetryQueue.Entry) {
+                    RetryQueue.Entry retry = (RetryQueue.Entry) item.tag;
+                    System.err.println("Retry " + (retry.attempts + 1) + " failed for player " + playerId + ": " + e.getMessage());
+                    try {
+                        retries.recordFailure(retry.id, retry.slug, retry.position, e.getMessage(), System.currentTimeMillis());
+                    } catch (IOException ioe) {
+                        System.err.println("Failed to update retry queue for " + playerId + ": " + ioe.getMessage());
+                    }
+                } else {
+                    System.err.println("Failed to scrape player " + playerId + " after retries: " + e.getMessage());
+                    // Queue for a later retry in this search (or log it to file if the id is odd)
+                    scheduleRetry(retries, item.id, playerId, item.slug, position, e.getMessage());
+                }
+                finished(item);
+            }
 
-            // Connect to the page with dynamic cookies and increased timeout
-            Document doc = null;
-            try {
-                doc = Jsoup.connect(url)
-                        .header("cookie", dynamicCookies)
-                        .timeout(60000) // Increased to 60 seconds
-                        .maxBodySize(0) // No limit on body size
-                        .get();
-            } catch (java.net.SocketTimeoutException e) {
-                System.err.println("Timeout fetching page " + page + " for position " + position.toUpperCase() + " (year: " + year + "). Skipping to next page.");
-                page++;
-                continue;
-            } catch (Exception e) {
-                System.err.println("Error fetching page " + page + " for position " + position.toUpperCase() + " (year: " + year + "): " + e.getMessage());
-                page++;
-                continue;
+            private void finished(ProfilePipeline.Item item) {
+                inFlight.remove(item.id);
+                if (item.tag instanceof PagePlayer) {
+                    int playerPage = ((PagePlayer) item.tag).page;
+                    if (item.id >= 0) {
+                        checkpoint.markPlayerDone(playerPage, item.id);
+                    }
+                    if (progress.done(playerPage)) {
+                        completePage(checkpoint, searchKey, startPage, playerPage);
+                    }
+                }
             }
+        });
+        // On SIGTERM: no new pages or players, profiles already fetched are written, progress is flushed (see ShutdownCoordinator)
+        ShutdownCoordinator.Registration running = ShutdownCoordinator.beginWork("search " + searchKey);
+        ShutdownCoordinator.Registration flush = ShutdownCoordinator.onShutdown("checkpoint " + searchKey, () -> {
+            checkpoint.flush();
+            retries.deadLetterAll(System.currentTimeMillis());
+        });
+        boolean searchComplete = false;
+        try {
+            while (true) {
+                if (ShutdownCoordinator.isStopping()) {
+                    System.out.println("  🛑 Stopping at page " + page + " (" + searchKey + "), the next run resumes here");
+                    break;
+                }
+                if (checkpoint.isPageDone(page)) {
+                    page++;
+                    continue;
+                }
 
-            // Select player links from the table
-            Elements links = doc.select("td.name a");
+                String url = searchUrl(position, year, page);
+
+                System.out.println("  📄 Page " + page + " | Position: " + position.toUpperCase() + " | Year: " + year
+                        + " | queued: " + pipeline.queued());
+
+                // Connect to the page with dynamic cookies and increased timeout
+                Document doc = null;
+                try {
+                    doc = Jsoup.connect(url)
+                            .header("cookie", dynamicCookies)
+                            .timeout(60000) // Increased to 60 seconds
+                            .maxBodySize(0) // No limit on body size
+                            .get();
+                } catch (java.net.SocketTimeoutException e) {
+                    System.err.println("Timeout fetching page " + page + " for position " + position.toUpperCase() + " (year: " + year + "). Skipping to next page.");
+                    page++;
+                    continue;
+                } catch (Exception e) {
+                    System.err.println("Error fetching page " + page + " for position " + position.toUpperCase() + " (year: " + year + "): " + e.getMessage());
+                    page++;
+                    continue;
+                }
 
-            if (links.isEmpty()) {
-                System.out.println("  [OK] No more players on page " + page + ". Year " + year + " completed!");
-                System.out.println();
-                break; // No more players, exit loop
-            }
+                // Select player links from the table
+                Elements links = doc.select("td.name a");
 
-            System.out.println("  👥 Found " + links.size() + " players on page " + page);
+                if (links.isEmpty()) {
+                    System.out.println("  [OK] No more players on page " + page + ". Year " + year + " completed!");
+                    System.out.println();
+                    searchComplete = true; // checkpoint is finished once the pipeline has drained
+                    break; // No more players, exit loop
+                }
 
-            java.util.List<java.util.concurrent.Future<?>> futures = new java.util.ArrayList<>();
-            for (Element link : links) {
-                String profileLink = link.absUrl("href");
-                String[] parts = profileLink.split("/");
-                String playerId = parts[parts.length - 2];
-                String playerUserName = parts[parts.length - 1];
+                System.out.println("  👥 Found " + links.size() + " players on page " + page);
 
-                // Skip if already scraped
-                synchronized (scrapedSetLock) {
-                    if (scrapedPlayerIds.contains(playerId)) {
-                        System.out.println("    [SKIP] Skipping already scraped player: " + playerId);
+                for (Element link : links) {
+                    String profileLink = link.absUrl("href");
+                    String[] parts = profileLink.split("/");
+                    String playerId = parts[parts.length - 2];
+                    String playerUserName = parts[parts.length - 1];
+                    long numericId = parsePlayerId(playerId);
+                    int currentPage = page;
+
+                    // Skip if already handled before an interruption
+                    if (numericId >= 0 && checkpoint.isPlayerDone(currentPage, numericId)) {
+                        System.out.println("    [SKIP] Already handled on page " + currentPage + ": " + playerId);
+                        continue;
+                    }
+
+                    // Skip if already scraped
+                    synchronized (scrapedSetLock) {
+                        if (scrapedPlayerIds.contains(playerId)) {
+                            System.out.println("    [SKIP] Skipping already scraped player: " + playerId);
+                            continue;
+                        }
+                    }
+                    if (numericId >= 0 && !inFlight.add(numericId)) {
+                        System.out.println("    [SKIP] Already queued: " + playerId);
                         continue;
                     }
+
+                    String playerUrl = String.format("https://www.eliteprospects.com/player/%s/%s", escapeForFormat(playerId),
+                            escapeForFormat(playerUserName));
+                    progress.add(currentPage);
+                    // Blocks while the fetch queue is full
+                    pipeline.submit(new ProfilePipeline.Item(numericId, playerUserName, playerUrl,
+                            new PagePlayer(currentPage, playerId)));
+                }
+                // Retries that have come due run alongside this page's players
+                for (RetryQueue.Entry retry : retries.due(System.currentTimeMillis())) {
+                    if (!inFlight.add(retry.id)) continue;
+                    String retryId = String.valueOf(retry.id);
+                    pipeline.submit(new ProfilePipeline.Item(retry.id, retry.slug,
+                            String.format("https://www.eliteprospects.com/player/%s/%s", escapeForFormat(retryId),
+                                    escapeForFormat(retry.slug)),
+                            retry));
                 }
 
-                String playerUrl = String.format("https://www.eliteprospects.com/player/%s/%s", escapeForFormat(playerId),
-                        escapeForFormat(playerUserName));
+                // The page is marked done (and status.json moves on) by the writer once its last player is through
+                if (progress.seal(page)) {
+                    completePage(checkpoint, searchKey, startPage, page);
+                }
+                page++; // Move to next page
+            }
+        } finally {
+            // Wait for everything already submitted; on shutdown the fetch stage drops what hasn't started
+            pipeline.close();
+            flush.close();
+            try {
+                if (searchComplete && !ShutdownCoordinator.isStopping()) {
+                    checkpoint.finish(); // Search complete, next run starts fresh
+                }
+                int leftOver = retries.deadLetterAll(System.currentTimeMillis());
+                if (leftOver > 0) {
+                    System.out.println("  📝 " + leftOver + " failed players logged to " + FAILED_PLAYERS_FILE + " for a later run");
+                }
+            } catch (IOException e) {
+                System.err.println("Warning: Could not log failed players: " + e.getMessage());
+            }
+            checkpoint.close();
+            if (history != null) {
+                try {
+                    history.close();
+                } catch (IOException e) {
+                    System.err.println("Warning: Could not close scrape history: " + e.getMessage());
+                }
+            }
+            running.close();
+        }
+    }
 
-                futures.add(executor.submit(() -> {
-                    try {
-                        PlayerProfile profile = ProfileScapper.getProfile(playerUrl, playerId);
-                        profile.userId = playerId;
-                        profile.userName = playerUserName;
+    /**
+     * One page of the Swedish player search for a position and birth year.
+     */
+    static String searchUrl(String position, int year, int page) {
+        return String.format("https://www.eliteprospects.com/search/player?position=%s&dob=%d&nation=swe&page=%d",
+                escapeForFormat(position), year, page);
+    }
 
-                        // Always include player in output.csv (do not exclude based on DOB)
-                        synchronized (csvLock) {
-                            writeProfileToCSV(profile);
-                        }
-                        System.out.println("    [OK] Included: " + playerId + " | " + profile.name + " | DOB: " + profile.dateOfBirth);
+    /**
+     * Search page a pipeline item came from.
+     */
+    private static final class PagePlayer {
+        final int page;
+        final String playerId;
 
-                        // Add to scraped set
-                        synchronized (scrapedSetLock) {
-                            scrapedPlayerIds.add(playerId);
-                        }
+        PagePlayer(int page, String playerId) {
+            this.page = page;
+            this.playerId = playerId;
+        }
+    }
 
-                        // Add a small delay between requests to avoid rate limiting (500ms)
-                        Thread.sleep(500);
-                    } catch (Exception e) {
-                        System.err.println("Failed to scrape player " + playerId + " after retries: " + e.getMessage());
-                        // Log failed player to file for later retry
-                        logFailedPlayer(playerId, playerUserName, position, e.getMessage());
-                        // Continue with next player instead of stopping
-                    }
-                }));
-            }
-            // Wait for all player tasks to finish before moving to next page
-            for (java.util.concurrent.Future<?> f : futures) {
-                try { f.get(); } catch (Exception ignored) {}
+    private static String playerIdOf(ProfilePipeline.Item item) {
+        return item.tag instanceof PagePlayer ? ((PagePlayer) item.tag).playerId : String.valueOf(item.id);
+    }
+
+    /**
+     * Players still in the pipeline per search page. A page is complete once the
+     * crawl has moved past it (sealed) and its last player was written or failed.
+     */
+    private static final class PageProgress {
+        private final java.util.Map<Integer, Integer> outstanding = new java.util.HashMap<>();
+        private final Set<Integer> sealed = new HashSet<>();
+
+        synchronized void add(int page) {
+            outstanding.merge(page, 1, Integer::sum);
+        }
+
+        /**
+         * Returns true if nothing from the page is outstanding.
+         */
+        synchronized boolean seal(int page) {
+            if (outstanding.containsKey(page)) {
+                sealed.add(page);
+                return false;
             }
+            return true;
+        }
+
+        /**
+         * Returns true if this was the sealed page's last player.
+         */
+        synchronized boolean done(int page) {
+            outstanding.computeIfPresent(page, (k, left) -> left > 1 ? left - 1 : null);
+            return !outstanding.containsKey(page) && sealed.remove(page);
+        }
+    }
+
+    /**
+     * Marks a page done and saves the first unfinished page to status.json. Pages
+     * finish out of order in the pipeline, so status only moves past contiguous done pages.
+     */
+    private static synchronized void completePage(SearchCheckpoint checkpoint, String searchKey, int startPage, int page) {
+        checkpoint.markPageDone(page);
+        int next = checkpoint.firstUnfinishedPage(startPage);
+        updateStatus(searchKey, next);
+        System.out.println("  💾 Progress saved: Page " + next + " (" + searchKey + ")");
+    }
 
-            page++; // Move to next page
+    private static ScrapeHistory openHistory() {
+        try {
+            return ScrapeHistory.open(Paths.get(ScrapeHistory.FILE));
+        } catch (IOException e) {
+            System.out.println("Warning: Could not open scrape history: " + e.getMessage());
+            return null;
+        }
+    }
 
-            // Update status after processing the page with the NEXT page number
-            updateStatus(position + "_" + year, page);
-            System.out.println("  💾 Progress saved: Page " + page + " (Position: " + position.toUpperCase() + ", Year: " + year + ")");
+    private static void scheduleRetry(RetryQueue retries, long numericId, String playerId, String playerUserName,
+            String position, String errorMessage) {
+        if (numericId < 0) {
+            logFailedPlayer(playerId, playerUserName, position, errorMessage);
+            return;
+        }
+        try {
+            retries.recordFailure(numericId, playerUserName, position, errorMessage, System.currentTimeMillis());
+        } catch (IOException e) {
+            System.err.println("Failed to queue retry for " + playerId + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Parses a numeric player id from a profile link, or returns -1.
+     */
+    private static long parsePlayerId(String playerId) {
+        try {
+            return Long.parseLong(playerId);
+        } catch (NumberFormatException e) {
+            return -1;
         }
-        executor.shutdown();
-        executor.awaitTermination(10, java.util.concurrent.TimeUnit.MINUTES);
     }
 
     /**
@@ -190,16 +393,17 @@ public class TableScapper {
     private static void loadScrapedPlayerIds() {
         try {
             if (Files.exists(Paths.get(OUTPUT_DIR))) {
-                List<String> lines = Files.readAllLines(Paths.get(OUTPUT_DIR));
-                // Skip header
-                for (int i = 1; i < lines.size(); i++) {
-                    String line = lines.get(i);
-                    if (!line.trim().isEmpty()) {
-                        // Extract player ID (first column)
-                        int firstComma = line.indexOf(',');
-                        if (firstComma > 0) {
-                            String playerId = line.substring(0, firstComma).trim();
-                            scrapedPlayerIds.add(playerId);
+                // Stream records instead of loading the whole file; quoted fields may span lines
+                try (BufferedReader reader = Files.newBufferedReader(Paths.get(OUTPUT_DIR))) {
+                    CsvCompactor.readRecord(reader); // Skip header
+                    String line;
+                    while ((line = CsvCompactor.readRecord(reader)) != null) {
+                        if (!line.trim().isEmpty()) {
+                            // Extract player ID (first column)
+                            String playerId = CsvCompactor.keyOf(line);
+                            if (!playerId.isEmpty()) {
+                                scrapedPlayerIds.add(playerId);
+                            }
                         }
                     }
                 }
@@ -256,14 +460,9 @@ public class TableScapper {
     /**
      * Writes the CSV header if the file doesn't exist.
      */
-    private static void writeCSVHeaderIfNeeded() {
+    static void writeCSVHeaderIfNeeded() {
         try {
-            if (!Files.exists(Paths.get(OUTPUT_DIR))) {
-                try (FileWriter writer = new FileWriter(OUTPUT_DIR)) {
-                    writer.write(
-                            "User ID,Username,Name,Date of Birth,Age,Place of Birth,Nation,Youth Team,latest_team_position,latest_team,seasone,Position,Height,Weight,Shoots,Contract,Player Type,Cap Hit,Cap Hit Image,NHL Rights,Drafted,Highlights,Agency,Relation,Image URL,Skills,Status\n");
-                }
-            }
+            OutputCsv.append(Paths.get(OUTPUT_DIR), "");
             // Note: excluded_players.csv is no longer created - all players are written to output.csv
         } catch (IOException e) {
             e.printStackTrace();
@@ -271,81 +470,97 @@ public class TableScapper {
     }
 
     /**
-     * Appends a single player profile to the CSV file.
+     * Appends a single player profile to the CSV file, fetching its stats first.
      *
      * @param profile The PlayerProfile to write
+     * @throws IOException if the row could not be appended
      */
-    private static void writeProfileToCSV(PlayerProfile profile) {
-        try (FileWriter writer = new FileWriter(OUTPUT_DIR, true)) { // Append mode
-            String playerTypeStr = String.join("; ", profile.playerType != null ? profile.playerType : new String[0]);
-            String highlightsStr = String.join("; ", profile.highlights != null ? profile.highlights : new String[0]);
-            String skillsStr = profile.getSkillsFormatted();
-
-            // Format latest_team_position as #<number> and remove any trailing / or whitespace
-            String formattedPosition = "";
-            if (profile.latest_team_position != null) {
-                String temp = profile.latest_team_position.trim();
-                // Remove any trailing / and whitespace
-                temp = temp.replaceAll("/.*$", "").trim();
-                if (!temp.isEmpty()) {
-                    // Add # if not present
-                    if (!temp.startsWith("#")) {
-                        formattedPosition = "#" + temp;
-                    } else {
-                        formattedPosition = temp;
-                    }
-                }
-            }
+    static void writeProfileToCSV(PlayerProfile profile) throws IOException {
+        writeProfileToCSV(profile, EliteProspectsAPI.fetchPositionJson(profile.userId, profile.position));
+    }
 
-            // Fetch stats from EliteProspectsAPI and use JSON in the Position cell
-            String positionJson = "";
-            try {
-                String statsResponse = EliteProspectsAPI.fetchStatsFromAPI(profile.userId);
-                positionJson = EliteProspectsAPI.parsePlayerStats(profile.position, statsResponse);
-            } catch (Exception e) {
-                positionJson = profile.position != null ? profile.position : "";
+    /**
+     * Appends a single player profile to the CSV file.
+     *
+     * @param profile      The PlayerProfile to write
+     * @param positionJson Position cell, see {@link EliteProspectsAPI#fetchPositionJson(String, String)}
+     */
+    static void writeProfileToCSV(PlayerProfile profile, String positionJson) throws IOException {
+        OutputCsv.append(Paths.get(OUTPUT_DIR), csvRow(profile, positionJson));
+    }
+
+    /**
+     * Formats a profile as one output.csv line (ending in a newline).
+     */
+    static String csvRow(PlayerProfile profile, String positionJson) {
+        // ids from profile links are numeric; anything else is written as scraped
+        long id = parsePlayerId(profile.userId);
+        CompactPlayerProfile compact = CompactPlayerProfile.from(id >= 0 ? id : CompactPlayerProfile.UNKNOWN, profile);
+        return csvRow(id >= 0 ? String.valueOf(id) : profile.userId, compact, positionJson);
+    }
+
+    static String csvRow(CompactPlayerProfile profile, String positionJson) {
+        return csvRow(String.valueOf(profile.playerId), profile, positionJson);
+    }
+
+    private static String csvRow(String userId, CompactPlayerProfile profile, String positionJson) {
+        String playerTypeStr = String.join("; ", profile.playerType != null ? profile.playerType : new String[0]);
+        String highlightsStr = String.join("; ", profile.highlights != null ? profile.highlights : new String[0]);
+        String skillsStr = PlayerProfile.formatSkills(profile.skills);
+
+        // Format latest_team_position as #<number> and remove any trailing / or whitespace
+        String formattedPosition = "";
+        if (profile.latestTeamPosition != null) {
+            String temp = profile.latestTeamPosition.trim();
+            // Remove any trailing / and whitespace
+            temp = temp.replaceAll("/.*$", "").trim();
+            if (!temp.isEmpty()) {
+                // Add # if not present
+                if (!temp.startsWith("#")) {
+                    formattedPosition = "#" + temp;
+                } else {
+                    formattedPosition = temp;
+                }
             }
+        }
 
-                    // Build CSV row safely without String.format to avoid format-specifier issues
-                    String[] fields = new String[] {
-                        escapeForFormat(escapeCSV(profile.userId)),
-                        escapeForFormat(escapeCSV(profile.userName)),
-                        escapeForFormat(escapeCSV(profile.name)),
-                        escapeForFormat(escapeCSV(profile.dateOfBirth)),
-                        escapeForFormat(escapeCSV(profile.age)),
-                        escapeForFormat(escapeCSV(profile.placeOfBirth)),
-                        escapeForFormat(escapeCSV(profile.nation)),
-                        escapeForFormat(escapeCSV(profile.youthTeam)),
-                        escapeForFormat(escapeCSV(formattedPosition)),
-                        escapeForFormat(escapeCSV(profile.latest_team)),
-                        escapeForFormat(escapeCSV(profile.season)),
-                        escapeForFormat(escapeCSV(positionJson)), // JSON in Position cell
-                        escapeForFormat(escapeCSV(profile.height)),
-                        escapeForFormat(escapeCSV(profile.weight)),
-                        escapeForFormat(escapeCSV(profile.shoots)),
-                        escapeForFormat(escapeCSV(profile.contract)),
-                        escapeForFormat(playerTypeStr),
-                        escapeForFormat(escapeCSV(profile.capHit)),
-                        escapeForFormat(escapeCSV(profile.capHitImage)),
-                        escapeForFormat(escapeCSV(profile.nhlRights)),
-                        escapeForFormat(escapeCSV(profile.drafted)),
-                        escapeForFormat(highlightsStr),
-                        escapeForFormat(escapeCSV(profile.agency)),
-                        escapeForFormat(escapeCSV(profile.relation)),
-                        escapeForFormat(escapeCSV(profile.imageUrl)),
-                        escapeForFormat(skillsStr),
-                        escapeForFormat(escapeCSV(profile.status))
-                    };
-                    StringBuilder row = new StringBuilder();
-                    for (int i = 0; i < fields.length; i++) {
-                        if (i > 0) row.append(',');
-                        row.append(fields[i]);
-                    }
-                    row.append('\n');
-                    writer.write(row.toString());
-        } catch (IOException e) {
-            e.printStackTrace();
+        // Build CSV row safely without String.format to avoid format-specifier issues
+        String[] fields = new String[] {
+            escapeForFormat(escapeCSV(userId)),
+            escapeForFormat(escapeCSV(profile.userName)),
+            escapeForFormat(escapeCSV(profile.name)),
+            escapeForFormat(escapeCSV(profile.dateOfBirthText())),
+            escapeForFormat(escapeCSV(profile.ageText())),
+            escapeForFormat(escapeCSV(profile.placeOfBirth)),
+            escapeForFormat(escapeCSV(profile.nation)),
+            escapeForFormat(escapeCSV(profile.youthTeam)),
+            escapeForFormat(escapeCSV(formattedPosition)),
+            escapeForFormat(escapeCSV(profile.latestTeam)),
+            escapeForFormat(escapeCSV(profile.season)),
+            escapeForFormat(escapeCSV(positionJson)), // JSON in Position cell
+            escapeForFormat(escapeCSV(profile.heightText())),
+            escapeForFormat(escapeCSV(profile.weightText())),
+            escapeForFormat(escapeCSV(profile.shoots)),
+            escapeForFormat(escapeCSV(profile.contract)),
+            escapeForFormat(escapeCSV(playerTypeStr)),
+            escapeForFormat(escapeCSV(profile.capHitText())),
+            escapeForFormat(escapeCSV(profile.capHitImage)),
+            escapeForFormat(escapeCSV(profile.nhlRights)),
+            escapeForFormat(escapeCSV(profile.draftedText())),
+            escapeForFormat(escapeCSV(highlightsStr)),
+            escapeForFormat(escapeCSV(profile.agency)),
+            escapeForFormat(escapeCSV(profile.relation)),
+            escapeForFormat(escapeCSV(profile.imageUrl)),
+            escapeForFormat(escapeCSV(skillsStr)),
+            escapeForFormat(escapeCSV(profile.status))
+        };
+        StringBuilder row = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) row.append(',');
+            row.append(fields[i]);
         }
+        row.append('\n');
+        return row.toString();
     }
 
     /**
@@ -386,7 +601,7 @@ public class TableScapper {
      * @param position The position
      * @param errorMessage The error message
      */
-    private static void logFailedPlayer(String playerId, String playerUserName, String position, String errorMessage) {
+    static void logFailedPlayer(String playerId, String playerUserName, String position, String errorMessage) {
         try (FileWriter writer = new FileWriter(FAILED_PLAYERS_FILE, true)) {
             String timestamp = java.time.LocalDateTime.now().toString();
             String[] parts = new String[] {
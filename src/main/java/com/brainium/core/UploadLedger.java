@@ -0,0 +1,105 @@
+package com.brainium.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.reflect.TypeToken;
+
+/**
+ * Remembers which players the API has accepted, with a hash of the exact
+ * payload that was sent, so a rerun after a partial failure only resends
+ * players that failed or whose data changed.
+ * Acknowledgements are appended to {@code <ledger>.log} per batch and
+ * periodically compacted into the snapshot (see {@link CheckpointLog}).
+ */
+public class UploadLedger implements Closeable {
+    private static final int COMPACT_EVERY = 5000;
+    private static final Gson gson = new Gson();
+
+    private final CheckpointLog log;
+    // user_id -> first 8 bytes of the SHA-256 of the accepted payload
+    private final Map<String, Long> accepted = new HashMap<>();
+
+    private UploadLedger(Path file) {
+        Path logFile = file.resolveSibling(file.getFileName() + ".log");
+        this.log = new CheckpointLog(file, logFile, COMPACT_EVERY);
+    }
+
+    /**
+     * Loads the ledger snapshot and replays any acknowledgements logged since.
+     */
+    public static UploadLedger open(Path file) throws IOException {
+        UploadLedger ledger = new UploadLedger(file);
+        String json = ledger.log.readSnapshot();
+        if (json != null) {
+            try {
+                Map<String, Long> snapshot = gson.fromJson(json, new TypeToken<Map<String, Long>>() {
+                }.getType());
+                if (snapshot != null) ledger.accepted.putAll(snapshot);
+            } catch (Exception e) {
+                System.err.println("⚠️  Failed to read upload ledger, every player will be sent: " + e.getMessage());
+            }
+        }
+        for (JsonObject record : ledger.log.readRecords()) {
+            ledger.accepted.put(record.get("id").getAsString(), record.get("h").getAsLong());
+        }
+        return ledger;
+    }
+
+    /**
+     * True if exactly this payload was already accepted for the player.
+     */
+    public synchronized boolean isUnchanged(UploadRecord player) {
+        if (player.id == null || player.id.isEmpty()) return false;
+        Long hash = accepted.get(player.id);
+        return hash != null && hash == hash(player.json);
+    }
+
+    /**
+     * Records every player of an accepted batch.
+     */
+    public synchronized void markAccepted(List<UploadRecord> batch) throws IOException {
+        List<JsonObject> records = new ArrayList<>(batch.size());
+        for (UploadRecord player : batch) {
+            if (player.id == null || player.id.isEmpty()) continue;
+            long h = hash(player.json);
+            Long previous = accepted.put(player.id, h);
+            if (previous != null && previous == h) continue;
+            JsonObject record = new JsonObject();
+            record.addProperty("id", player.id);
+            record.addProperty("h", h);
+            records.add(record);
+        }
+        if (log.appendAll(records)) {
+            log.compact(gson.toJson(accepted));
+        }
+    }
+
+    public synchronized int size() {
+        return accepted.size();
+    }
+
+    static long hash(byte[] payload) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(payload);
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        log.close();
+    }
+}
@@ -0,0 +1,73 @@
+package com.brainium.core;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * One player ready for upload: its serialized JSON plus the id and profile
+ * link needed for logging and failure reports, so the parsed tree can be
+ * dropped as soon as the player is read.
+ */
+public final class UploadRecord {
+    // Same settings as the batch serializer used before streaming (nulls omitted)
+    private static final Gson compactGson = new Gson();
+
+    public final String id;
+    public final String url;
+    public final byte[] json;
+    // Why the upload schema rejects this player; empty if it can be sent
+    public final List<String> problems;
+
+    public UploadRecord(String id, String url, byte[] json) {
+        this(id, url, json, Collections.emptyList());
+    }
+
+    private UploadRecord(String id, String url, byte[] json, List<String> problems) {
+        this.id = id;
+        this.url = url;
+        this.json = json;
+        this.problems = problems;
+    }
+
+    /**
+     * Normalizes and checks the player against {@link UploadSchema#player()},
+     * then serializes it.
+     */
+    public static UploadRecord of(JsonElement player) {
+        List<String> problems = UploadSchema.player().validate(player);
+        return new UploadRecord(stringField(player, "user_id"), stringField(player, "profile_link"),
+                compactGson.toJson(player).getBytes(StandardCharsets.UTF_8), problems);
+    }
+
+    /**
+     * Builds a record from one exported player object (JSON text).
+     */
+    public static UploadRecord fromExportJson(String json) {
+        return of(JsonParser.parseString(json));
+    }
+
+    public boolean isValid() {
+        return problems.isEmpty();
+    }
+
+    private static String stringField(JsonElement player, String name) {
+        if (player == null || !player.isJsonObject()) {
+            return null;
+        }
+        JsonObject obj = player.getAsJsonObject();
+        if (!obj.has(name)) {
+            return null;
+        }
+        try {
+            return obj.get(name).getAsString().trim();
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+}
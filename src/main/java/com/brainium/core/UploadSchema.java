@@ -0,0 +1,236 @@
+package com.brainium.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * Pre-flight check for one player of an update-scrap-player-details request,
+ * compiled once from a small JSON-Schema subset (type, required, maxLength,
+ * pattern, minimum, default). Players that would fail server validation are
+ * rejected locally instead of costing a 422 and a round of batch bisection.
+ *
+ * The schema is read from UPLOAD_SCHEMA if set, otherwise from the bundled
+ * classpath resource schema/update-scrap-player-details.json.
+ */
+public final class UploadSchema {
+
+    static final String RESOURCE = "/schema/update-scrap-player-details.json";
+    private static final String SCHEMA_FILE = System.getenv("UPLOAD_SCHEMA");
+
+    private static volatile UploadSchema player;
+
+    private enum Type { STRING, INTEGER, NUMBER, BOOLEAN, NULL }
+
+    private static final class Field {
+        final String name;
+        final EnumSet<Type> types;
+        final int maxLength;
+        final Pattern pattern;
+        final Long minimum;
+        final JsonElement defaultValue;
+
+        Field(String name, EnumSet<Type> types, int maxLength, Pattern pattern, Long minimum, JsonElement defaultValue) {
+            this.name = name;
+            this.types = types;
+            this.maxLength = maxLength;
+            this.pattern = pattern;
+            this.minimum = minimum;
+            this.defaultValue = defaultValue;
+        }
+    }
+
+    private final Field[] fields;
+    private final String[] required;
+
+    private UploadSchema(Field[] fields, String[] required) {
+        this.fields = fields;
+        this.required = required;
+    }
+
+    /**
+     * The player schema, loaded on first use.
+     */
+    public static UploadSchema player() {
+        UploadSchema schema = player;
+        if (schema == null) {
+            synchronized (UploadSchema.class) {
+                if (player == null) {
+                    player = load();
+                }
+                schema = player;
+            }
+        }
+        return schema;
+    }
+
+    private static UploadSchema load() {
+        try {
+            if (SCHEMA_FILE != null) {
+                try (Reader reader = Files.newBufferedReader(Path.of(SCHEMA_FILE), StandardCharsets.UTF_8)) {
+                    return compile(JsonParser.parseReader(reader).getAsJsonObject());
+                }
+            }
+            try (InputStream in = UploadSchema.class.getResourceAsStream(RESOURCE)) {
+                if (in == null) {
+                    throw new IOException("resource " + RESOURCE + " not found");
+                }
+                return compile(JsonParser.parseReader(new InputStreamReader(in, StandardCharsets.UTF_8)).getAsJsonObject());
+            }
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalStateException("Could not load upload schema: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Compiles an object schema; unknown keywords are ignored.
+     */
+    static UploadSchema compile(JsonObject schema) {
+        List<Field> fields = new ArrayList<>();
+        JsonObject properties = schema.has("properties") ? schema.getAsJsonObject("properties") : new JsonObject();
+        for (Map.Entry<String, JsonElement> property : properties.entrySet()) {
+            JsonObject spec = property.getValue().getAsJsonObject();
+            EnumSet<Type> types = EnumSet.noneOf(Type.class);
+            JsonElement type = spec.get("type");
+            if (type == null) {
+                types = EnumSet.allOf(Type.class);
+            } else if (type.isJsonArray()) {
+                for (JsonElement t : type.getAsJsonArray()) {
+                    types.add(Type.valueOf(t.getAsString().toUpperCase()));
+                }
+            } else {
+                types.add(Type.valueOf(type.getAsString().toUpperCase()));
+            }
+            fields.add(new Field(property.getKey(), types,
+                    spec.has("maxLength") ? spec.get("maxLength").getAsInt() : Integer.MAX_VALUE,
+                    spec.has("pattern") ? Pattern.compile(spec.get("pattern").getAsString()) : null,
+                    spec.has("minimum") ? spec.get("minimum").getAsLong() : null,
+                    spec.get("default")));
+        }
+        List<String> required = new ArrayList<>();
+        if (schema.has("required")) {
+            JsonArray names = schema.getAsJsonArray("required");
+            for (JsonElement name : names) {
+                required.add(name.getAsString());
+            }
+        }
+        return new UploadSchema(fields.toArray(new Field[0]), required.toArray(new String[0]));
+    }
+
+    /**
+     * Normalizes the player in place (null becomes the field's default where
+     * null is not allowed) and returns what is still wrong with it, or an empty
+     * list if the server should accept it.
+     */
+    public List<String> validate(JsonElement playerElement) {
+        if (playerElement == null || !playerElement.isJsonObject()) {
+            return List.of("not a JSON object");
+        }
+        JsonObject player = playerElement.getAsJsonObject();
+        List<String> problems = null;
+        for (String name : required) {
+            JsonElement value = player.get(name);
+            if (value == null || value.isJsonNull()) {
+                problems = add(problems, name + " is required");
+            }
+        }
+        for (Field field : fields) {
+            JsonElement value = player.get(field.name);
+            if (value == null) {
+                continue;
+            }
+            if (value.isJsonNull()) {
+                if (!field.types.contains(Type.NULL) && field.defaultValue != null) {
+                    player.add(field.name, field.defaultValue.deepCopy());
+                } else if (!field.types.contains(Type.NULL) && !isRequired(field.name)) {
+                    problems = add(problems, field.name + " must not be null");
+                }
+                continue;
+            }
+            String problem = check(field, value);
+            if (problem != null) {
+                problems = add(problems, problem);
+            }
+        }
+        return problems == null ? Collections.emptyList() : problems;
+    }
+
+    private static String check(Field field, JsonElement value) {
+        if (!value.isJsonPrimitive()) {
+            return field.name + " must be a " + typeNames(field.types) + ", not a JSON "
+                    + (value.isJsonArray() ? "array" : "object");
+        }
+        JsonPrimitive primitive = value.getAsJsonPrimitive();
+        if (primitive.isString()) {
+            if (!field.types.contains(Type.STRING)) {
+                return field.name + " must be a " + typeNames(field.types) + ", not a string";
+            }
+            String s = primitive.getAsString();
+            // maxLength counts characters (code points), like the server's validator
+            if (field.maxLength != Integer.MAX_VALUE && s.codePointCount(0, s.length()) > field.maxLength) {
+                return field.name + " is longer than " + field.maxLength + " characters";
+            }
+            if (field.pattern != null && !field.pattern.matcher(s).find()) {
+                return field.name + " does not match " + field.pattern.pattern() + ": " + abbreviate(s);
+            }
+            return null;
+        }
+        if (primitive.isBoolean()) {
+            return field.types.contains(Type.BOOLEAN) ? null
+                    : field.name + " must be a " + typeNames(field.types) + ", not a boolean";
+        }
+        // number
+        boolean integral = primitive.getAsBigDecimal().stripTrailingZeros().scale() <= 0;
+        if (!field.types.contains(Type.NUMBER) && !(integral && field.types.contains(Type.INTEGER))) {
+            return field.name + " must be a " + typeNames(field.types) + ", not the number " + primitive;
+        }
+        if (field.minimum != null && primitive.getAsBigDecimal().compareTo(BigDecimal.valueOf(field.minimum)) < 0) {
+            return field.name + " must be at least " + field.minimum;
+        }
+        return null;
+    }
+
+    private boolean isRequired(String name) {
+        for (String r : required) {
+            if (r.equals(name)) return true;
+        }
+        return false;
+    }
+
+    private static List<String> add(List<String> problems, String problem) {
+        if (problems == null) {
+            problems = new ArrayList<>(2);
+        }
+        problems.add(problem);
+        return problems;
+    }
+
+    private static String typeNames(EnumSet<Type> types) {
+        List<String> names = new ArrayList<>();
+        for (Type t : types) {
+            if (t != Type.NULL) names.add(t.name().toLowerCase());
+        }
+        return String.join(" or ", names);
+    }
+
+    private static String abbreviate(String s) {
+        return s.length() <= 40 ? "\"" + s + "\"" : "\"" + s.substring(0, 40) + "...\"";
+    }
+}
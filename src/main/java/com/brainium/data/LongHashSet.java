@@ -0,0 +1,157 @@
+package com.brainium.data;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Open-addressing hash set of primitive {@code long} values.
+ * Used for numeric player ids so large id sets don't pay for a boxed Long
+ * (or String) plus a HashMap node per entry.
+ * Serialized by Gson as a flat JSON array of numbers; string elements are
+ * accepted on read so older status files still load.
+ */
+@JsonAdapter(LongHashSet.GsonAdapter.class)
+public class LongHashSet {
+    private static final float LOAD_FACTOR = 0.6f;
+
+    // 0 marks an empty slot; the value 0 itself is tracked separately
+    private long[] slots;
+    private boolean hasZero;
+    private int size;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        slots = new long[tableSizeFor(expectedSize)];
+    }
+
+    /**
+     * Adds a value to the set.
+     *
+     * @return true if the value was not already present
+     */
+    public boolean add(long value) {
+        if (value == 0) {
+            if (hasZero) return false;
+            hasZero = true;
+            size++;
+            return true;
+        }
+        int idx = indexOf(slots, value);
+        if (slots[idx] == value) return false;
+        slots[idx] = value;
+        size++;
+        if (size > slots.length * LOAD_FACTOR) {
+            rehash(slots.length << 1);
+        }
+        return true;
+    }
+
+    public boolean contains(long value) {
+        if (value == 0) return hasZero;
+        return slots[indexOf(slots, value)] == value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, 0L);
+        hasZero = false;
+        size = 0;
+    }
+
+    public void forEach(LongConsumer action) {
+        if (hasZero) action.accept(0L);
+        for (long v : slots) {
+            if (v != 0) action.accept(v);
+        }
+    }
+
+    public long[] toArray() {
+        long[] out = new long[size];
+        int[] i = {0};
+        forEach(v -> out[i[0]++] = v);
+        return out;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] old = slots;
+        slots = new long[newCapacity];
+        for (long v : old) {
+            if (v != 0) slots[indexOf(slots, v)] = v;
+        }
+    }
+
+    /**
+     * Linear probe for the slot holding {@code value}, or the first empty slot.
+     */
+    private static int indexOf(long[] table, long value) {
+        int mask = table.length - 1;
+        int idx = mix(value) & mask;
+        while (table[idx] != 0 && table[idx] != value) {
+            idx = (idx + 1) & mask;
+        }
+        return idx;
+    }
+
+    static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    static int tableSizeFor(int expectedSize) {
+        int needed = (int) Math.ceil(Math.max(expectedSize, 4) / LOAD_FACTOR);
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    /**
+     * Writes the set as a single-line JSON array so pretty-printed status files
+     * don't spend one line per id.
+     */
+    public static class GsonAdapter extends TypeAdapter<LongHashSet> {
+        @Override
+        public void write(JsonWriter out, LongHashSet set) throws IOException {
+            if (set == null) {
+                out.nullValue();
+                return;
+            }
+            StringBuilder sb = new StringBuilder(set.size() * 8 + 2).append('[');
+            set.forEach(v -> {
+                if (sb.length() > 1) sb.append(',');
+                sb.append(v);
+            });
+            out.jsonValue(sb.append(']').toString());
+        }
+
+        @Override
+        public LongHashSet read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return new LongHashSet();
+            }
+            LongHashSet set = new LongHashSet();
+            in.beginArray();
+            while (in.hasNext()) {
+                // nextLong() also accepts quoted numbers from the old String-based format
+                set.add(in.nextLong());
+            }
+            in.endArray();
+            return set;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.brainium.data;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from primitive {@code long} keys to object values.
+ * Keys and values live in parallel arrays, so there is no boxed key or entry
+ * node per mapping. Iteration order is unspecified, like {@link java.util.HashMap}.
+ *
+ * @param <V> value type
+ */
+public class LongObjectHashMap<V> {
+    private static final float LOAD_FACTOR = 0.6f;
+
+    /**
+     * Callback for {@link #forEach(EntryConsumer)} that avoids boxing the key.
+     */
+    public interface EntryConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    // 0 marks an empty key slot; a mapping for key 0 is kept on the side
+    private long[] keys;
+    private Object[] values;
+    private boolean hasZero;
+    private V zeroValue;
+    private int size;
+
+    public LongObjectHashMap() {
+        this(16);
+    }
+
+    public LongObjectHashMap(int expectedSize) {
+        int capacity = LongHashSet.tableSizeFor(expectedSize);
+        keys = new long[capacity];
+        values = new Object[capacity];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == 0) return hasZero ? zeroValue : null;
+        int idx = indexOf(keys, key);
+        return keys[idx] == key ? (V) values[idx] : null;
+    }
+
+    public V getOrDefault(long key, V defaultValue) {
+        V v = get(key);
+        return v != null || containsKey(key) ? v : defaultValue;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == 0) return hasZero;
+        return keys[indexOf(keys, key)] == key;
+    }
+
+    /**
+     * Associates {@code value} with {@code key}.
+     *
+     * @return the previous value, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (key == 0) {
+            V prev = zeroValue;
+            if (!hasZero) size++;
+            hasZero = true;
+            zeroValue = value;
+            return prev;
+        }
+        int idx = indexOf(keys, key);
+        if (keys[idx] == key) {
+            V prev = (V) values[idx];
+            values[idx] = value;
+            return prev;
+        }
+        keys[idx] = key;
+        values[idx] = value;
+        size++;
+        if (size > keys.length * LOAD_FACTOR) {
+            rehash(keys.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * Stores {@code value} only if the key has no mapping yet.
+     *
+     * @return the existing value, or null if the value was stored
+     */
+    public V putIfAbsent(long key, V value) {
+        if (containsKey(key)) return get(key);
+        put(key, value);
+        return null;
+    }
+
+    /**
+     * Removes the mapping for {@code key}. Later entries of the probe run are
+     * shifted back into the gap, so lookups stay correct without tombstones.
+     *
+     * @return the removed value, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if (key == 0) {
+            if (!hasZero) return null;
+            V prev = zeroValue;
+            hasZero = false;
+            zeroValue = null;
+            size--;
+            return prev;
+        }
+        int mask = keys.length - 1;
+        int gap = indexOf(keys, key);
+        if (keys[gap] != key) return null;
+        V prev = (V) values[gap];
+        size--;
+        int idx = gap;
+        while (true) {
+            idx = (idx + 1) & mask;
+            long k = keys[idx];
+            if (k == 0) break;
+            int home = LongHashSet.mix(k) & mask;
+            // move k into the gap unless its home slot lies cyclically in (gap, idx]
+            if (((idx - home) & mask) >= ((idx - gap) & mask)) {
+                keys[gap] = k;
+                values[gap] = values[idx];
+                gap = idx;
+            }
+        }
+        keys[gap] = 0;
+        values[gap] = null;
+        return prev;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(values, null);
+        hasZero = false;
+        zeroValue = null;
+        size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<V> action) {
+        if (hasZero) action.accept(0L, zeroValue);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) action.accept(keys[i], (V) values[i]);
+        }
+    }
+
+    public long[] keys() {
+        long[] out = new long[size];
+        int[] i = {0};
+        forEach((k, v) -> out[i[0]++] = k);
+        return out;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[newCapacity];
+        values = new Object[newCapacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int idx = indexOf(keys, oldKeys[i]);
+                keys[idx] = oldKeys[i];
+                values[idx] = oldValues[i];
+            }
+        }
+    }
+
+    private static int indexOf(long[] table, long key) {
+        int mask = table.length - 1;
+        int idx = LongHashSet.mix(key) & mask;
+        while (table[idx] != 0 && table[idx] != key) {
+            idx = (idx + 1) & mask;
+        }
+        return idx;
+    }
+}
@@ -0,0 +1,249 @@
+package com.brainium.data;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.brainium.schema.CompactPlayerProfile;
+import com.brainium.schema.PlayerProfile;
+import com.brainium.schema.Skill;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * In-memory store of scraped profiles keyed by numeric player id, held as
+ * {@link CompactPlayerProfile} (numeric fields parsed once on insert).
+ * Repetitive fields (nation, teams, agency, season, shoots, position, status,
+ * player types and skills) are interned through a {@link StringDictionary}, and
+ * {@link #writeEncoded(Path)} stores them as int codes with the code table in a
+ * sidecar {@code <file>.dict}.
+ */
+public class ProfileStore {
+    /**
+     * Dictionary shared by ProfileScapper and the default store, so equal
+     * values from different scrapes collapse to one String instance.
+     */
+    public static final StringDictionary PROFILE_FIELDS = new StringDictionary();
+
+    private static final Gson gson = new Gson();
+
+    private final StringDictionary dictionary;
+    private final LongObjectHashMap<CompactPlayerProfile> profiles = new LongObjectHashMap<>();
+
+    public ProfileStore() {
+        this(PROFILE_FIELDS);
+    }
+
+    public ProfileStore(StringDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Replaces the repetitive fields of {@code profile} with canonical instances.
+     *
+     * @return the same profile, for chaining
+     */
+    public static PlayerProfile intern(PlayerProfile profile, StringDictionary dict) {
+        if (profile == null) return null;
+        profile.nation = dict.intern(profile.nation);
+        profile.latest_team = dict.intern(profile.latest_team);
+        profile.youthTeam = dict.intern(profile.youthTeam);
+        profile.agency = dict.intern(profile.agency);
+        profile.season = dict.intern(profile.season);
+        profile.shoots = dict.intern(profile.shoots);
+        profile.position = dict.intern(profile.position);
+        profile.status = dict.intern(profile.status);
+        dict.internAll(profile.playerType);
+        if (profile.skills != null) {
+            for (Skill skill : profile.skills) {
+                skill.name = dict.intern(skill.name);
+                skill.image = dict.intern(skill.image);
+            }
+        }
+        return profile;
+    }
+
+    /**
+     * Interns, parses and stores a profile, replacing any previous one for the id.
+     *
+     * @return the stored compact form
+     */
+    public synchronized CompactPlayerProfile put(long playerId, PlayerProfile profile) {
+        CompactPlayerProfile compact = CompactPlayerProfile.from(playerId, intern(profile, dictionary));
+        profiles.put(playerId, compact);
+        return compact;
+    }
+
+    /**
+     * Returns a copy of the stored profile expanded to display strings, or null;
+     * writers read {@link #getCompact(long)} instead.
+     */
+    public synchronized PlayerProfile get(long playerId) {
+        CompactPlayerProfile compact = profiles.get(playerId);
+        return compact != null ? compact.toPlayerProfile() : null;
+    }
+
+    public synchronized CompactPlayerProfile getCompact(long playerId) {
+        return profiles.get(playerId);
+    }
+
+    public synchronized int size() {
+        return profiles.size();
+    }
+
+    public synchronized void forEach(LongObjectHashMap.EntryConsumer<CompactPlayerProfile> action) {
+        profiles.forEach(action);
+    }
+
+    /**
+     * Writes every profile as one JSON line with dictionary fields replaced by
+     * codes, then appends new dictionary entries to {@code <file>.dict}.
+     */
+    public synchronized void writeEncoded(Path file) throws IOException {
+        try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            IOException[] failure = new IOException[1];
+            profiles.forEach((id, profile) -> {
+                if (failure[0] != null) return;
+                try {
+                    w.write(gson.toJson(encode(id, profile)));
+                    w.newLine();
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            if (failure[0] != null) throw failure[0];
+        }
+        dictionary.save(dictionaryPath(file));
+    }
+
+    /**
+     * Reads a file produced by {@link #writeEncoded(Path)} back into a new store.
+     */
+    public static ProfileStore readEncoded(Path file) throws IOException {
+        ProfileStore store = new ProfileStore(StringDictionary.load(dictionaryPath(file)));
+        try (BufferedReader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                JsonObject obj = JsonParser.parseString(line).getAsJsonObject();
+                long id = obj.get("id").getAsLong();
+                store.profiles.put(id, CompactPlayerProfile.from(id, store.decode(obj)));
+            }
+        }
+        return store;
+    }
+
+    static Path dictionaryPath(Path file) {
+        return file.resolveSibling(file.getFileName() + ".dict");
+    }
+
+    private JsonObject encode(long id, CompactPlayerProfile p) {
+        JsonObject o = new JsonObject();
+        o.addProperty("id", id);
+        o.addProperty("userId", String.valueOf(p.playerId));
+        o.addProperty("userName", p.userName);
+        o.addProperty("name", p.name);
+        o.addProperty("dateOfBirth", p.dateOfBirthText());
+        o.addProperty("age", p.ageText());
+        o.addProperty("placeOfBirth", p.placeOfBirth);
+        o.addProperty("nation", dictionary.encode(p.nation));
+        o.addProperty("youthTeam", dictionary.encode(p.youthTeam));
+        o.addProperty("latest_team_position", p.latestTeamPosition);
+        o.addProperty("latest_team", dictionary.encode(p.latestTeam));
+        o.addProperty("season", dictionary.encode(p.season));
+        o.addProperty("position", dictionary.encode(p.position));
+        o.addProperty("height", p.heightText());
+        o.addProperty("weight", p.weightText());
+        o.addProperty("shoots", dictionary.encode(p.shoots));
+        o.addProperty("contract", p.contract);
+        o.add("playerType", encodeAll(p.playerType));
+        o.addProperty("capHit", p.capHitText());
+        o.addProperty("capHitImage", p.capHitImage);
+        o.addProperty("nhlRights", p.nhlRights);
+        o.addProperty("drafted", p.draftedText());
+        o.add("highlights", gson.toJsonTree(p.highlights));
+        o.addProperty("agency", dictionary.encode(p.agency));
+        o.addProperty("imageUrl", p.imageUrl);
+        o.addProperty("relation", p.relation);
+        // skills as flat [nameCode, imageCode, nameCode, imageCode, ...]
+        JsonArray skills = new JsonArray();
+        if (p.skills != null) {
+            for (Skill s : p.skills) {
+                skills.add(dictionary.encode(s.name));
+                skills.add(dictionary.encode(s.image));
+            }
+        }
+        o.add("skills", skills);
+        o.addProperty("status", dictionary.encode(p.status));
+        return o;
+    }
+
+    private PlayerProfile decode(JsonObject o) {
+        PlayerProfile p = new PlayerProfile();
+        p.userId = string(o, "userId");
+        p.userName = string(o, "userName");
+        p.name = string(o, "name");
+        p.dateOfBirth = string(o, "dateOfBirth");
+        p.age = string(o, "age");
+        p.placeOfBirth = string(o, "placeOfBirth");
+        p.nation = code(o, "nation");
+        p.youthTeam = code(o, "youthTeam");
+        p.latest_team_position = string(o, "latest_team_position");
+        p.latest_team = code(o, "latest_team");
+        p.season = code(o, "season");
+        p.position = code(o, "position");
+        p.height = string(o, "height");
+        p.weight = string(o, "weight");
+        p.shoots = code(o, "shoots");
+        p.contract = string(o, "contract");
+        p.playerType = decodeAll(o.getAsJsonArray("playerType"));
+        p.capHit = string(o, "capHit");
+        p.capHitImage = string(o, "capHitImage");
+        p.nhlRights = string(o, "nhlRights");
+        p.drafted = string(o, "drafted");
+        p.highlights = gson.fromJson(o.get("highlights"), String[].class);
+        p.agency = code(o, "agency");
+        p.imageUrl = string(o, "imageUrl");
+        p.relation = string(o, "relation");
+        JsonArray skills = o.getAsJsonArray("skills");
+        p.skills = new Skill[skills.size() / 2];
+        for (int i = 0; i < p.skills.length; i++) {
+            p.skills[i] = new Skill(dictionary.decode(skills.get(2 * i).getAsInt()),
+                    dictionary.decode(skills.get(2 * i + 1).getAsInt()));
+        }
+        p.status = code(o, "status");
+        return p;
+    }
+
+    private JsonElement encodeAll(String[] values) {
+        if (values == null) return null;
+        JsonArray arr = new JsonArray();
+        for (String v : values) arr.add(dictionary.encode(v));
+        return arr;
+    }
+
+    private String[] decodeAll(JsonArray arr) {
+        if (arr == null) return null;
+        String[] out = new String[arr.size()];
+        for (int i = 0; i < out.length; i++) out[i] = dictionary.decode(arr.get(i).getAsInt());
+        return out;
+    }
+
+    private String code(JsonObject o, String key) {
+        JsonElement e = o.get(key);
+        return e == null || e.isJsonNull() ? null : dictionary.decode(e.getAsInt());
+    }
+
+    private static String string(JsonObject o, String key) {
+        JsonElement e = o.get(key);
+        return e == null || e.isJsonNull() ? null : e.getAsString();
+    }
+}
@@ -0,0 +1,280 @@
+package com.brainium.data;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Long-lived, compressed history of scraped profiles.
+ * Records (one JSON line each) are buffered into blocks of up to
+ * {@link #BLOCK_RECORDS} lines and each block is written as its own gzip member,
+ * so a segment file ({@code segment-000001.jsonl.gz}) is still a plain gzip
+ * file that {@code zcat} can read. Segments roll once they reach
+ * {@code maxSegmentBytes}.
+ *
+ * A sidecar {@code index.bin} maps player id to (segment, block offset, line in
+ * block) for the latest record of each player, so {@link #get(long)} only
+ * decompresses one block.
+ */
+public class SegmentedProfileLog implements Closeable {
+    static final int BLOCK_RECORDS = 128;
+    static final int BLOCK_BYTES = 256 * 1024;
+    public static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".jsonl.gz";
+    private static final String INDEX_FILE = "index.bin";
+    // index entry: long id + long packed location
+    private static final int INDEX_ENTRY_BYTES = 16;
+
+    private final Path dir;
+    private final long maxSegmentBytes;
+    private final LongObjectHashMap<Long> index = new LongObjectHashMap<>();
+
+    private int segment;
+    private OutputStream segmentOut;
+    private long segmentSize;
+    private DataOutputStream indexOut;
+
+    private final ByteArrayOutputStream block = new ByteArrayOutputStream();
+    private final long[] blockIds = new long[BLOCK_RECORDS];
+    private int blockCount = 0;
+
+    private SegmentedProfileLog(Path dir, long maxSegmentBytes) {
+        this.dir = dir;
+        this.maxSegmentBytes = maxSegmentBytes;
+    }
+
+    /**
+     * Opens the log in {@code dir}, loading the index. Appends always go to a
+     * fresh segment so a torn block from a previous crash is never written after.
+     */
+    public static SegmentedProfileLog open(Path dir, long maxSegmentBytes) throws IOException {
+        Files.createDirectories(dir);
+        SegmentedProfileLog log = new SegmentedProfileLog(dir, maxSegmentBytes);
+        log.loadIndex();
+        List<Integer> existing = log.segments();
+        log.segment = existing.isEmpty() ? 1 : existing.get(existing.size() - 1) + 1;
+        return log;
+    }
+
+    private void loadIndex() throws IOException {
+        Path indexPath = dir.resolve(INDEX_FILE);
+        if (!Files.exists(indexPath)) return;
+        long complete = Files.size(indexPath) / INDEX_ENTRY_BYTES * INDEX_ENTRY_BYTES;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(indexPath)))) {
+            for (long read = 0; read < complete; read += INDEX_ENTRY_BYTES) {
+                long id = in.readLong();
+                index.put(id, in.readLong());
+            }
+        }
+        if (complete != Files.size(indexPath)) {
+            // drop a torn trailing entry so new entries stay aligned
+            try (FileChannel ch = FileChannel.open(indexPath, StandardOpenOption.WRITE)) {
+                ch.truncate(complete);
+            }
+        }
+    }
+
+    /**
+     * Appends a record for {@code playerId}. The record becomes the player's
+     * latest entry in the index once its block is written.
+     */
+    public synchronized void append(long playerId, String json) throws IOException {
+        if (json.indexOf('\n') >= 0) {
+            throw new IllegalArgumentException("Record must be a single line");
+        }
+        block.write(json.getBytes(StandardCharsets.UTF_8));
+        block.write('\n');
+        blockIds[blockCount++] = playerId;
+        if (blockCount == BLOCK_RECORDS || block.size() >= BLOCK_BYTES) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Compresses the buffered records into one gzip member, then records their
+     * locations in the index (segment data is always written before the index).
+     */
+    private void writeBlock() throws IOException {
+        if (blockCount == 0) return;
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(block.size() / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(compressed)) {
+            block.writeTo(gz);
+        }
+        if (segmentOut == null) {
+            Path file = segmentPath(segment);
+            segmentSize = Files.exists(file) ? Files.size(file) : 0;
+            segmentOut = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        long offset = segmentSize;
+        compressed.writeTo(segmentOut);
+        segmentOut.flush();
+        segmentSize += compressed.size();
+
+        if (indexOut == null) {
+            indexOut = new DataOutputStream(Files.newOutputStream(dir.resolve(INDEX_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+        }
+        ByteArrayOutputStream entries = new ByteArrayOutputStream(blockCount * INDEX_ENTRY_BYTES);
+        DataOutputStream e = new DataOutputStream(entries);
+        for (int line = 0; line < blockCount; line++) {
+            long location = pack(segment, offset, line);
+            e.writeLong(blockIds[line]);
+            e.writeLong(location);
+            index.put(blockIds[line], location);
+        }
+        entries.writeTo(indexOut);
+        indexOut.flush();
+
+        block.reset();
+        blockCount = 0;
+        if (segmentSize >= maxSegmentBytes) {
+            segmentOut.close();
+            segmentOut = null;
+            segment++;
+        }
+    }
+
+    /**
+     * Returns the latest record for a player, or null if it was never logged.
+     */
+    public synchronized String get(long playerId) throws IOException {
+        for (int i = 0; i < blockCount; i++) {
+            if (blockIds[i] == playerId) {
+                writeBlock();
+                break;
+            }
+        }
+        Long location = index.get(playerId);
+        if (location == null) return null;
+        int seg = segmentOf(location);
+        try (FileChannel ch = FileChannel.open(segmentPath(seg), StandardOpenOption.READ)) {
+            ch.position(offsetOf(location));
+            BufferedReader r = reader(Channels.newInputStream(ch));
+            String line = null;
+            for (int i = 0; i <= lineOf(location); i++) {
+                line = r.readLine();
+            }
+            return line;
+        }
+    }
+
+    public synchronized boolean contains(long playerId) {
+        if (index.containsKey(playerId)) return true;
+        for (int i = 0; i < blockCount; i++) {
+            if (blockIds[i] == playerId) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Number of distinct players with a written record.
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Streams every record (including superseded ones) in append order.
+     * A torn block at the end of a segment is reported and skipped.
+     */
+    public synchronized void scan(Consumer<String> action) throws IOException {
+        writeBlock();
+        for (int seg : segments()) {
+            Path file = segmentPath(seg);
+            try (BufferedReader r = reader(Files.newInputStream(file))) {
+                String line;
+                while ((line = r.readLine()) != null) {
+                    action.accept(line);
+                }
+            } catch (EOFException | ZipException e) {
+                System.err.println("⚠️  Truncated block at end of " + file.getFileName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes any buffered records.
+     */
+    public synchronized void flush() throws IOException {
+        writeBlock();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writeBlock();
+        if (segmentOut != null) {
+            segmentOut.close();
+            segmentOut = null;
+        }
+        if (indexOut != null) {
+            indexOut.close();
+            indexOut = null;
+        }
+    }
+
+    private List<Integer> segments() throws IOException {
+        List<Integer> numbers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(p -> p.getFileName().toString())
+                    .filter(n -> n.startsWith(SEGMENT_PREFIX) && n.endsWith(SEGMENT_SUFFIX))
+                    .forEach(n -> {
+                        try {
+                            numbers.add(Integer.parseInt(
+                                    n.substring(SEGMENT_PREFIX.length(), n.length() - SEGMENT_SUFFIX.length())));
+                        } catch (NumberFormatException ignored) {
+                        }
+                    });
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+
+    Path segmentPath(int seg) {
+        return dir.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, seg, SEGMENT_SUFFIX));
+    }
+
+    private static BufferedReader reader(InputStream in) throws IOException {
+        return new BufferedReader(new InputStreamReader(new GZIPInputStream(in), StandardCharsets.UTF_8));
+    }
+
+    // location = segment (16 bits) | block offset (40 bits) | line in block (8 bits)
+    static long pack(int segment, long offset, int line) {
+        return ((long) segment << 48) | (offset << 8) | line;
+    }
+
+    static int segmentOf(long location) {
+        return (int) (location >>> 48);
+    }
+
+    static long offsetOf(long location) {
+        return (location >>> 8) & ((1L << 40) - 1);
+    }
+
+    static int lineOf(long location) {
+        return (int) (location & 0xFF);
+    }
+}
@@ -0,0 +1,120 @@
+package com.brainium.data;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.Gson;
+
+/**
+ * Thread-safe string dictionary: maps each distinct value to a dense int code
+ * and hands out one canonical String instance per value.
+ * The code table is persisted as one JSON string per line (line number = code),
+ * and {@link #save(Path)} only appends entries added since the last save.
+ */
+public class StringDictionary {
+    // Code used for null values
+    public static final int NULL_CODE = -1;
+
+    private static final Gson gson = new Gson();
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+    private int persistedCount = 0;
+    private Path persistedTo;
+
+    /**
+     * Returns the code for {@code value}, assigning a new one if needed.
+     */
+    public synchronized int encode(String value) {
+        if (value == null) return NULL_CODE;
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    /**
+     * Returns the value for a code produced by {@link #encode(String)}.
+     */
+    public synchronized String decode(int code) {
+        if (code == NULL_CODE) return null;
+        if (code < 0 || code >= values.size()) {
+            throw new IllegalArgumentException("Unknown dictionary code: " + code);
+        }
+        return values.get(code);
+    }
+
+    /**
+     * Returns the canonical instance equal to {@code value}.
+     */
+    public String intern(String value) {
+        return decode(encode(value));
+    }
+
+    /**
+     * Interns every element of the array in place.
+     */
+    public String[] internAll(String[] array) {
+        if (array == null) return null;
+        for (int i = 0; i < array.length; i++) {
+            array[i] = intern(array[i]);
+        }
+        return array;
+    }
+
+    public synchronized int size() {
+        return values.size();
+    }
+
+    /**
+     * Writes the code table, appending only entries added since the last save
+     * to the same file; a different or missing file gets the full table.
+     */
+    public synchronized void save(Path file) throws IOException {
+        if (!file.equals(persistedTo) || !Files.exists(file)) {
+            persistedCount = 0;
+        }
+        StandardOpenOption mode = persistedCount == 0 ? StandardOpenOption.TRUNCATE_EXISTING
+                : StandardOpenOption.APPEND;
+        try (BufferedWriter w = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode)) {
+            for (int i = persistedCount; i < values.size(); i++) {
+                w.write(gson.toJson(values.get(i)));
+                w.newLine();
+            }
+        }
+        persistedCount = values.size();
+        persistedTo = file;
+    }
+
+    /**
+     * Loads a code table written by {@link #save(Path)}; returns an empty
+     * dictionary if the file doesn't exist.
+     */
+    public static StringDictionary load(Path file) throws IOException {
+        StringDictionary dict = new StringDictionary();
+        if (!Files.exists(file)) return dict;
+        try (BufferedReader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                dict.encode(gson.fromJson(line, String.class));
+            }
+        }
+        dict.persistedCount = dict.values.size();
+        dict.persistedTo = file;
+        return dict;
+    }
+}
@@ -0,0 +1,527 @@
+package com.brainium.schema;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Typed, compact form of {@link PlayerProfile}.
+ * Height, weight, date of birth, age, cap hit and draft info are parsed once
+ * into primitives; repetitive strings are expected to be interned already
+ * (see ProfileStore). Display strings that don't match the site's usual format
+ * are kept verbatim, and missing ones stay null, so {@link #toPlayerProfile()}
+ * is lossless. Writers read the typed fields, or the {@code *Text()} display
+ * forms, directly instead of expanding the whole profile.
+ */
+public final class CompactPlayerProfile {
+    // Sentinel for numeric fields that were empty or unparseable
+    public static final int UNKNOWN = -1;
+    private static final int UNKNOWN_DAY = Integer.MIN_VALUE;
+
+    private static final DateTimeFormatter DOB_FORMAT = DateTimeFormatter.ofPattern("MMM d, yyyy", Locale.ENGLISH);
+    private static final Pattern HEIGHT = Pattern.compile("^(\\d{2,3}) cm / (\\d)'(\\d{1,2})\"$");
+    private static final Pattern WEIGHT = Pattern.compile("^(\\d{2,3}) kg / (\\d{2,3}) lbs$");
+    private static final Pattern CAP_HIT = Pattern.compile("^\\$(\\d{1,3}(?:,\\d{3})*)$");
+    private static final Pattern DRAFTED = Pattern.compile("^(\\d{4}) round (\\d{1,2}) #(\\d{1,3}) overall by (.+)$");
+
+    public final long playerId;
+    public final String userName;
+    public final String name;
+    public final int dobEpochDay;
+    public final byte age;
+    public final String placeOfBirth;
+    public final String nation;
+    public final String youthTeam;
+    public final String latestTeamPosition;
+    public final String latestTeam;
+    public final String season;
+    public final String position;
+    public final short heightCm;
+    public final byte heightInches;
+    public final short weightKg;
+    public final short weightLbs;
+    public final String shoots;
+    public final String contract;
+    public final String[] playerType;
+    public final int capHitUsd;
+    public final String capHitImage;
+    public final String nhlRights;
+    public final short draftYear;
+    public final byte draftRound;
+    public final short draftPick;
+    public final String draftTeam;
+    public final String[] highlights;
+    public final String agency;
+    public final String imageUrl;
+    public final String relation;
+    public final Skill[] skills;
+    public final String status;
+
+    // Original text for fields that didn't parse (null when the typed value is authoritative)
+    private final String rawDateOfBirth;
+    private final String rawAge;
+    private final String rawHeight;
+    private final String rawWeight;
+    private final String rawCapHit;
+    private final String rawDrafted;
+
+    private CompactPlayerProfile(Builder b) {
+        playerId = b.playerId;
+        userName = b.userName;
+        name = b.name;
+        dobEpochDay = b.dobEpochDay;
+        age = (byte) b.age;
+        placeOfBirth = b.placeOfBirth;
+        nation = b.nation;
+        youthTeam = b.youthTeam;
+        latestTeamPosition = b.latestTeamPosition;
+        latestTeam = b.latestTeam;
+        season = b.season;
+        position = b.position;
+        heightCm = (short) b.heightCm;
+        heightInches = (byte) b.heightInches;
+        weightKg = (short) b.weightKg;
+        weightLbs = (short) b.weightLbs;
+        shoots = b.shoots;
+        contract = b.contract;
+        playerType = b.playerType;
+        capHitUsd = b.capHitUsd;
+        capHitImage = b.capHitImage;
+        nhlRights = b.nhlRights;
+        draftYear = (short) b.draftYear;
+        draftRound = (byte) b.draftRound;
+        draftPick = (short) b.draftPick;
+        draftTeam = b.draftTeam;
+        highlights = b.highlights;
+        agency = b.agency;
+        imageUrl = b.imageUrl;
+        relation = b.relation;
+        skills = b.skills;
+        status = b.status;
+        rawDateOfBirth = b.rawDateOfBirth;
+        rawAge = b.rawAge;
+        rawHeight = b.rawHeight;
+        rawWeight = b.rawWeight;
+        rawCapHit = b.rawCapHit;
+        rawDrafted = b.rawDrafted;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Parses a scraped profile into its compact form.
+     */
+    public static CompactPlayerProfile from(long playerId, PlayerProfile p) {
+        return builder()
+                .playerId(playerId)
+                .userName(p.userName)
+                .name(p.name)
+                .dateOfBirth(p.dateOfBirth)
+                .age(p.age)
+                .placeOfBirth(p.placeOfBirth)
+                .nation(p.nation)
+                .youthTeam(p.youthTeam)
+                .latestTeamPosition(p.latest_team_position)
+                .latestTeam(p.latest_team)
+                .season(p.season)
+                .position(p.position)
+                .height(p.height)
+                .weight(p.weight)
+                .shoots(p.shoots)
+                .contract(p.contract)
+                .playerType(p.playerType)
+                .capHit(p.capHit)
+                .capHitImage(p.capHitImage)
+                .nhlRights(p.nhlRights)
+                .drafted(p.drafted)
+                .highlights(p.highlights)
+                .agency(p.agency)
+                .imageUrl(p.imageUrl)
+                .relation(p.relation)
+                .skills(p.skills)
+                .status(p.status)
+                .build();
+    }
+
+    /**
+     * Date of birth, or null if unknown.
+     */
+    public LocalDate dateOfBirth() {
+        return dobEpochDay == UNKNOWN_DAY ? null : LocalDate.ofEpochDay(dobEpochDay);
+    }
+
+    public boolean isDrafted() {
+        return draftYear != UNKNOWN;
+    }
+
+    // Display forms as scraped ("Feb 22, 2007", "193 cm / 6'4\"", ...); null if the field was missing
+
+    public String dateOfBirthText() {
+        return text(rawDateOfBirth, formatDob(dobEpochDay));
+    }
+
+    public String ageText() {
+        return text(rawAge, age == UNKNOWN ? null : String.valueOf(age));
+    }
+
+    public String heightText() {
+        return text(rawHeight, formatHeight(heightCm, heightInches));
+    }
+
+    public String weightText() {
+        return text(rawWeight, formatWeight(weightKg, weightLbs));
+    }
+
+    public String capHitText() {
+        return text(rawCapHit, formatCapHit(capHitUsd));
+    }
+
+    public String draftedText() {
+        return text(rawDrafted, formatDrafted(draftYear, draftRound, draftPick, draftTeam));
+    }
+
+    /**
+     * Expands back to the display-string model.
+     */
+    public PlayerProfile toPlayerProfile() {
+        PlayerProfile p = new PlayerProfile(name, dateOfBirthText(), ageText(), placeOfBirth, nation, youthTeam,
+                latestTeamPosition, latestTeam, season, position, heightText(), weightText(), shoots, contract,
+                playerType, capHitText(), capHitImage, nhlRights, draftedText(), highlights, agency, imageUrl,
+                relation, skills, status);
+        p.userId = String.valueOf(playerId);
+        p.userName = userName;
+        return p;
+    }
+
+    private static String text(String raw, String formatted) {
+        return raw != null ? raw : formatted;
+    }
+
+    static String formatDob(int epochDay) {
+        return epochDay == UNKNOWN_DAY ? null : LocalDate.ofEpochDay(epochDay).format(DOB_FORMAT);
+    }
+
+    static String formatHeight(int cm, int inches) {
+        return cm == UNKNOWN ? null : cm + " cm / " + (inches / 12) + "'" + (inches % 12) + "\"";
+    }
+
+    static String formatWeight(int kg, int lbs) {
+        return kg == UNKNOWN ? null : kg + " kg / " + lbs + " lbs";
+    }
+
+    static String formatCapHit(int usd) {
+        return usd == UNKNOWN ? null : "$" + String.format(Locale.ENGLISH, "%,d", usd);
+    }
+
+    static String formatDrafted(int year, int round, int pick, String team) {
+        return year == UNKNOWN ? null : year + " round " + round + " #" + pick + " overall by " + team;
+    }
+
+    /**
+     * Builder with typed setters and display-text setters that parse the
+     * site's formats (e.g. "193 cm / 6'4\"", "Feb 22, 2007",
+     * "2025 round 6 #180 overall by Washington Capitals").
+     */
+    public static final class Builder {
+        private long playerId;
+        private String userName;
+        private String name;
+        private int dobEpochDay = UNKNOWN_DAY;
+        private int age = UNKNOWN;
+        private String placeOfBirth;
+        private String nation;
+        private String youthTeam;
+        private String latestTeamPosition;
+        private String latestTeam;
+        private String season;
+        private String position;
+        private int heightCm = UNKNOWN;
+        private int heightInches = UNKNOWN;
+        private int weightKg = UNKNOWN;
+        private int weightLbs = UNKNOWN;
+        private String shoots;
+        private String contract;
+        private String[] playerType;
+        private int capHitUsd = UNKNOWN;
+        private String capHitImage;
+        private String nhlRights;
+        private int draftYear = UNKNOWN;
+        private int draftRound = UNKNOWN;
+        private int draftPick = UNKNOWN;
+        private String draftTeam;
+        private String[] highlights;
+        private String agency;
+        private String imageUrl;
+        private String relation;
+        private Skill[] skills;
+        private String status;
+        private String rawDateOfBirth;
+        private String rawAge;
+        private String rawHeight;
+        private String rawWeight;
+        private String rawCapHit;
+        private String rawDrafted;
+
+        private Builder() {
+        }
+
+        public Builder playerId(long playerId) {
+            this.playerId = playerId;
+            return this;
+        }
+
+        public Builder userName(String userName) {
+            this.userName = userName;
+            return this;
+        }
+
+        public Builder name(String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Builder dateOfBirth(LocalDate dob) {
+            this.dobEpochDay = dob == null ? UNKNOWN_DAY : (int) dob.toEpochDay();
+            this.rawDateOfBirth = null;
+            return this;
+        }
+
+        /**
+         * Parses "Feb 22, 2007"; other formats are kept as text.
+         */
+        public Builder dateOfBirth(String text) {
+            rawDateOfBirth = null;
+            dobEpochDay = UNKNOWN_DAY;
+            if (isBlank(text)) {
+                rawDateOfBirth = text;
+                return this;
+            }
+            try {
+                int day = (int) LocalDate.parse(text.trim(), DOB_FORMAT).toEpochDay();
+                if (formatDob(day).equals(text)) {
+                    dobEpochDay = day;
+                    return this;
+                }
+            } catch (Exception e) {
+                // not in the expected format
+            }
+            rawDateOfBirth = text;
+            return this;
+        }
+
+        public Builder age(int age) {
+            this.age = age;
+            this.rawAge = null;
+            return this;
+        }
+
+        public Builder age(String text) {
+            rawAge = text;
+            age = UNKNOWN;
+            if (text != null && text.matches("\\d{1,2}")) {
+                age = Integer.parseInt(text);
+                rawAge = String.valueOf(age).equals(text) ? null : text;
+            }
+            return this;
+        }
+
+        public Builder placeOfBirth(String placeOfBirth) {
+            this.placeOfBirth = placeOfBirth;
+            return this;
+        }
+
+        public Builder nation(String nation) {
+            this.nation = nation;
+            return this;
+        }
+
+        public Builder youthTeam(String youthTeam) {
+            this.youthTeam = youthTeam;
+            return this;
+        }
+
+        public Builder latestTeamPosition(String latestTeamPosition) {
+            this.latestTeamPosition = latestTeamPosition;
+            return this;
+        }
+
+        public Builder latestTeam(String latestTeam) {
+            this.latestTeam = latestTeam;
+            return this;
+        }
+
+        public Builder season(String season) {
+            this.season = season;
+            return this;
+        }
+
+        public Builder position(String position) {
+            this.position = position;
+            return this;
+        }
+
+        public Builder height(int cm, int totalInches) {
+            this.heightCm = cm;
+            this.heightInches = totalInches;
+            this.rawHeight = null;
+            return this;
+        }
+
+        public Builder height(String text) {
+            Matcher m = text == null ? null : HEIGHT.matcher(text);
+            if (m != null && m.matches()) {
+                int cm = Integer.parseInt(m.group(1));
+                int inches = Integer.parseInt(m.group(2)) * 12 + Integer.parseInt(m.group(3));
+                if (formatHeight(cm, inches).equals(text)) {
+                    return height(cm, inches);
+                }
+            }
+            heightCm = UNKNOWN;
+            heightInches = UNKNOWN;
+            rawHeight = text;
+            return this;
+        }
+
+        public Builder weight(int kg, int lbs) {
+            this.weightKg = kg;
+            this.weightLbs = lbs;
+            this.rawWeight = null;
+            return this;
+        }
+
+        public Builder weight(String text) {
+            Matcher m = text == null ? null : WEIGHT.matcher(text);
+            if (m != null && m.matches()) {
+                int kg = Integer.parseInt(m.group(1));
+                int lbs = Integer.parseInt(m.group(2));
+                if (formatWeight(kg, lbs).equals(text)) {
+                    return weight(kg, lbs);
+                }
+            }
+            weightKg = UNKNOWN;
+            weightLbs = UNKNOWN;
+            rawWeight = text;
+            return this;
+        }
+
+        public Builder shoots(String shoots) {
+            this.shoots = shoots;
+            return this;
+        }
+
+        public Builder contract(String contract) {
+            this.contract = contract;
+            return this;
+        }
+
+        public Builder playerType(String[] playerType) {
+            this.playerType = playerType;
+            return this;
+        }
+
+        public Builder capHitUsd(int usd) {
+            this.capHitUsd = usd;
+            this.rawCapHit = null;
+            return this;
+        }
+
+        /**
+         * Parses "$950,000"; other formats (or empty) are kept as text.
+         */
+        public Builder capHit(String text) {
+            Matcher m = text == null ? null : CAP_HIT.matcher(text);
+            if (m != null && m.matches()) {
+                try {
+                    int usd = Integer.parseInt(m.group(1).replace(",", ""));
+                    if (formatCapHit(usd).equals(text)) {
+                        return capHitUsd(usd);
+                    }
+                } catch (NumberFormatException e) {
+                    // too large for an int; keep the text
+                }
+            }
+            capHitUsd = UNKNOWN;
+            rawCapHit = text;
+            return this;
+        }
+
+        public Builder capHitImage(String capHitImage) {
+            this.capHitImage = capHitImage;
+            return this;
+        }
+
+        public Builder nhlRights(String nhlRights) {
+            this.nhlRights = nhlRights;
+            return this;
+        }
+
+        public Builder drafted(int year, int round, int pick, String team) {
+            this.draftYear = year;
+            this.draftRound = round;
+            this.draftPick = pick;
+            this.draftTeam = team;
+            this.rawDrafted = null;
+            return this;
+        }
+
+        public Builder drafted(String text) {
+            Matcher m = text == null ? null : DRAFTED.matcher(text);
+            if (m != null && m.matches()) {
+                int year = Integer.parseInt(m.group(1));
+                int round = Integer.parseInt(m.group(2));
+                int pick = Integer.parseInt(m.group(3));
+                if (formatDrafted(year, round, pick, m.group(4)).equals(text)) {
+                    return drafted(year, round, pick, m.group(4));
+                }
+            }
+            draftYear = UNKNOWN;
+            draftRound = UNKNOWN;
+            draftPick = UNKNOWN;
+            draftTeam = null;
+            rawDrafted = text;
+            return this;
+        }
+
+        public Builder highlights(String[] highlights) {
+            this.highlights = highlights;
+            return this;
+        }
+
+        public Builder agency(String agency) {
+            this.agency = agency;
+            return this;
+        }
+
+        public Builder imageUrl(String imageUrl) {
+            this.imageUrl = imageUrl;
+            return this;
+        }
+
+        public Builder relation(String relation) {
+            this.relation = relation;
+            return this;
+        }
+
+        public Builder skills(Skill[] skills) {
+            this.skills = skills;
+            return this;
+        }
+
+        public Builder status(String status) {
+            this.status = status;
+            return this;
+        }
+
+        public CompactPlayerProfile build() {
+            return new CompactPlayerProfile(this);
+        }
+
+        private static boolean isBlank(String s) {
+            return s == null || s.trim().isEmpty();
+        }
+    }
+}
@@ -67,6 +67,10 @@ public class PlayerProfile {
      * Returns skills formatted for CSV: "Skill1 : URL1 ; Skill2 : URL2"
      */
     public String getSkillsFormatted() {
+        return formatSkills(skills);
+    }
+
+    public static String formatSkills(Skill[] skills) {
         if (skills == null || skills.length == 0) {
             return "";
         }
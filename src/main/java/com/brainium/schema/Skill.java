@@ -5,17 +5,32 @@ import io.github.cdimascio.dotenv.Dotenv;
 public class Skill {
     public String name;
     public String image;
-    private Dotenv dotenv;
+    // Shared across all skills; loading .env once per Skill was wasted work and heap
+    private static Dotenv dotenv;
 
     public Skill(String name) {
-        this.dotenv = Dotenv.load();
         this.name = name;
         this.image = this.createImageUrl(name);
     }
 
+    /**
+     * Rebuilds a skill whose icon URL is already known (e.g. read back from an export).
+     */
+    public Skill(String name, String image) {
+        this.name = name;
+        this.image = image;
+    }
+
+    private static synchronized Dotenv dotenv() {
+        if (dotenv == null) {
+            dotenv = Dotenv.load();
+        }
+        return dotenv;
+    }
+
     private String createImageUrl(String skillName) {
         String formattedName = skillName.toLowerCase().replace(" ", "-");
-        return this.dotenv.get("IMAGE_BASE_URL") + formattedName + ".svg";
+        return dotenv().get("IMAGE_BASE_URL") + formattedName + ".svg";
     }
 
     /**
@@ -0,0 +1,41 @@
+package com.brainium.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveBatchSizerTest {
+
+    @Test
+    void testGrowsWhenFastAndBacksOffOnOverload() {
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(100_000, 10_000, 400_000, 1000, 1000);
+
+        sizer.onResponse(200, 200, 90_000);
+        assertEquals(125_000, sizer.targetBytes());
+
+        // small batch (end of file) says nothing about capacity
+        sizer.onResponse(200, 200, 5_000);
+        assertEquals(125_000, sizer.targetBytes());
+
+        sizer.onResponse(200, 5_000, 120_000); // slow
+        assertEquals(62_500, sizer.targetBytes());
+
+        sizer.onResponse(413, 100, 60_000);
+        assertEquals(30_000, sizer.targetBytes());
+
+        sizer.onResponse(503, 100, 30_000);
+        sizer.onError();
+        assertEquals(10_000, sizer.targetBytes()); // floor
+    }
+
+    @Test
+    void testFitsByBytesAndPlayerCap() {
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(1_000, 100, 10_000, 3, 1000);
+        assertTrue(sizer.fits(0, 30, 5_000)); // a lone oversized player still goes out
+        assertTrue(sizer.fits(1, 500, 400));
+        assertFalse(sizer.fits(1, 500, 600));
+        assertFalse(sizer.fits(3, 100, 10));
+    }
+}
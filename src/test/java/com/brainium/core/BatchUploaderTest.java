@@ -0,0 +1,99 @@
+package com.brainium.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+class BatchUploaderTest {
+
+    private HttpServer server;
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger accepted = new AtomicInteger();
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/upload", exchange -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ignored) {
+            }
+            requests.incrementAndGet();
+            int status = body.contains("\"user_id\":\"3\"") ? 500 : 200;
+            if (body.contains("\"user_id\":\"13\"")) {
+                status = 422; // no per-index errors in the response
+            } else if (status == 200) {
+                accepted.addAndGet(body.split("user_id").length - 1);
+            }
+            byte[] resp = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, resp.length);
+            exchange.getResponseBody().write(resp);
+            exchange.close();
+            active.decrementAndGet();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private static UploadRecord player(int id) {
+        String json = "{\"user_id\":\"" + id + "\",\"profile_link\":\"https://x/" + id + "\"}";
+        return new UploadRecord(String.valueOf(id), "https://x/" + id, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testConcurrentUploadsAccountEveryBatch() throws Exception {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/upload";
+        BatchUploader uploader = new BatchUploader(HttpClient.newHttpClient(), url, 3);
+        for (int b = 0; b < 6; b++) {
+            uploader.submit(b, List.of(player(2 * b), player(2 * b + 1)));
+        }
+        uploader.awaitAll();
+
+        assertEquals(5, uploader.successfulBatches);
+        assertEquals(1, uploader.failedBatches);
+        assertEquals(List.of("2"), uploader.failedBatchNumbers);
+        assertEquals(List.of("https://x/2", "https://x/3"), uploader.failedPlayerUrls);
+        assertTrue(maxActive.get() > 1, "batches should overlap");
+        assertTrue(maxActive.get() <= 3, "in-flight limit exceeded: " + maxActive.get());
+    }
+
+    @Test
+    void testBisectsUnparseable422DownToTheInvalidPlayer() throws Exception {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/upload";
+        BatchUploader uploader = new BatchUploader(HttpClient.newHttpClient(), url, 2);
+        List<UploadRecord> batch = new java.util.ArrayList<>();
+        for (int id = 10; id < 18; id++) {
+            batch.add(player(id));
+        }
+        uploader.submit(0, batch);
+        uploader.awaitAll();
+        while (uploader.resubmitNextSplit()) {
+            uploader.awaitAll();
+        }
+
+        assertEquals(List.of("https://x/13"), uploader.failedPlayerUrls);
+        assertEquals(7, accepted.get());
+        assertEquals(7, requests.get()); // 1 + 2 per level for log2(8) levels
+    }
+}
@@ -0,0 +1,72 @@
+package com.brainium.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.gson.JsonObject;
+
+class CheckpointLogTest {
+
+    private static JsonObject record(long id) {
+        JsonObject o = new JsonObject();
+        o.addProperty("op", "player");
+        o.addProperty("id", id);
+        return o;
+    }
+
+    @Test
+    void testAppendCompactAndReplay(@TempDir Path dir) throws Exception {
+        Path snapshot = dir.resolve("status.json");
+        Path logFile = dir.resolve("status.log");
+        CheckpointLog log = new CheckpointLog(snapshot, logFile, 3);
+
+        assertFalse(log.append(record(1)));
+        assertFalse(log.append(record(2)));
+        assertTrue(log.append(record(3)));
+        log.compact("{\"ids\":[1,2,3]}");
+        log.append(record(4));
+        log.close();
+
+        // simulate a crash in the middle of writing the next record
+        Files.writeString(logFile, "{\"op\":\"pla", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        CheckpointLog reopened = new CheckpointLog(snapshot, logFile, 3);
+        assertEquals("{\"ids\":[1,2,3]}", reopened.readSnapshot());
+        assertEquals(1, reopened.readRecords().size());
+        assertEquals(4, reopened.readRecords().get(0).get("id").getAsLong());
+    }
+
+    @Test
+    void testSharedLogKeepsOtherProcessesRecords(@TempDir Path dir) throws Exception {
+        Path snapshot = dir.resolve("status.json");
+        Path logFile = dir.resolve("status.log");
+        CheckpointLog mine = new CheckpointLog(snapshot, logFile, 100);
+        CheckpointLog theirs = new CheckpointLog(snapshot, logFile, 100);
+
+        mine.append(record(1));
+        theirs.append(record(2)); // never seen by "mine"
+        mine.compact((json, records) -> {
+            assertEquals(null, json);
+            assertEquals(List.of(1L, 2L), records.stream().map(r -> r.get("id").getAsLong()).toList());
+            return "{\"ids\":[1,2]}";
+        });
+        theirs.append(record(3));
+        mine.close();
+        theirs.close();
+
+        CheckpointLog reopened = new CheckpointLog(snapshot, logFile, 100);
+        assertEquals("{\"ids\":[1,2]}", reopened.readSnapshot());
+        assertEquals(1, reopened.readRecords().size());
+        assertEquals(3, reopened.readRecords().get(0).get("id").getAsLong());
+    }
+}
@@ -0,0 +1,78 @@
+package com.brainium.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CsvCompactorTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testKeepsNewestRowPerIdAcrossSpilledRuns() throws Exception {
+        Path csv = dir.resolve("output.csv");
+        StringBuilder sb = new StringBuilder("User ID,Name,Highlights\n");
+        for (int day = 0; day < 3; day++) {
+            for (int id = 200; id >= 1; id--) {
+                sb.append(id).append(",Player ").append(id).append(",\"day ").append(day).append("\nline two, \"\"quoted\"\"\"\n");
+            }
+        }
+        sb.append(",no id,x\n");
+        Files.writeString(csv, sb.toString(), StandardCharsets.UTF_8);
+
+        // tiny runs force many spills and a multi-pass merge
+        CsvCompactor.Result r = CsvCompactor.compact(csv, 2_000);
+        assertEquals(601, r.rowsRead);
+        assertEquals(201, r.rowsWritten);
+
+        String out = Files.readString(csv, StandardCharsets.UTF_8);
+        String[] expectedStart = {
+                "User ID,Name,Highlights",
+                "1,Player 1,\"day 2",
+                "line two, \"\"quoted\"\"\"",
+                "2,Player 2,\"day 2" };
+        String[] lines = out.split("\n");
+        for (int i = 0; i < expectedStart.length; i++) {
+            assertEquals(expectedStart[i], lines[i]);
+        }
+        assertEquals(",no id,x", lines[lines.length - 1]);
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(1, files.filter(p -> !p.toString().endsWith(".lock")).count()); // temp runs cleaned up
+        }
+    }
+
+    @Test
+    void testStrayQuoteInHighlightsDoesNotDropRows() throws Exception {
+        Path csv = dir.resolve("output.csv");
+        StringBuilder sb = new StringBuilder("User ID,Name,Highlights\n");
+        sb.append("1,Player 1,Top scorer \"U18\n"); // written raw, before highlights were escaped
+        for (int id = 2; id <= 100; id++) {
+            sb.append(id).append(",Player ").append(id).append(",\n");
+        }
+        Files.writeString(csv, sb.toString(), StandardCharsets.UTF_8);
+
+        // the stray quote is read as one line, not as a record swallowing the rest
+        try (BufferedReader in = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            CsvCompactor.readRecord(in);
+            assertEquals("1,Player 1,Top scorer \"U18", CsvCompactor.readRecord(in));
+            assertEquals("2,Player 2,", CsvCompactor.readRecord(in));
+        }
+        assertEquals(100, CsvCompactor.compact(csv, 2_000).rowsWritten);
+
+        // a record that doesn't match the header stops the compaction before the rename
+        String broken = Files.readString(csv, StandardCharsets.UTF_8) + "101,Player 101\n";
+        Files.writeString(csv, broken, StandardCharsets.UTF_8);
+        assertThrows(IOException.class, () -> CsvCompactor.compact(csv, 2_000));
+        assertEquals(broken, Files.readString(csv, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,118 @@
+package com.brainium.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.gson.JsonObject;
+
+class FileJobQueueTest {
+
+    @TempDir
+    Path dir;
+
+    private static JsonObject job(int n) {
+        JsonObject job = new JsonObject();
+        job.addProperty("n", n);
+        return job;
+    }
+
+    @Test
+    void testEachJobIsClaimedOnceAcrossQueues() throws Exception {
+        FileJobQueue seeder = FileJobQueue.open(dir);
+        for (int i = 0; i < 200; i++) {
+            seeder.enqueue("page-" + i, job(i));
+        }
+        assertFalse(seeder.enqueue("page-0", job(0)));
+
+        // Separate instances stand in for separate worker processes
+        Set<String> claimed = ConcurrentHashMap.newKeySet();
+        ExecutorService workers = Executors.newFixedThreadPool(4);
+        for (int w = 0; w < 4; w++) {
+            workers.execute(() -> {
+                try {
+                    FileJobQueue queue = FileJobQueue.open(dir);
+                    FileJobQueue.Lease lease;
+                    while ((lease = queue.claim()) != null) {
+                        assertTrue(claimed.add(lease.name), "claimed twice: " + lease.name);
+                        queue.complete(lease);
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        }
+        workers.shutdown();
+        assertTrue(workers.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(200, claimed.size());
+        assertEquals(0, seeder.pendingCount());
+        assertEquals(0, seeder.leasedCount());
+        // finished jobs are not queued again
+        assertFalse(seeder.enqueue("page-7", job(7)));
+    }
+
+    @Test
+    void testExpiredLeaseIsReapedAndRetriedUntilGivenUp() throws Exception {
+        FileJobQueue queue = FileJobQueue.open(dir);
+        queue.enqueue("page-1", job(1));
+        queue.enqueue("player-9", job(9));
+
+        FileJobQueue.Lease first = queue.claim();
+        assertEquals("player-9", first.name); // player jobs go first
+
+        // a fresh lease is kept; one without a heartbeat for too long goes back to pending
+        assertEquals(0, queue.reapExpired(60_000));
+        Files.setLastModifiedTime(dir.resolve("leased/player-9.json"),
+                FileTime.fromMillis(System.currentTimeMillis() - 120_000));
+        assertEquals(1, queue.reapExpired(60_000));
+        assertFalse(queue.heartbeat(first));
+
+        FileJobQueue.Lease again = queue.claim();
+        assertEquals("player-9", again.name);
+        assertEquals(9, again.job.get("n").getAsInt());
+        assertFalse(queue.fail(again, 2));
+
+        FileJobQueue.Lease retry = queue.claim();
+        assertEquals(1, retry.attempts());
+        assertTrue(queue.fail(retry, 2));
+        assertTrue(Files.exists(dir.resolve("failed/player-9.json")));
+
+        assertNotNull(queue.claim()); // page-1
+        assertNull(queue.claim());
+    }
+
+    @Test
+    void testDuplicateOfCompletedJobIsDropped() throws Exception {
+        FileJobQueue queue = FileJobQueue.open(dir);
+        queue.enqueue("player-5", job(5));
+        FileJobQueue.Lease slow = queue.claim();
+
+        // the slow worker's lease expires and the job is handed out again
+        Files.setLastModifiedTime(dir.resolve("leased/player-5.json"),
+                FileTime.fromMillis(System.currentTimeMillis() - 120_000));
+        queue.reapExpired(60_000);
+        FileJobQueue.Lease other = queue.claim();
+        queue.complete(other);
+
+        // the original finishes late; the job is still counted once
+        queue.complete(slow);
+        assertEquals(0, queue.pendingCount());
+        assertEquals(0, queue.leasedCount());
+        assertTrue(Files.exists(dir.resolve("done/player-5.json")));
+    }
+}
@@ -0,0 +1,117 @@
+package com.brainium.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+
+class GamesBackfillTest {
+
+    static final LocalDate FIRST_DAY = LocalDate.of(2026, 1, 1);
+
+    /**
+     * 30 days with 3 games each, 7 rows per page, so days straddle page breaks.
+     * Every day has its own teams, plus "shared" which plays every day.
+     */
+    static List<String> pages(boolean newestFirst) {
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            LocalDate day = newestFirst ? FIRST_DAY.plusDays(29 - i) : FIRST_DAY.plusDays(i);
+            rows.add("<tr class=\"title\"><td data-date=\"" + day + "T12:00:00+00:00\" data-date-type=\"text\">"
+                    + day + "</td></tr>");
+            for (int g = 0; g < 3; g++) {
+                String home = g == 0 ? "shared" : day + "-" + g;
+                rows.add("<tr><td class=\"team\"><a href=\"/flag\"></a><a href=\"/team/" + home + "\">h</a></td>"
+                        + "<td class=\"result\">1-0</td>"
+                        + "<td class=\"team\"><a href=\"/flag\"></a><a href=\"/team/" + day + "-away" + g
+                        + "\">a</a></td></tr>");
+            }
+        }
+        List<String> pages = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i += 7) {
+            pages.add("<table class=\"table\"><tbody>" + String.join("", rows.subList(i, Math.min(i + 7, rows.size())))
+                    + "</tbody></table>");
+        }
+        return pages;
+    }
+
+    private final Set<Integer> fetched = ConcurrentHashMap.newKeySet();
+
+    private GamesBackfill backfill(List<String> pages) {
+        return new GamesBackfill(page -> {
+            fetched.add(page);
+            String html = page <= pages.size() ? pages.get(page - 1) : "<p>No games</p>";
+            return Jsoup.parse(html, "https://www.eliteprospects.com/games");
+        }, 3, null);
+    }
+
+    private static Map<String, LocalDate> expected(LocalDate from, LocalDate to) {
+        Map<String, LocalDate> teams = new LinkedHashMap<>();
+        for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+            teams.put("https://www.eliteprospects.com/team/shared", to);
+            for (int g = 0; g < 3; g++) {
+                if (g > 0) teams.put("https://www.eliteprospects.com/team/" + d + "-" + g, d);
+                teams.put("https://www.eliteprospects.com/team/" + d + "-away" + g, d);
+            }
+        }
+        return teams;
+    }
+
+    @Test
+    void testFindsTheWindowInBothListingOrders() throws Exception {
+        LocalDate from = FIRST_DAY.plusDays(10);
+        LocalDate to = FIRST_DAY.plusDays(12);
+        for (boolean newestFirst : new boolean[] { true, false }) {
+            fetched.clear();
+            List<String> pages = pages(newestFirst);
+            GamesBackfill.Window window = backfill(pages).discover(from, to);
+
+            assertEquals(expected(from, to), new LinkedHashMap<>(window.teams));
+            assertTrue(window.lastPage - window.firstPage <= 2, window.firstPage + "-" + window.lastPage);
+            // binary search instead of loading every page
+            assertTrue(fetched.size() < pages.size(), fetched.toString());
+        }
+    }
+
+    @Test
+    void testHintFindsBothEndsOfALongWindow() throws Exception {
+        LocalDate from = FIRST_DAY.plusDays(2);
+        LocalDate to = FIRST_DAY.plusDays(26);
+        for (boolean newestFirst : new boolean[] { true, false }) {
+            List<String> pages = pages(newestFirst);
+            GamesBackfill plain = backfill(pages);
+            GamesBackfill.Window expected = plain.discover(from, to);
+            int hint = newestFirst ? expected.firstPage : expected.firstPage + 1;
+            GamesBackfill.Window window = backfill(pages).discover(from, to, hint, newestFirst);
+
+            assertEquals(expected(from, to), new LinkedHashMap<>(window.teams));
+            assertEquals(expected.firstPage, window.firstPage);
+            assertEquals(expected.lastPage, window.lastPage);
+        }
+    }
+
+    @Test
+    void testWindowOutsideTheListingIsEmpty() throws Exception {
+        GamesBackfill.Window window = backfill(pages(true)).discover(LocalDate.of(2025, 6, 1),
+                LocalDate.of(2025, 6, 3));
+        assertTrue(window.teams.isEmpty());
+    }
+
+    @Test
+    void testPageTemplateFollowsTheNextLink() {
+        Document doc = Jsoup.parse("<div class=\"table-pagination\"><a href=\"/games/2025-2026?sort=date&page=2\">Next</a></div>",
+                "https://www.eliteprospects.com/games/2025-2026");
+        assertEquals("https://www.eliteprospects.com/games/2025-2026?sort=date&page=7",
+                String.format(GamesBackfill.pageTemplate(doc, "unused"), 7));
+    }
+}
@@ -0,0 +1,115 @@
+package com.brainium.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jsoup.Jsoup;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GamesCalendarIndexTest {
+
+    private static final String LISTING = "https://www.eliteprospects.com/games";
+    private static final LocalDate DAY_10 = GamesBackfillTest.FIRST_DAY.plusDays(10);
+
+    @TempDir
+    Path dir;
+
+    private final Set<Integer> fetched = ConcurrentHashMap.newKeySet();
+
+    private GamesBackfill backfill(List<String> pages) {
+        return new GamesBackfill(page -> {
+            fetched.add(page);
+            String html = page <= pages.size() ? pages.get(page - 1) : "<p>No games</p>";
+            return Jsoup.parse(html, LISTING);
+        }, 2, null);
+    }
+
+    @Test
+    void testNextDayStartsFromTheIndexedPages() throws Exception {
+        List<String> pages = GamesBackfillTest.pages(false);
+        GamesCalendarIndex index = GamesCalendarIndex.open(dir.resolve("games_index.json"), LISTING);
+        index.refresh(backfill(pages), DAY_10, DAY_10, DAY_10.plusDays(1));
+        GamesCalendarIndex.Day day10 = index.day(DAY_10);
+        assertEquals(6, day10.teams.size());
+        assertFalse(day10.pages.isEmpty());
+
+        // a later run, reloaded from disk
+        GamesCalendarIndex reopened = GamesCalendarIndex.open(dir.resolve("games_index.json"), LISTING);
+        assertEquals(day10.teams, reopened.day(DAY_10).teams);
+        assertEquals(Boolean.FALSE, reopened.newestFirst);
+        fetched.clear();
+        reopened.refresh(backfill(pages), DAY_10.plusDays(1), DAY_10.plusDays(1), DAY_10.plusDays(2));
+
+        assertEquals(6, reopened.day(DAY_10.plusDays(1)).teams.size());
+        // only pages next to day 10's, no probing for the end of the listing
+        int around = day10.pages.get(day10.pages.size() - 1);
+        assertTrue(fetched.stream().allMatch(p -> Math.abs(p - around) <= 2), fetched.toString());
+    }
+
+    @Test
+    void testWideWindowInNewestFirstListingUsesTheHint() throws Exception {
+        List<String> pages = GamesBackfillTest.pages(true);
+        LocalDate from = GamesBackfillTest.FIRST_DAY.plusDays(2);
+        LocalDate to = GamesBackfillTest.FIRST_DAY.plusDays(15);
+        GamesCalendarIndex index = GamesCalendarIndex.open(dir.resolve("games_index.json"), LISTING);
+        index.refresh(backfill(pages), from, to, to.plusDays(1));
+        assertEquals(Boolean.TRUE, index.newestFirst);
+
+        // pages 9-16: the window starts at "to", far from "from"'s pages
+        fetched.clear();
+        index.refresh(backfill(pages), from, to, to.plusDays(2));
+        assertEquals(6, index.day(from).teams.size());
+        assertFalse(fetched.contains(1), fetched.toString()); // no search over the whole listing
+    }
+
+    @Test
+    void testSettledDaysAreAnsweredWithoutFetching() throws Exception {
+        List<String> pages = GamesBackfillTest.pages(true);
+        GamesCalendarIndex index = GamesCalendarIndex.open(dir.resolve("games_index.json"), LISTING);
+        index.refresh(backfill(pages), DAY_10, DAY_10.plusDays(1), DAY_10.plusDays(2));
+        assertFalse(index.isSettled(DAY_10.plusDays(1))); // checked one day after it was played
+        assertFalse(index.isSettled(DAY_10.minusDays(1))); // never indexed
+
+        index.refresh(backfill(pages), DAY_10, DAY_10.plusDays(1), DAY_10.plusDays(5));
+        assertTrue(index.isSettled(DAY_10));
+        assertTrue(index.isSettled(DAY_10.plusDays(1)));
+
+        // nothing left to fetch: teams() never builds a page source
+        Map<String, LocalDate> teams = index.teams(DAY_10, DAY_10.plusDays(1), DAY_10.plusDays(6));
+        assertEquals(DAY_10.plusDays(1), teams.get("https://www.eliteprospects.com/team/shared"));
+        assertEquals(11, teams.size());
+    }
+
+    @Test
+    void testFingerprintChangesWithResults() throws Exception {
+        List<String> pages = GamesBackfillTest.pages(false);
+        GamesCalendarIndex index = GamesCalendarIndex.open(dir.resolve("games_index.json"), LISTING);
+        index.refresh(backfill(pages), DAY_10, DAY_10, DAY_10.plusDays(1));
+        long before = index.day(DAY_10).fingerprint;
+
+        index.refresh(backfill(pages), DAY_10, DAY_10, DAY_10.plusDays(1));
+        assertEquals(before, index.day(DAY_10).fingerprint);
+
+        List<String> updated = pages.stream().map(p -> p.replace("1-0", "2-3")).toList();
+        index.refresh(backfill(updated), DAY_10, DAY_10, DAY_10.plusDays(1));
+        assertNotEquals(before, index.day(DAY_10).fingerprint);
+    }
+
+    @Test
+    void testOtherListingStartsFresh() throws Exception {
+        GamesCalendarIndex index = GamesCalendarIndex.open(dir.resolve("games_index.json"), LISTING);
+        index.refresh(backfill(GamesBackfillTest.pages(false)), DAY_10, DAY_10, DAY_10.plusDays(1));
+        GamesCalendarIndex other = GamesCalendarIndex.open(dir.resolve("games_index.json"), LISTING + "/shl");
+        assertTrue(other.days.isEmpty());
+    }
+}
@@ -0,0 +1,128 @@
+package com.brainium.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * Round trip against a local stand-in endpoint that accepts gzip request
+ * bodies and gzips its response when asked to.
+ */
+class HttpCompressionTest {
+
+    private HttpServer server;
+    private final AtomicLong wireBytes = new AtomicLong();
+    private final AtomicReference<String> requestEncoding = new AtomicReference<>();
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/echo", exchange -> {
+            byte[] received = exchange.getRequestBody().readAllBytes();
+            wireBytes.set(received.length);
+            String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+            requestEncoding.set(encoding);
+            byte[] body = "gzip".equals(encoding) ? new GZIPInputStream(
+                    new ByteArrayInputStream(received)).readAllBytes() : received;
+
+            String accept = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if (accept != null && accept.contains("gzip")) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+                    gz.write(body);
+                }
+                body = out.toByteArray();
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private String post(byte[] body, boolean gzip) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder()
+                .uri(URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/echo"))
+                .header("Content-Type", "application/json")
+                .header("Accept-Encoding", "gzip");
+        HttpCompression.post(request, body, 0, body.length, gzip);
+        return HttpClient.newHttpClient().send(request.build(), HttpCompression.ofDecodedString()).body();
+    }
+
+    @Test
+    void testCompressedRoundTripSavesBytes() throws Exception {
+        StringBuilder sb = new StringBuilder("{\"recentlyUpdatedPlayers\":[");
+        for (int i = 0; i < 200; i++) {
+            if (i > 0) sb.append(',');
+            sb.append("{\"user_id\":\"").append(i).append("\",\"nation\":\"Sweden\",\"position\":")
+                    .append("\"{\\\"stats\\\":[{\\\"GP\\\":12,\\\"G\\\":3,\\\"A\\\":5}]}\"}");
+        }
+        String json = sb.append("]}").toString();
+        byte[] raw = json.getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(json, post(raw, true));
+        assertEquals("gzip", requestEncoding.get());
+        assertTrue(wireBytes.get() * 5 < raw.length, "expected >80% saved, sent " + wireBytes.get());
+    }
+
+    @Test
+    void testGraphQLQueriesAreCompressedThroughOkHttp() throws Exception {
+        // about the size of the skills and stats queries
+        StringBuilder query = new StringBuilder("{\"query\":\"query PlayerStatisticsDefault($player: ID) {");
+        while (query.length() < 650) {
+            query.append(" regularStats { GP G A PTS PIM PM }");
+        }
+        String json = query.append("}\"}").toString();
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(HttpCompression.gzipRequests(HttpCompression.GRAPHQL_MIN_BYTES))
+                .build();
+        Request request = new Request.Builder()
+                .url("http://127.0.0.1:" + server.getAddress().getPort() + "/echo")
+                .post(RequestBody.create(MediaType.parse("application/json; charset=utf-8"), json))
+                .build();
+        try (Response response = client.newCall(request).execute()) {
+            assertEquals(json, response.body().string());
+        }
+        assertEquals("gzip", requestEncoding.get());
+        assertTrue(wireBytes.get() < json.length() / 2, "sent " + wireBytes.get());
+    }
+
+    @Test
+    void testSmallBodiesAreSentAsIs() throws Exception {
+        byte[] raw = "{\"query\":\"x\"}".getBytes(StandardCharsets.UTF_8);
+        assertEquals("{\"query\":\"x\"}", post(raw, true));
+        assertNull(requestEncoding.get());
+        assertEquals(raw.length, wireBytes.get());
+    }
+}
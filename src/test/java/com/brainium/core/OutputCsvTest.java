@@ -0,0 +1,51 @@
+package com.brainium.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OutputCsvTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testAppendsDuringCompactionAreKept() throws Exception {
+        Path csv = dir.resolve("output.csv");
+        ExecutorService writers = Executors.newFixedThreadPool(4);
+        for (int w = 0; w < 4; w++) {
+            int writer = w;
+            writers.execute(() -> {
+                try {
+                    for (int i = 0; i < 100; i++) {
+                        // as many fields as the header, so compaction accepts the rows
+                        OutputCsv.append(csv, (writer * 100 + i) + ",player" + ",".repeat(25) + "\n");
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        }
+        for (int i = 0; i < 20; i++) {
+            if (Files.exists(csv)) {
+                CsvCompactor.compact(csv, 1_000);
+            }
+        }
+        writers.shutdown();
+        assertTrue(writers.awaitTermination(30, TimeUnit.SECONDS));
+
+        List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
+        assertEquals(OutputCsv.HEADER.trim(), lines.get(0));
+        assertEquals(401, lines.size()); // header written once, no row lost
+    }
+}
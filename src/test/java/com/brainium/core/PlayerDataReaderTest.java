@@ -0,0 +1,74 @@
+package com.brainium.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+class PlayerDataReaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testStreamedBatchMatchesTreeSerialization() throws Exception {
+        String json = "{\"meta\":{\"a\":1},\"recentlyUpdatedPlayers\":["
+                + "{\"user_id\":\"1\",\"profile_link\":\"https://x/1\",\"nation\":null,\"agency\":null,\"name\":\"A=B\"},"
+                + "{\"user_id\":2,\"shoots\":null}]}";
+        Path file = dir.resolve("data.json");
+        Files.writeString(file, json, StandardCharsets.UTF_8);
+
+        assertEquals(2, PlayerDataReader.count(file));
+        List<UploadRecord> batch = new ArrayList<>();
+        try (PlayerDataReader reader = PlayerDataReader.open(file)) {
+            assertEquals("Object", reader.format());
+            UploadRecord r;
+            while ((r = reader.next()) != null) {
+                batch.add(r);
+            }
+        }
+        assertEquals("1", batch.get(0).id);
+        assertEquals("https://x/1", batch.get(0).url);
+        assertNull(batch.get(1).url);
+
+        // previous implementation: null cleanup on the tree, then new Gson().toJson of the wrapper
+        JsonArray players = JsonParser.parseString(json).getAsJsonObject().getAsJsonArray("recentlyUpdatedPlayers");
+        for (JsonElement p : players) {
+            for (String field : new String[] { "shoots", "nation", "place_of_birth", "position" }) {
+                if (p.getAsJsonObject().has(field) && p.getAsJsonObject().get(field).isJsonNull()) {
+                    p.getAsJsonObject().addProperty(field, "");
+                }
+            }
+        }
+        JsonObject expected = new JsonObject();
+        expected.add("recentlyUpdatedPlayers", players);
+
+        BatchUploader.BatchBuffer body = new BatchUploader.BatchBuffer();
+        body.writeBatch(batch);
+        assertEquals(new Gson().toJson(expected), body.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testObjectWithoutPlayersKey() throws Exception {
+        Path file = dir.resolve("data.json");
+        Files.writeString(file, "{\"other\":[1,2]}", StandardCharsets.UTF_8);
+        try (PlayerDataReader reader = PlayerDataReader.open(file)) {
+            assertFalse(reader.hasPlayers());
+            assertEquals(List.of("other"), reader.otherKeys());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.brainium.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.brainium.schema.PlayerProfile;
+
+class ProfilePipelineTest {
+
+    /** Collects results; only the writer thread calls it, so plain lists are enough. */
+    private static class Collector implements ProfilePipeline.Sink {
+        final List<String> written = new ArrayList<>();
+        final List<String> failed = new ArrayList<>();
+        final Set<String> writerThreads = new HashSet<>();
+        volatile CountDownLatch writeGate = new CountDownLatch(0);
+
+        @Override
+        public void write(ProfilePipeline.Item item) throws Exception {
+            writeGate.await();
+            writerThreads.add(Thread.currentThread().getName());
+            if (item.slug.equals("bad-write")) throw new IllegalStateException("disk full");
+            written.add(item.profile.name);
+        }
+
+        @Override
+        public void failed(ProfilePipeline.Item item, Exception error) {
+            writerThreads.add(Thread.currentThread().getName());
+            failed.add(item.slug + ": " + error.getMessage());
+        }
+    }
+
+    private static ProfilePipeline pipeline(Collector sink, int capacity) {
+        return new ProfilePipeline(sink,
+                item -> {
+                    if (item.slug.equals("bad-fetch")) throw new IllegalStateException("404");
+                    return "<h1>" + item.slug + "</h1>";
+                },
+                item -> {
+                    PlayerProfile p = new PlayerProfile();
+                    p.name = item.html.replaceAll("</?h1>", "");
+                    return p;
+                },
+                item -> {
+                    if (item.slug.equals("bad-enrich")) throw new IllegalStateException("gql down");
+                    item.profile.name = item.profile.name.toUpperCase();
+                    return item.profile;
+                },
+                4, 2, 4, capacity, 0);
+    }
+
+    @Test
+    void testEveryPlayerReachesTheSingleWriter() throws Exception {
+        Collector sink = new Collector();
+        ProfilePipeline pipeline = pipeline(sink, 8);
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < 200; i++) {
+            pipeline.submit(new ProfilePipeline.Item(i, "player-" + i, "url", null));
+            expected.add("PLAYER-" + i);
+        }
+        pipeline.close();
+
+        assertEquals(200, sink.written.size());
+        assertEquals(expected, new HashSet<>(sink.written));
+        assertEquals(Set.of("pipeline-write"), sink.writerThreads);
+    }
+
+    @Test
+    void testFailuresFromAnyStageGoToTheSink() throws Exception {
+        Collector sink = new Collector();
+        ProfilePipeline pipeline = pipeline(sink, 8);
+        for (String slug : List.of("ok", "bad-fetch", "bad-enrich", "bad-write")) {
+            pipeline.submit(new ProfilePipeline.Item(1, slug, "url", null));
+        }
+        pipeline.close();
+
+        assertEquals(List.of("OK"), sink.written);
+        assertEquals(Set.of("bad-fetch: 404", "bad-enrich: gql down", "bad-write: disk full"),
+                new HashSet<>(sink.failed));
+    }
+
+    @Test
+    void testSlowWriterBlocksSubmitInsteadOfBuffering() throws Exception {
+        Collector sink = new Collector();
+        sink.writeGate = new CountDownLatch(1);
+        ProfilePipeline pipeline = pipeline(sink, 2);
+
+        Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < 100; i++) {
+                    pipeline.submit(new ProfilePipeline.Item(i, "p" + i, "url", null));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        Thread.sleep(300);
+        // the producer is stuck behind full queues of 2 rather than racing ahead
+        assertTrue(producer.isAlive());
+        assertTrue(pipeline.queued() <= 4 * 2);
+
+        sink.writeGate.countDown();
+        producer.join(TimeUnit.SECONDS.toMillis(10));
+        pipeline.close();
+        assertEquals(100, sink.written.size());
+        assertTrue(pipeline.stats().contains("peak 2"));
+    }
+}
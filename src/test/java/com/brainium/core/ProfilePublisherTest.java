@@ -0,0 +1,128 @@
+package com.brainium.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.brainium.schema.PlayerProfile;
+
+class ProfilePublisherTest {
+
+    /** Records signals as strings: "next:<name>", "complete", "error:<message>". */
+    private static class Recorder implements Flow.Subscriber<PlayerProfile> {
+        final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(PlayerProfile item) {
+            events.add("next:" + item.name);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            events.add("error:" + throwable.getMessage());
+        }
+
+        @Override
+        public void onComplete() {
+            events.add("complete");
+        }
+
+        String take() throws InterruptedException {
+            String e = events.poll(5, TimeUnit.SECONDS);
+            return e != null ? e : "timeout";
+        }
+    }
+
+    private final AtomicInteger fetches = new AtomicInteger();
+    private final AtomicInteger batches = new AtomicInteger();
+
+    /** Three "pages": 1-3, 3-4 (3 repeats) and 5-6; player 4 fails to scrape. */
+    private ProfilePublisher publisher() {
+        List<List<ProfilePublisher.Ref>> pages = List.of(
+                refs(1, 2, 3), refs(3, 4), refs(5, 6));
+        return new ProfilePublisher(() -> {
+            Iterator<List<ProfilePublisher.Ref>> it = pages.iterator();
+            return () -> {
+                if (!it.hasNext()) return null;
+                batches.incrementAndGet();
+                return it.next();
+            };
+        }, ref -> {
+            fetches.incrementAndGet();
+            if (ref.id == 4) throw new IllegalStateException("404");
+            PlayerProfile p = new PlayerProfile();
+            p.name = "p" + ref.id;
+            return p;
+        }, r -> {
+            Thread t = new Thread(r);
+            t.setDaemon(true);
+            t.start();
+        });
+    }
+
+    private static List<ProfilePublisher.Ref> refs(long... ids) {
+        List<ProfilePublisher.Ref> refs = new ArrayList<>();
+        for (long id : ids) refs.add(new ProfilePublisher.Ref(id, "slug-" + id));
+        return refs;
+    }
+
+    @Test
+    void testFetchesOnlyWhatWasRequested() throws Exception {
+        Recorder sub = new Recorder();
+        publisher().subscribe(sub);
+        Thread.sleep(200);
+        assertEquals(0, fetches.get());
+
+        sub.subscription.request(2);
+        assertEquals("next:p1", sub.take());
+        assertEquals("next:p2", sub.take());
+        Thread.sleep(200);
+        assertEquals(2, fetches.get());
+        assertEquals(1, batches.get()); // the second page isn't loaded yet
+
+        sub.subscription.request(Long.MAX_VALUE);
+        assertEquals("next:p3", sub.take());
+        assertEquals("next:p5", sub.take()); // 3 not repeated, 4 skipped
+        assertEquals("next:p6", sub.take());
+        assertEquals("complete", sub.take());
+        assertEquals(6, fetches.get());
+    }
+
+    @Test
+    void testCancelStopsTheCrawl() throws Exception {
+        Recorder sub = new Recorder();
+        publisher().subscribe(sub);
+        sub.subscription.request(1);
+        assertEquals("next:p1", sub.take());
+        sub.subscription.cancel();
+        sub.subscription.request(5);
+        Thread.sleep(200);
+        assertEquals(1, fetches.get());
+        assertTrue(sub.events.isEmpty());
+    }
+
+    @Test
+    void testNonPositiveRequestIsAnError() throws Exception {
+        Recorder sub = new Recorder();
+        publisher().subscribe(sub);
+        sub.subscription.request(0);
+        assertTrue(sub.take().startsWith("error:request(0)"));
+        assertEquals(0, fetches.get());
+    }
+}
@@ -0,0 +1,51 @@
+package com.brainium.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ProfileWorkQueueTest {
+
+    @TempDir
+    Path dir;
+
+    private static final long HOUR = 3600_000L;
+
+    @Test
+    void testOrdersByGameRecencyStalenessAndFailures() throws Exception {
+        LocalDate today = LocalDate.of(2026, 3, 1);
+        long now = 1_000 * 24 * HOUR;
+        Path file = dir.resolve("scrape_history.json");
+
+        try (ScrapeHistory history = ScrapeHistory.open(file)) {
+            history.markPlayedOn(new long[] { 1, 2, 3 }, today.minusDays(1));
+            history.markPlayedOn(new long[] { 4 }, today.minusDays(20));
+            history.markScraped(1, now - 2 * HOUR);   // played yesterday, fresh
+            history.markScraped(2, now - 48 * HOUR);  // played yesterday, 2 days stale
+            history.markFailed(3, now - HOUR);        // played yesterday, never scraped, failing
+            history.markFailed(3, now - HOUR);
+            history.markScraped(4, now - 400 * HOUR); // no recent game, very stale
+        }
+
+        // reopened from the log, as the next run would
+        try (ScrapeHistory history = ScrapeHistory.open(file)) {
+            assertEquals(2, history.get(3).failures);
+            ProfileWorkQueue work = new ProfileWorkQueue(history, today, now);
+            for (long id = 1; id <= 5; id++) {
+                work.add(id);
+            }
+            List<Long> order = new ArrayList<>();
+            while (!work.isEmpty()) {
+                order.add(work.poll());
+            }
+            // 3: 144+720-96, 5 (unknown): 720, 4: 400, 2: 144+48, 1: 144+2
+            assertEquals(List.of(3L, 5L, 4L, 2L, 1L), order);
+        }
+    }
+}
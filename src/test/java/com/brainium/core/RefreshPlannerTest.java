@@ -0,0 +1,83 @@
+package com.brainium.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.brainium.schema.PlayerProfile;
+
+class RefreshPlannerTest {
+
+    @TempDir
+    Path dir;
+
+    private static final long DAY = 24 * 3600_000L;
+
+    private static PlayerProfile profile(String season, String status) {
+        PlayerProfile p = new PlayerProfile();
+        p.season = season;
+        p.status = status;
+        return p;
+    }
+
+    @Test
+    void testRefreshesActivePlayersOftenAndRetiredRarely() throws Exception {
+        LocalDate today = LocalDate.of(2026, 2, 1);
+        long now = today.toEpochDay() * DAY;
+        RefreshPlanner planner = new RefreshPlanner(7, 30, 180);
+
+        try (ScrapeHistory history = ScrapeHistory.open(dir.resolve("h.json"))) {
+            history.markScraped(1, now - 10 * DAY, profile("2025-2026", "Active"));  // active, 10/7 overdue
+            history.markScraped(2, now - 10 * DAY, profile("2012-2013", "Retired")); // retired, not due
+            history.markScraped(3, now - 200 * DAY, profile("2012-2013", "Retired")); // retired, 200/180
+            history.markScraped(4, now - 3 * DAY, profile("2025-2026", "Active"));   // active, not due
+            history.markScraped(5, now - 40 * DAY, profile("2019-2020", null));      // idle, 40/30
+            history.markScraped(7, now - 60 * DAY, profile("2019-2020", null));
+            history.markScraped(7, now - 25 * DAY, profile("2020-2021", null));      // changed: 25/15
+
+            assertEquals(7, planner.intervalDays(history.get(1), today, now));
+            assertEquals(180, planner.intervalDays(history.get(2), today, now));
+            assertEquals(30, planner.intervalDays(history.get(5), today, now));
+            assertEquals(15, planner.intervalDays(history.get(7), today, now));
+
+            long[] candidates = { 1, 2, 3, 4, 5, 6, 7 };
+            // 6 was never scraped, then 7 (1.67), 1 (1.43), 5 (1.33), 3 (1.11)
+            assertEquals(List.of(6L, 7L, 1L, 5L, 3L), planner.plan(candidates, history, today, now, 10));
+            assertEquals(List.of(6L, 7L), planner.plan(candidates, history, today, now, 2));
+        }
+    }
+
+    @Test
+    void testFailingProfilesBackOff() throws Exception {
+        LocalDate today = LocalDate.of(2026, 2, 1);
+        long now = today.toEpochDay() * DAY;
+        RefreshPlanner planner = new RefreshPlanner(7, 30, 180);
+
+        try (ScrapeHistory history = ScrapeHistory.open(dir.resolve("h.json"))) {
+            history.markFailed(1, now - 10 * DAY);     // never scraped, 1 failure: due after 60 days
+            history.markFailed(2, now - 10 * DAY);
+            history.markFailed(2, now - 70 * DAY);     // 2 failures, last attempt 10 days ago: 120 days
+            history.markFailed(3, now - 100 * DAY);    // 1 failure 100 days ago: 100/60
+            history.markScraped(4, now - 40 * DAY, profile("2019-2020", null));
+            history.markFailed(4, now - 20 * DAY);     // failed refresh 20 days ago: 20/60, not due
+
+            long[] candidates = { 1, 2, 3, 4, 5 };
+            // 5 was never tried
+            assertEquals(List.of(5L, 3L), planner.plan(candidates, history, today, now, 10));
+        }
+    }
+
+    @Test
+    void testCsvFieldOf() {
+        String record = "123,\"a,\"\"b\"\"\",c";
+        assertEquals("123", CsvCompactor.fieldOf(record, 0));
+        assertEquals("a,\"b\"", CsvCompactor.fieldOf(record, 1));
+        assertEquals("c", CsvCompactor.fieldOf(record, 2));
+        assertEquals("", CsvCompactor.fieldOf(record, 3));
+    }
+}
@@ -0,0 +1,92 @@
+package com.brainium.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RetryQueueTest {
+
+    @TempDir
+    Path dir;
+
+    private RetryQueue open() throws Exception {
+        RetryQueue queue = new RetryQueue(dir.resolve("retry_queue.json"), dir.resolve("dead.txt"), 3, 1000, 3000);
+        queue.load();
+        return queue;
+    }
+
+    @Test
+    void testBackoffSurvivesRestartAndEndsInDeadLetter() throws Exception {
+        long now = 1_000_000;
+        try (RetryQueue queue = open()) {
+            assertTrue(queue.recordFailure(1, "a-one", "f", "timeout", now));
+            assertTrue(queue.recordFailure(2, "b-two", "f", "timeout", now));
+            assertTrue(queue.recordFailure(1, "a-one", "f", "timeout", now + 1000));
+            queue.recordSuccess(2);
+        }
+
+        try (RetryQueue queue = open()) {
+            assertEquals(1, queue.size());
+            assertNull(queue.get(2));
+            RetryQueue.Entry e = queue.get(1);
+            assertEquals(2, e.attempts);
+            assertEquals("a-one", e.slug);
+            assertEquals(now + 1000 + 2000, e.nextAttemptAt); // second failure waits twice the base
+            assertTrue(queue.due(now + 2999).isEmpty());
+            assertEquals(1, queue.due(now + 3000).size());
+
+            assertFalse(queue.recordFailure(1, "a-one", "f", "HTTP 404", now + 3000));
+            assertEquals(0, queue.size());
+            assertEquals(-1, queue.nextDueAt());
+        }
+
+        List<String> dead = Files.readAllLines(dir.resolve("dead.txt"));
+        assertEquals(1, dead.size());
+        assertTrue(dead.get(0).startsWith("1,a-one,f,"));
+        assertTrue(dead.get(0).endsWith("HTTP 404"));
+        try (RetryQueue queue = open()) {
+            assertEquals(0, queue.size());
+        }
+    }
+
+    @Test
+    void testBackoffIsCapped() throws Exception {
+        try (RetryQueue queue = open()) {
+            assertEquals(1000, queue.backoffMs(1));
+            assertEquals(2000, queue.backoffMs(2));
+            assertEquals(3000, queue.backoffMs(3));
+            assertEquals(3000, queue.backoffMs(40));
+        }
+    }
+
+    @Test
+    void testImportsFailedPlayersFile() throws Exception {
+        Path legacy = dir.resolve("failed_players.txt");
+        Files.writeString(legacy, "884838,adam-larsson,f,2026-01-01T10:00,Read timed out\n"
+                + "not-a-number,x,f,2026-01-01T10:00,boom\n"
+                + "\n"
+                + "1209076,erik-svensson,d,2026-01-01T10:05,HTTP 503\n");
+        try (RetryQueue queue = open()) {
+            assertEquals(2, queue.importFailedPlayers(legacy, 5000));
+            assertFalse(Files.exists(legacy));
+
+            List<RetryQueue.Entry> due = queue.due(5000);
+            assertEquals(2, due.size());
+            assertEquals(884838, due.get(0).id);
+            assertEquals("adam-larsson", due.get(0).slug);
+            assertEquals(1, due.get(0).attempts);
+            assertEquals("d", queue.get(1209076).position);
+        }
+        try (RetryQueue queue = open()) {
+            assertEquals(2, queue.size());
+        }
+    }
+}
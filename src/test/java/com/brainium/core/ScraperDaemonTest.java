@@ -0,0 +1,24 @@
+package com.brainium.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import org.junit.jupiter.api.Test;
+
+class ScraperDaemonTest {
+
+    @Test
+    void testNextRunIsTodayOrTomorrowAcrossDst() {
+        ZoneId zone = ZoneId.of("Europe/Stockholm");
+        ZonedDateTime evening = ZonedDateTime.of(2026, 1, 10, 22, 30, 0, 0, zone);
+        assertEquals(90 * 60_000L, ScraperDaemon.millisUntil(LocalTime.of(0, 0), evening));
+        assertEquals(23 * 3600_000L, ScraperDaemon.millisUntil(LocalTime.of(21, 30), evening));
+
+        // clocks go forward on 29 March 2026: 00:00 -> 04:00 is only 3 hours
+        ZonedDateTime midnight = ZonedDateTime.of(2026, 3, 29, 0, 0, 0, 0, zone);
+        assertEquals(3 * 3600_000L, ScraperDaemon.millisUntil(LocalTime.of(4, 0), midnight));
+    }
+}
@@ -0,0 +1,53 @@
+package com.brainium.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SearchCheckpointTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testResumesAtFirstUnfinishedPlayer() throws Exception {
+        try (SearchCheckpoint cp = SearchCheckpoint.open("f_1992", dir)) {
+            cp.markPlayerDone(1, 10);
+            cp.markPlayerDone(1, 11);
+            cp.markPageDone(1);
+            cp.markPlayerDone(2, 20);
+        }
+
+        try (SearchCheckpoint cp = SearchCheckpoint.open("f_1992", dir)) {
+            assertEquals(2, cp.firstUnfinishedPage(1));
+            assertTrue(cp.isPageDone(1));
+            assertTrue(cp.isPlayerDone(2, 20));
+            assertFalse(cp.isPlayerDone(2, 21));
+        }
+
+        // a different search key has its own state
+        try (SearchCheckpoint cp = SearchCheckpoint.open("d_1992", dir)) {
+            assertEquals(1, cp.firstUnfinishedPage(1));
+        }
+    }
+
+    @Test
+    void testFinishDropsState() throws Exception {
+        SearchCheckpoint cp = SearchCheckpoint.open("g_2001", dir);
+        cp.markPageDone(1);
+        cp.flush();
+        assertTrue(Files.exists(dir.resolve("g_2001.log")));
+        cp.finish();
+        cp.close();
+
+        try (SearchCheckpoint again = SearchCheckpoint.open("g_2001", dir)) {
+            assertEquals(1, again.firstUnfinishedPage(1));
+        }
+    }
+}
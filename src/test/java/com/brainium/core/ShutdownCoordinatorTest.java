@@ -0,0 +1,95 @@
+package com.brainium.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ShutdownCoordinatorTest {
+
+    @AfterEach
+    void reset() {
+        ShutdownCoordinator.reset();
+    }
+
+    @Test
+    void testDrainsInFlightWorkThenFlushesNewestFirst() throws Exception {
+        List<String> events = new CopyOnWriteArrayList<>();
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        ShutdownCoordinator.drainOnShutdown("pool", pool);
+        ShutdownCoordinator.onShutdown("status", () -> events.add("flush status"));
+        ShutdownCoordinator.onShutdown("checkpoint", () -> events.add("flush checkpoint"));
+        ShutdownCoordinator.Registration closed = ShutdownCoordinator.onShutdown("closed", () -> events.add("closed"));
+        closed.close();
+
+        CountDownLatch started = new CountDownLatch(1);
+        pool.execute(() -> {
+            started.countDown();
+            sleep(500);
+            events.add("in-flight done");
+        });
+        // queued behind the in-flight task: must not start real work after shutdown began
+        pool.execute(() -> events.add(ShutdownCoordinator.isStopping() ? "queued skipped" : "queued ran"));
+
+        // the main loop notices the flag and finishes its run a little later
+        ShutdownCoordinator.Registration run = ShutdownCoordinator.beginWork("run");
+        Thread main = new Thread(() -> {
+            while (!ShutdownCoordinator.isStopping()) sleep(5);
+            sleep(100);
+            events.add("run done");
+            run.close();
+        });
+        main.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        ShutdownCoordinator.shutdown(5_000);
+
+        assertTrue(pool.isTerminated());
+        assertEquals(List.of("run done", "in-flight done", "queued skipped", "flush checkpoint", "flush status"),
+                events);
+        main.join();
+    }
+
+    @Test
+    void testInterruptsPoolPastTheDeadline() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        ShutdownCoordinator.drainOnShutdown("pool", pool);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        AtomicBoolean flushed = new AtomicBoolean();
+        ShutdownCoordinator.onShutdown("flush", () -> flushed.set(true));
+        CountDownLatch started = new CountDownLatch(1);
+        pool.execute(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        long t0 = System.currentTimeMillis();
+        ShutdownCoordinator.shutdown(200);
+        assertTrue(System.currentTimeMillis() - t0 < 10_000);
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(interrupted.get());
+        assertTrue(flushed.get());
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.brainium.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpServer;
+
+class StreamingUploaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer server;
+    private final Set<String> received = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/upload", exchange -> {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            for (String part : body.split("\"user_id\":\"")) {
+                if (Character.isDigit(part.charAt(0))) {
+                    received.add(part.substring(0, part.indexOf('"')));
+                }
+            }
+            byte[] resp = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, resp.length);
+            exchange.getResponseBody().write(resp);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private StreamingUploader uploader(UploadLedger ledger) {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/upload";
+        AdaptiveBatchSizer sizer = new AdaptiveBatchSizer(1024, 256, 1024, 5, 3000);
+        return new StreamingUploader(HttpClient.newHttpClient(), url, 2, sizer, ledger, false, 4, 50);
+    }
+
+    @Test
+    void testUploadsEveryPublishedPlayerWhileProducing() throws Exception {
+        StreamingUploader uploader = uploader(UploadLedger.open(tempDir.resolve("ledger.json")));
+        for (int id = 0; id < 23; id++) {
+            String json = "{\"user_id\":\"" + id + "\",\"profile_link\":\"https://x/" + id + "\",\"nation\":null}";
+            assertTrue(uploader.publish(UploadRecord.fromExportJson(json)));
+            if (id == 10) {
+                Thread.sleep(200); // producer pause: the partial batch should go out on its own
+            }
+        }
+        assertTrue(uploader.finish());
+
+        assertEquals(23, received.size());
+        assertTrue(uploader.batches >= 5, "batches are capped at 5 players: " + uploader.batches);
+        assertEquals(0, uploader.failedBatches());
+    }
+
+    @Test
+    void testSkipsPlayersTheLedgerAlreadyAccepted() throws Exception {
+        Path ledgerFile = tempDir.resolve("ledger.json");
+        StreamingUploader first = uploader(UploadLedger.open(ledgerFile));
+        for (int id = 0; id < 3; id++) {
+            first.publish(UploadRecord.fromExportJson("{\"user_id\":\"" + id + "\",\"profile_link\":\"https://x/" + id + "\"}"));
+        }
+        assertTrue(first.finish());
+
+        received.clear();
+        StreamingUploader second = uploader(UploadLedger.open(ledgerFile));
+        for (int id = 0; id < 4; id++) {
+            second.publish(UploadRecord.fromExportJson("{\"user_id\":\"" + id + "\",\"profile_link\":\"https://x/" + id + "\"}"));
+        }
+        assertTrue(second.finish());
+
+        assertEquals(Set.of("3"), received);
+        assertEquals(3, second.skippedUnchanged);
+    }
+}
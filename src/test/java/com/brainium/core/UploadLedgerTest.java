@@ -0,0 +1,38 @@
+package com.brainium.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class UploadLedgerTest {
+
+    @TempDir
+    Path dir;
+
+    private static UploadRecord player(String id, String name) {
+        String json = "{\"user_id\":\"" + id + "\",\"name\":\"" + name + "\"}";
+        return new UploadRecord(id, null, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testSkipsOnlyUnchangedAcceptedPlayers() throws Exception {
+        Path file = dir.resolve("upload_ledger.json");
+        try (UploadLedger ledger = UploadLedger.open(file)) {
+            ledger.markAccepted(List.of(player("1", "A"), player("2", "B")));
+        }
+
+        try (UploadLedger ledger = UploadLedger.open(file)) {
+            assertEquals(2, ledger.size());
+            assertTrue(ledger.isUnchanged(player("1", "A")));
+            assertFalse(ledger.isUnchanged(player("2", "B changed")));
+            assertFalse(ledger.isUnchanged(player("3", "C")));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.brainium.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+class UploadSchemaTest {
+
+    @Test
+    void testNormalizesNullsAndRejectsInvalidFields() {
+        UploadSchema schema = UploadSchema.player();
+
+        JsonObject ok = JsonParser.parseString("{\"user_id\":805267,\"profile_link\":\"https://x/805267\","
+                + "\"nation\":null,\"shoots\":null,\"agency\":null}").getAsJsonObject();
+        assertEquals(List.of(), schema.validate(ok));
+        assertEquals("", ok.get("nation").getAsString());
+        assertEquals("", ok.get("shoots").getAsString());
+        assertTrue(ok.get("agency").isJsonNull());
+
+        JsonObject bad = JsonParser.parseString("{\"user_id\":\"12a\",\"nation\":\"" + "x".repeat(300) + "\","
+                + "\"position\":{\"position\":\"D\"}}").getAsJsonObject();
+        List<String> problems = schema.validate(bad);
+        assertEquals(4, problems.size(), problems.toString());
+        assertTrue(problems.contains("profile_link is required"));
+        assertTrue(problems.contains("nation is longer than 255 characters"));
+
+        assertFalse(UploadRecord.fromExportJson("{\"user_id\":null,\"profile_link\":\"https://x/1\"}").isValid());
+    }
+
+    @Test
+    void testSampleExportPassesSchema() throws Exception {
+        try (PlayerDataReader reader = PlayerDataReader.open(Path.of("test_player_data.json"))) {
+            UploadRecord player;
+            int n = 0;
+            while ((player = reader.next()) != null) {
+                assertEquals(List.of(), player.problems, "player " + player.id);
+                n++;
+            }
+            assertTrue(n > 0);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.brainium.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.Gson;
+
+class LongHashSetTest {
+
+    @Test
+    void testAddContainsAndGrow() {
+        LongHashSet set = new LongHashSet(2);
+        for (long i = 0; i < 1000; i++) {
+            assertTrue(set.add(i * 7919));
+        }
+        assertFalse(set.add(7919));
+        assertEquals(1000, set.size());
+        assertTrue(set.contains(0));
+        assertTrue(set.contains(999 * 7919L));
+        assertFalse(set.contains(1));
+    }
+
+    @Test
+    void testGsonRoundTripAcceptsLegacyStringIds() {
+        Gson gson = new Gson();
+        LongHashSet legacy = gson.fromJson("[\"884838\", \"1209076\"]", LongHashSet.class);
+        assertTrue(legacy.contains(884838L));
+        assertTrue(legacy.contains(1209076L));
+
+        LongHashSet copy = gson.fromJson(gson.toJson(legacy), LongHashSet.class);
+        assertEquals(2, copy.size());
+        assertTrue(copy.contains(1209076L));
+    }
+
+    @Test
+    void testLongObjectMap() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        for (long i = 1; i <= 500; i++) {
+            map.putIfAbsent(i, "slug-" + i);
+        }
+        assertEquals("slug-42", map.putIfAbsent(42, "other"));
+        assertEquals("slug-42", map.get(42));
+        assertEquals("", map.getOrDefault(501, ""));
+        assertEquals(500, map.keys().length);
+    }
+
+    @Test
+    void testLongObjectMapRemoveKeepsProbeChains() {
+        // small table so removals punch holes into long probe runs
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>(4);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            long key = random.nextInt(300);
+            if (random.nextBoolean()) {
+                assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (long key = 0; key < 300; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.brainium.data;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.brainium.schema.PlayerProfile;
+import com.brainium.schema.Skill;
+
+class ProfileStoreTest {
+
+    private static PlayerProfile profile(String name, String team) {
+        PlayerProfile p = new PlayerProfile();
+        p.name = name;
+        p.nation = new String("Sweden");
+        p.latest_team = team;
+        p.shoots = "L";
+        p.playerType = new String[] {"Power Forward", "Playmaker"};
+        p.skills = new Skill[] {new Skill("Hockey IQ", "https://img/hockey-iq.svg")};
+        return p;
+    }
+
+    @Test
+    void testInternSharesInstances() {
+        ProfileStore store = new ProfileStore(new StringDictionary());
+        store.put(1, profile("A", "Brynäs IF / SHL"));
+        store.put(2, profile("B", "Brynäs IF / SHL"));
+        assertSame(store.get(1).nation, store.get(2).nation);
+        assertSame(store.get(1).skills[0].name, store.get(2).skills[0].name);
+    }
+
+    @Test
+    void testEncodedRoundTrip(@TempDir Path dir) throws Exception {
+        ProfileStore store = new ProfileStore(new StringDictionary());
+        store.put(805267, profile("Aron Dahlqvist", "Brynäs IF / SHL"));
+        store.put(884838, profile("Isak Ingvarsson", "Växjö Lakers HC U16"));
+
+        Path file = dir.resolve("profiles.enc.jsonl");
+        store.writeEncoded(file);
+        assertEquals(8, Files.readAllLines(ProfileStore.dictionaryPath(file)).size());
+
+        ProfileStore copy = ProfileStore.readEncoded(file);
+        PlayerProfile p = copy.get(884838);
+        assertEquals("Isak Ingvarsson", p.name);
+        assertEquals("Växjö Lakers HC U16", p.latest_team);
+        assertArrayEquals(new String[] {"Power Forward", "Playmaker"}, p.playerType);
+        assertEquals("Hockey IQ : https://img/hockey-iq.svg", p.getSkillsFormatted());
+    }
+}
@@ -0,0 +1,44 @@
+package com.brainium.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SegmentedProfileLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testRandomAccessAcrossSegmentsAndReopen() throws Exception {
+        // tiny segments so several blocks roll over
+        try (SegmentedProfileLog log = SegmentedProfileLog.open(dir, 2048)) {
+            for (long id = 1; id <= 1000; id++) {
+                log.append(id, "{\"id\":" + id + ",\"name\":\"Player " + id + "\"}");
+            }
+            log.append(7, "{\"id\":7,\"name\":\"Updated\"}");
+            assertEquals("{\"id\":7,\"name\":\"Updated\"}", log.get(7));
+        }
+        assertTrue(Files.exists(dir.resolve("segment-000002.jsonl.gz")));
+
+        try (SegmentedProfileLog log = SegmentedProfileLog.open(dir, 2048)) {
+            assertEquals(1000, log.size());
+            assertEquals("{\"id\":500,\"name\":\"Player 500\"}", log.get(500));
+            assertEquals("{\"id\":7,\"name\":\"Updated\"}", log.get(7));
+            assertNull(log.get(5000));
+
+            List<String> all = new ArrayList<>();
+            log.scan(all::add);
+            assertEquals(1001, all.size());
+            assertEquals("{\"id\":1,\"name\":\"Player 1\"}", all.get(0));
+        }
+    }
+}
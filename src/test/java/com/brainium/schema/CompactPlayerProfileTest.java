@@ -0,0 +1,66 @@
+package com.brainium.schema;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+
+class CompactPlayerProfileTest {
+
+    @Test
+    void testParsesDisplayFields() {
+        PlayerProfile p = new PlayerProfile();
+        p.name = "Aron Dahlqvist";
+        p.dateOfBirth = "Feb 22, 2007";
+        p.age = "18";
+        p.height = "193 cm / 6'4\"";
+        p.weight = "93 kg / 205 lbs";
+        p.capHit = "$950,000";
+        p.drafted = "2025 round 6 #180 overall by Washington Capitals";
+
+        CompactPlayerProfile c = CompactPlayerProfile.from(805267, p);
+        assertEquals(LocalDate.of(2007, 2, 22), c.dateOfBirth());
+        assertEquals(18, c.age);
+        assertEquals(193, c.heightCm);
+        assertEquals(76, c.heightInches);
+        assertEquals(93, c.weightKg);
+        assertEquals(950_000, c.capHitUsd);
+        assertEquals(2025, c.draftYear);
+        assertEquals(6, c.draftRound);
+        assertEquals(180, c.draftPick);
+        assertEquals("Washington Capitals", c.draftTeam);
+
+        PlayerProfile back = c.toPlayerProfile();
+        assertEquals(p.dateOfBirth, back.dateOfBirth);
+        assertEquals(p.height, back.height);
+        assertEquals(p.weight, back.weight);
+        assertEquals(p.capHit, back.capHit);
+        assertEquals(p.drafted, back.drafted);
+        assertEquals("805267", back.userId);
+    }
+
+    @Test
+    void testKeepsUnexpectedFormatsVerbatim() {
+        PlayerProfile p = new PlayerProfile();
+        p.dateOfBirth = "2007";
+        p.height = "-";
+        p.drafted = "";
+
+        CompactPlayerProfile c = CompactPlayerProfile.from(1, p);
+        assertEquals(null, c.dateOfBirth());
+        assertEquals(CompactPlayerProfile.UNKNOWN, c.heightCm);
+        assertFalse(c.isDrafted());
+
+        PlayerProfile back = c.toPlayerProfile();
+        assertEquals("2007", back.dateOfBirth);
+        assertEquals("-", back.height);
+        assertEquals("", back.drafted);
+        // fields the page didn't have stay null
+        assertEquals(null, back.age);
+        assertEquals(null, back.weight);
+        assertEquals(null, back.capHit);
+        assertEquals(null, c.capHitText());
+    }
+}